@@ -0,0 +1,17 @@
+package org.yrti.severstal.reactive;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+
+/**
+ * Неблокирующий вариант API рулонов на WebFlux и R2DBC для большого числа одновременных долгих запросов.
+ * Чтение идет напрямую в PostgreSQL, запись передается основному приложению.
+ */
+@SpringBootApplication
+public class SeverstalReactiveApplication {
+
+    public static void main(String[] args) {
+        SpringApplication.run(SeverstalReactiveApplication.class, args);
+    }
+
+}
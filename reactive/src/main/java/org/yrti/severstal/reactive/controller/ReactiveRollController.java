@@ -0,0 +1,72 @@
+package org.yrti.severstal.reactive.controller;
+
+import jakarta.validation.Valid;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.yrti.severstal.dto.RollCreateRequest;
+import org.yrti.severstal.dto.RollFilterRequest;
+import org.yrti.severstal.exception.RollNotFoundException;
+import org.yrti.severstal.reactive.dao.RollR2dbcDao;
+import org.yrti.severstal.reactive.dto.RollResponse;
+import org.yrti.severstal.reactive.service.PrimaryApiClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Objects;
+
+@RestController
+@RequestMapping("/api/rolls")
+public class ReactiveRollController {
+
+    // как RollService.MAX_BATCH_IDS
+    static final int MAX_BATCH_IDS = 1000;
+
+    private final RollR2dbcDao rollDao;
+    private final PrimaryApiClient primaryApiClient;
+
+    public ReactiveRollController(RollR2dbcDao rollDao, PrimaryApiClient primaryApiClient) {
+        this.rollDao = rollDao;
+        this.primaryApiClient = primaryApiClient;
+    }
+
+    @PostMapping
+    public Mono<ResponseEntity<byte[]>> createRoll(@Valid @RequestBody RollCreateRequest request) {
+        return primaryApiClient.createRoll(request);
+    }
+
+    @DeleteMapping("/{id}")
+    public Mono<ResponseEntity<byte[]>> deleteRoll(@PathVariable Long id) {
+        return primaryApiClient.deleteRoll(id);
+    }
+
+    @GetMapping("/{id}")
+    public Mono<RollResponse> getRoll(@PathVariable Long id) {
+        return rollDao.findById(id)
+                .switchIfEmpty(Mono.error(() -> new RollNotFoundException("Рулон с id " + id + " не найден")));
+    }
+
+    /**
+     * Рулоны по списку id в порядке запроса, ненайденные пропускаются.
+     */
+    @GetMapping("/batch")
+    public Flux<RollResponse> getRollsByIds(@RequestParam List<Long> ids) {
+        if (ids.size() > MAX_BATCH_IDS) {
+            return Flux.error(new IllegalArgumentException("Слишком много id: " + ids.size() + ", максимум " + MAX_BATCH_IDS));
+        }
+        List<Long> distinct = ids.stream().filter(Objects::nonNull).distinct().toList();
+        return rollDao.findByIds(distinct)
+                .collectMap(RollResponse::id)
+                .flatMapIterable(found -> distinct.stream().map(found::get).filter(Objects::nonNull).toList());
+    }
+
+    /**
+     * Рулоны под фильтр потоком: JSON-массив или NDJSON ({@code Accept: application/x-ndjson}).
+     * Строки читаются из базы по мере того, как клиент забирает ответ.
+     */
+    @GetMapping(produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Flux<RollResponse> getRolls(@Valid RollFilterRequest filter) {
+        return rollDao.findByFilter(filter);
+    }
+}
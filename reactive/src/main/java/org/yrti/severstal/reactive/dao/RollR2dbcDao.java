@@ -0,0 +1,121 @@
+package org.yrti.severstal.reactive.dao;
+
+import io.r2dbc.spi.Readable;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import org.yrti.severstal.dto.RollFilterRequest;
+import org.yrti.severstal.model.MoscowTime;
+import org.yrti.severstal.reactive.dto.RollResponse;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Чтение рулонов через R2DBC: горячая таблица {@code rolls} вместе с архивом {@code rolls_archive}.
+ * <p>
+ * Обе таблицы читаются одним запросом {@code UNION ALL}. Перенос в архив — одна команда
+ * (см. {@code RollArchiveDao}), поэтому в снимке запроса рулон лежит ровно в одной таблице.
+ * Архив под фильтр с нижней границей дат не раньше отметки архива PostgreSQL не читает, как и в основном приложении.
+ * <p>
+ * Строки выборки по фильтру забираются с сервера порциями по {@code fetchSize} по мере запроса подписчика,
+ * так что медленный клиент не заставляет держать в памяти весь результат.
+ * <p>
+ * Даты в таблицах — {@code timestamptz}: параметры передаются с московским смещением, прочитанные моменты
+ * переводятся в московское время, как в основном приложении.
+ */
+@Repository
+public class RollR2dbcDao {
+
+    static final String COLUMNS = "id, length, weight, add_date, delete_date, warehouse";
+
+    static final String WATERMARK = "(SELECT archived_before FROM archive_watermark)";
+
+    private final DatabaseClient databaseClient;
+    private final int fetchSize;
+
+    public RollR2dbcDao(DatabaseClient databaseClient,
+                        @Value("${severstal.reactive.fetch-size:256}") int fetchSize) {
+        this.databaseClient = databaseClient;
+        this.fetchSize = fetchSize;
+    }
+
+    public Mono<RollResponse> findById(long id) {
+        return findByIds(List.of(id)).next();
+    }
+
+    public Flux<RollResponse> findByIds(Collection<Long> ids) {
+        if (ids.isEmpty()) return Flux.empty();
+        return databaseClient.sql("SELECT " + COLUMNS + " FROM rolls WHERE id IN (:ids)"
+                        + " UNION ALL SELECT " + COLUMNS + " FROM rolls_archive WHERE id IN (:ids)")
+                .bind("ids", ids)
+                .map(RollR2dbcDao::map)
+                .all();
+    }
+
+    public Flux<RollResponse> findByFilter(RollFilterRequest filter) {
+        Map<String, Object> params = new LinkedHashMap<>();
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(filterSql(filter, params))
+                .filter(statement -> statement.fetchSize(fetchSize));
+        for (Map.Entry<String, Object> param : params.entrySet()) {
+            spec = spec.bind(param.getKey(), param.getValue());
+        }
+        return spec.map(RollR2dbcDao::map).all();
+    }
+
+    /**
+     * Запрос по фильтру к обеим таблицам, значения фильтров кладет в {@code params}.
+     * Условия те же, что у {@code RollFilterSql} основного приложения.
+     */
+    static String filterSql(RollFilterRequest filter, Map<String, Object> params) {
+        StringBuilder where = new StringBuilder();
+        condition(where, params, "id >= :idMin", "idMin", filter.getIdMin());
+        condition(where, params, "id <= :idMax", "idMax", filter.getIdMax());
+        condition(where, params, "length >= :lengthMin", "lengthMin", filter.getLengthMin());
+        condition(where, params, "length <= :lengthMax", "lengthMax", filter.getLengthMax());
+        condition(where, params, "weight >= :weightMin", "weightMin", filter.getWeightMin());
+        condition(where, params, "weight <= :weightMax", "weightMax", filter.getWeightMax());
+        condition(where, params, "add_date >= :addDateMin", "addDateMin", MoscowTime.toOffset(filter.getAddDateMin()));
+        condition(where, params, "add_date <= :addDateMax", "addDateMax", MoscowTime.toOffset(filter.getAddDateMax()));
+        condition(where, params, "delete_date >= :deleteDateMin", "deleteDateMin", MoscowTime.toOffset(filter.getDeleteDateMin()));
+        condition(where, params, "delete_date <= :deleteDateMax", "deleteDateMax", MoscowTime.toOffset(filter.getDeleteDateMax()));
+        condition(where, params, "warehouse = :warehouse", "warehouse", filter.getWarehouse());
+
+        // рулон, добавленный или удаленный не раньше отметки архива, в архиве быть не может
+        LocalDateTime since = filter.getAddDateMin();
+        if (filter.getDeleteDateMin() != null && (since == null || filter.getDeleteDateMin().isAfter(since))) {
+            since = filter.getDeleteDateMin();
+        }
+        String archiveGuard = "";
+        if (since != null) {
+            params.put("archiveSince", MoscowTime.toOffset(since));
+            archiveGuard = " AND :archiveSince < " + WATERMARK;
+        }
+        return "SELECT " + COLUMNS + " FROM rolls WHERE TRUE" + where
+                + " UNION ALL SELECT " + COLUMNS + " FROM rolls_archive WHERE TRUE" + archiveGuard + where;
+    }
+
+    private static void condition(StringBuilder sql, Map<String, Object> params, String predicate, String name, Object value) {
+        if (value != null) {
+            sql.append(" AND ").append(predicate);
+            params.put(name, value);
+        }
+    }
+
+    private static RollResponse map(Readable row) {
+        return new RollResponse(
+                row.get("length", BigDecimal.class),
+                row.get("weight", BigDecimal.class),
+                MoscowTime.toLocal(row.get("add_date", OffsetDateTime.class)),
+                MoscowTime.toLocal(row.get("delete_date", OffsetDateTime.class)),
+                row.get("id", Long.class),
+                row.get("warehouse", String.class));
+    }
+}
@@ -0,0 +1,19 @@
+package org.yrti.severstal.reactive.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Рулон в ответах реактивного API. Поля и формат дат те же, что у {@code Roll} основного приложения,
+ * клиент не видит разницы между двумя API.
+ */
+public record RollResponse(
+        BigDecimal length,
+        BigDecimal weight,
+        @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss", timezone = "Europe/Moscow") LocalDateTime addDate,
+        @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss", timezone = "Europe/Moscow") LocalDateTime deleteDate,
+        Long id,
+        String warehouse) {
+}
@@ -0,0 +1,62 @@
+package org.yrti.severstal.reactive.handler;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.bind.support.WebExchangeBindException;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.yrti.severstal.exception.RollNotFoundException;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Ошибки в том же формате, что у {@code GlobalExceptionHandler} основного приложения.
+ */
+@RestControllerAdvice
+public class ReactiveExceptionHandler {
+
+    private static final Logger log = LoggerFactory.getLogger(ReactiveExceptionHandler.class);
+
+    @ExceptionHandler(RollNotFoundException.class)
+    public ResponseEntity<?> handleNotFound(RollNotFoundException e) {
+        log.error("Рулон не найден: {}", e.getMessage());
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", e.getMessage()));
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<?> handleIllegalArgument(IllegalArgumentException e) {
+        log.error("Некорректный аргумент: {}", e.getMessage());
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of("error", e.getMessage()));
+    }
+
+    // в WebFlux ошибки валидации и тела, и параметров запроса приходят как WebExchangeBindException
+    @ExceptionHandler(WebExchangeBindException.class)
+    public ResponseEntity<Map<String, Object>> handleValidationExceptions(WebExchangeBindException ex) {
+        Map<String, String> errors = new HashMap<>();
+        ex.getBindingResult().getFieldErrors().forEach(error -> errors.put(error.getField(), error.getDefaultMessage()));
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("error", "Ошибка валидации");
+        response.put("errors", errors);
+        response.put("status", HttpStatus.BAD_REQUEST.value());
+
+        log.warn("Ошибка валидации: {}", errors);
+        return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(WebClientRequestException.class)
+    public ResponseEntity<?> handlePrimaryUnavailable(WebClientRequestException e) {
+        log.error("Основное приложение недоступно: {}", e.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(Map.of("error", "Основное приложение недоступно"));
+    }
+
+    @ExceptionHandler(Exception.class)
+    public ResponseEntity<?> handleGeneric(Exception e) {
+        log.error("Внутренняя ошибка сервера", e);
+        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of("error", "Внутренняя ошибка сервера: " + e.getMessage()));
+    }
+}
@@ -0,0 +1,47 @@
+package org.yrti.severstal.reactive.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.yrti.severstal.dto.RollCreateRequest;
+import reactor.core.publisher.Mono;
+
+/**
+ * Запись через основное приложение. Создание и удаление рулона меняют не только {@code rolls}:
+ * в той же транзакции пишутся журнал событий, счетчики остатков, эскизы и уведомление кэшам.
+ * Эта логика остается в одном месте, а реактивное API вызывает ее неблокирующим HTTP-клиентом
+ * и не занимает поток на время ожидания ответа.
+ */
+@Service
+public class PrimaryApiClient {
+
+    private final WebClient webClient;
+
+    public PrimaryApiClient(@Value("${severstal.reactive.primary-url:http://localhost:8080}") String primaryUrl) {
+        this.webClient = WebClient.create(primaryUrl);
+    }
+
+    public Mono<ResponseEntity<byte[]>> createRoll(RollCreateRequest request) {
+        return webClient.post().uri("/api/rolls")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(request)
+                .exchangeToMono(PrimaryApiClient::relay);
+    }
+
+    public Mono<ResponseEntity<byte[]>> deleteRoll(long id) {
+        return webClient.delete().uri("/api/rolls/{id}", id)
+                .exchangeToMono(PrimaryApiClient::relay);
+    }
+
+    // статус и тело ответа передаются как есть, ошибки основного приложения уже в общем формате
+    private static Mono<ResponseEntity<byte[]>> relay(ClientResponse response) {
+        return response.bodyToMono(byte[].class)
+                .defaultIfEmpty(new byte[0])
+                .map(body -> ResponseEntity.status(response.statusCode())
+                        .contentType(response.headers().contentType().orElse(MediaType.APPLICATION_JSON))
+                        .body(body));
+    }
+}
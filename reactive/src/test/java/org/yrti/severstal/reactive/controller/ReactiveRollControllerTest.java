@@ -0,0 +1,125 @@
+package org.yrti.severstal.reactive.controller;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.yrti.severstal.reactive.dao.RollR2dbcDao;
+import org.yrti.severstal.reactive.dto.RollResponse;
+import org.yrti.severstal.reactive.handler.ReactiveExceptionHandler;
+import org.yrti.severstal.reactive.service.PrimaryApiClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ReactiveRollControllerTest {
+
+    @Mock
+    private RollR2dbcDao rollDao;
+
+    @Mock
+    private PrimaryApiClient primaryApiClient;
+
+    private WebTestClient client;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        client = WebTestClient.bindToController(new ReactiveRollController(rollDao, primaryApiClient))
+                .controllerAdvice(new ReactiveExceptionHandler())
+                .build();
+    }
+
+    @Test
+    @DisplayName("createRoll: невалидный запрос отклоняется с теми же сообщениями, запись не передается")
+    void createRoll_Invalid_ReturnsValidationErrors() {
+        // When и Then
+        client.post().uri("/api/rolls")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"length\": -1, \"weight\": 1234567.5}")
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.error").isEqualTo("Ошибка валидации")
+                .jsonPath("$.errors.length").isEqualTo("Длина должна быть больше 0")
+                .jsonPath("$.errors.weight").isEqualTo("Вес: максимум 6 цифр до и 3 после запятой")
+                .jsonPath("$.status").isEqualTo(400);
+        verifyNoInteractions(primaryApiClient);
+    }
+
+    @Test
+    @DisplayName("getRolls: перепутанные границы фильтра — ошибка валидации")
+    void getRolls_InvalidRange_ReturnsValidationErrors() {
+        // When и Then
+        client.get().uri("/api/rolls?idMin=10&idMax=5")
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.errors.idRangeValid").isEqualTo("Минимальное значение ID не может быть больше максимального");
+        verifyNoInteractions(rollDao);
+    }
+
+    @Test
+    @DisplayName("getRolls: поток рулонов в формате основного приложения")
+    void getRolls_StreamsRolls() {
+        // Given
+        when(rollDao.findByFilter(any())).thenReturn(Flux.just(
+                new RollResponse(new BigDecimal("10.500"), new BigDecimal("20.000"), LocalDateTime.of(2024, 1, 1, 10, 0), null, 1L, "main")));
+
+        // When и Then
+        client.get().uri("/api/rolls?warehouse=main")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().json("""
+                        [{"length":10.500,"weight":20.000,"addDate":"2024-01-01T10:00:00","deleteDate":null,"id":1,"warehouse":"main"}]""");
+    }
+
+    @Test
+    @DisplayName("getRollsByIds: порядок запроса, ненайденные пропускаются, больше 1000 id — 400")
+    void getRollsByIds_KeepsOrder_LimitsSize() {
+        // Given
+        when(rollDao.findByIds(anyCollection())).thenReturn(Flux.just(roll(1L), roll(3L)));
+        String tooMany = LongStream.rangeClosed(1, ReactiveRollController.MAX_BATCH_IDS + 1)
+                .mapToObj(String::valueOf).collect(Collectors.joining(","));
+
+        // When и Then
+        client.get().uri("/api/rolls/batch?ids=3,2,1,3")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(2)
+                .jsonPath("$[0].id").isEqualTo(3)
+                .jsonPath("$[1].id").isEqualTo(1);
+        client.get().uri("/api/rolls/batch?ids=" + tooMany)
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    @DisplayName("getRoll: несуществующий рулон — 404")
+    void getRoll_NotFound_Returns404() {
+        // Given
+        when(rollDao.findById(42L)).thenReturn(Mono.empty());
+
+        // When и Then
+        client.get().uri("/api/rolls/42")
+                .exchange()
+                .expectStatus().isNotFound()
+                .expectBody()
+                .jsonPath("$.error").isEqualTo("Рулон с id 42 не найден");
+    }
+
+    private static RollResponse roll(long id) {
+        return new RollResponse(BigDecimal.ONE, BigDecimal.ONE, LocalDateTime.of(2024, 1, 1, 10, 0), null, id, "main");
+    }
+}
@@ -0,0 +1,28 @@
+package org.yrti.severstal.config;
+
+import org.springframework.boot.http.converter.autoconfigure.ServerHttpMessageConvertersCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.JacksonCborHttpMessageConverter;
+import org.springframework.http.converter.smile.JacksonSmileHttpMessageConverter;
+import tools.jackson.databind.JacksonModule;
+import tools.jackson.dataformat.cbor.CBORMapper;
+import tools.jackson.dataformat.smile.SmileMapper;
+
+import java.util.List;
+
+/**
+ * Бинарные форматы ответов: CBOR ({@code application/cbor}) и Smile ({@code application/x-jackson-smile}).
+ * Формат выбирается по заголовку {@code Accept}, по умолчанию остается JSON.
+ */
+@Configuration
+public class BinaryFormatsConfig {
+
+    @Bean
+    public ServerHttpMessageConvertersCustomizer binaryFormatsCustomizer(CBORMapper cborMapper, List<JacksonModule> modules) {
+        SmileMapper smileMapper = SmileMapper.builder().addModules(modules).build();
+        return builder -> builder
+                .withCborConverter(new JacksonCborHttpMessageConverter(cborMapper))
+                .withSmileConverter(new JacksonSmileHttpMessageConverter(smileMapper));
+    }
+}
@@ -0,0 +1,33 @@
+package org.yrti.severstal.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Локальные кэши узла. Согласованность между узлами обеспечивает
+ * {@link org.yrti.severstal.service.CacheCoherenceService}; кэши — {@link CoherentMapCache},
+ * чтобы значение, посчитанное до удаления записей, не вернулось в кэш после него.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String STATISTICS = "statistics";
+
+    @Bean
+    public CacheManager cacheManager(@Value("${severstal.cache.max-entries:10000}") int maxEntries) {
+        ConcurrentMapCacheManager cacheManager = new ConcurrentMapCacheManager(STATISTICS) {
+            @Override
+            protected Cache createConcurrentMapCache(String name) {
+                return new CoherentMapCache(name, maxEntries, isAllowNullValues());
+            }
+        };
+        cacheManager.setAllowNullValues(false);
+        return cacheManager;
+    }
+}
@@ -0,0 +1,92 @@
+package org.yrti.severstal.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+
+import java.util.concurrent.Callable;
+import java.util.function.Predicate;
+
+/**
+ * Локальный кэш, в который не попадают значения, посчитанные до удаления записей.
+ * <p>
+ * Значение считается долго: если за это время данные изменились и записи кэша удалены,
+ * запись в кэш после удаления вернула бы устаревшее значение до следующего изменения.
+ * Каждое удаление увеличивает поколение кэша; {@link #get(Object, Callable)} кладет значение,
+ * только если поколение с начала расчета не менялось. Поэтому {@code @Cacheable} над таким кэшем
+ * должен работать с {@code sync = true}: обычный путь (get, затем put) начала расчета не видит.
+ * <p>
+ * Размер ограничен {@code maxEntries}: при переполнении Caffeine вытесняет по одной редко используемые записи,
+ * а не очищает кэш целиком, и узлы не пересчитывают все одновременно.
+ */
+public class CoherentMapCache extends ConcurrentMapCache {
+
+    private final Object lock = new Object();
+    private long generation;
+
+    public CoherentMapCache(String name, int maxEntries, boolean allowNullValues) {
+        // вытеснение в вызывающем потоке: размер не превышает предел и сразу после записи
+        super(name, Caffeine.newBuilder().maximumSize(maxEntries).executor(Runnable::run).build().asMap(), allowNullValues);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper cached = get(key);
+        if (cached != null) return (T) cached.get();
+        long seen;
+        synchronized (lock) {
+            seen = generation;
+        }
+        T value;
+        try {
+            value = valueLoader.call();
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+        synchronized (lock) {
+            if (generation == seen) getNativeCache().putIfAbsent(key, toStoreValue(value));
+        }
+        return value;
+    }
+
+    /**
+     * Удаляет записи с подходящими ключами. Расчеты, начатые до вызова, в кэш уже не попадут.
+     */
+    public void evictIf(Predicate<Object> keyFilter) {
+        synchronized (lock) {
+            generation++;
+            getNativeCache().keySet().removeIf(keyFilter);
+        }
+    }
+
+    @Override
+    public void evict(Object key) {
+        evictIf(key::equals);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        synchronized (lock) {
+            generation++;
+            return getNativeCache().remove(key) != null;
+        }
+    }
+
+    @Override
+    public void clear() {
+        synchronized (lock) {
+            generation++;
+            getNativeCache().clear();
+        }
+    }
+
+    @Override
+    public boolean invalidate() {
+        synchronized (lock) {
+            generation++;
+            boolean notEmpty = !getNativeCache().isEmpty();
+            getNativeCache().clear();
+            return notEmpty;
+        }
+    }
+}
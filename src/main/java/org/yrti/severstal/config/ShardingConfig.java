@@ -0,0 +1,102 @@
+package org.yrti.severstal.config;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import liquibase.integration.spring.SpringLiquibase;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.yrti.severstal.datasource.ShardRouter;
+import org.yrti.severstal.datasource.ShardRoutingDataSource;
+import org.yrti.severstal.datasource.ShardingProperties;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Шардирование по складам. Включается, если задан хотя бы один {@code severstal.sharding.shards}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "severstal.sharding.shards[0].url")
+public class ShardingConfig {
+
+    // таблицы, id которых должны быть уникальны между шардами
+    private static final List<String> SHARDED_ID_TABLES = List.of("rolls", "roll_events");
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(@Value("${spring.datasource.url}") String url,
+                                              @Value("${spring.datasource.username}") String username,
+                                              @Value("${spring.datasource.password}") String password) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl(url);
+        dataSource.setUsername(username);
+        dataSource.setPassword(password);
+        dataSource.setPoolName("shard-0");
+        return dataSource;
+    }
+
+    @Bean
+    public ShardRoutingDataSource shardRoutingDataSource(HikariDataSource primaryDataSource, ShardingProperties properties) {
+        List<DataSource> shards = new ArrayList<>();
+        shards.add(primaryDataSource);
+        for (int i = 0; i < properties.shards().size(); i++) {
+            ShardingProperties.Shard shard = properties.shards().get(i);
+            HikariConfig config = new HikariConfig();
+            primaryDataSource.copyStateTo(config);
+            config.setJdbcUrl(shard.url());
+            config.setUsername(shard.username() != null ? shard.username() : primaryDataSource.getUsername());
+            config.setPassword(shard.password() != null ? shard.password() : primaryDataSource.getPassword());
+            config.setPoolName("shard-" + (i + 1));
+            shards.add(new HikariDataSource(config));
+        }
+        return new ShardRoutingDataSource(shards);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ShardRoutingDataSource shardRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(shardRoutingDataSource);
+    }
+
+    /**
+     * Шард 0 мигрирует стандартный Liquibase, остальные — этот бин. Затем каждому шарду
+     * сдвигаются последовательности id в его диапазон.
+     * При {@code spring.liquibase.enabled=false} (миграции отдельным запуском с профилем migrate) Liquibase пропускается.
+     */
+    @Bean
+    public InitializingBean shardSchemaInitializer(ShardRoutingDataSource shardRoutingDataSource,
+                                                   ShardingProperties properties,
+                                                   ResourceLoader resourceLoader,
+                                                   @Value("${spring.liquibase.change-log}") String changeLog,
+                                                   @Value("${spring.liquibase.enabled:true}") boolean liquibaseEnabled) {
+        return () -> {
+            for (int shard = 1; shard <= properties.shards().size(); shard++) {
+                DataSource dataSource = shardRoutingDataSource.shard(shard);
+                if (liquibaseEnabled) {
+                    SpringLiquibase liquibase = new SpringLiquibase();
+                    liquibase.setDataSource(dataSource);
+                    liquibase.setChangeLog(changeLog);
+                    liquibase.setResourceLoader(resourceLoader);
+                    liquibase.afterPropertiesSet();
+                }
+
+                JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+                long base = ShardRouter.idBase(shard);
+                for (String table : SHARDED_ID_TABLES) {
+                    jdbcTemplate.query("SELECT setval(pg_get_serial_sequence(?, 'id'), ?) " +
+                                    "WHERE COALESCE((SELECT max(id) FROM " + table + "), 0) < ?",
+                            rs -> null, table, base, base);
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,44 @@
+package org.yrti.severstal.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.yrti.severstal.datasource.SlowQueryListener;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Журнал медленных запросов ({@link SlowQueryListener}). Оборачивает основной {@code dataSource}
+ * при любой конфигурации источников данных (одна база, реплики, шарды), поэтому видит и запросы Hibernate,
+ * и JdbcTemplate. Отключается {@code severstal.sql.slow-query-log.enabled=false}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "severstal.sql.slow-query-log.enabled", matchIfMissing = true)
+public class SqlMonitoringConfig {
+
+    static final String DATA_SOURCE = "dataSource";
+
+    @Bean
+    public static BeanPostProcessor slowQueryLogDataSourcePostProcessor(
+            ObjectProvider<MeterRegistry> meterRegistry,
+            @Value("${severstal.sql.slow-threshold:500ms}") Duration threshold,
+            @Value("${severstal.sql.max-logged-length:2000}") int maxLoggedLength) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof DataSource dataSource) || !DATA_SOURCE.equals(beanName)) {
+                    return bean;
+                }
+                return ProxyDataSourceBuilder.create(DATA_SOURCE, dataSource)
+                        .listener(new SlowQueryListener(threshold, maxLoggedLength, meterRegistry))
+                        .build();
+            }
+        };
+    }
+}
@@ -2,14 +2,35 @@ package org.yrti.severstal.controller;
 
 import jakarta.validation.Valid;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.yrti.severstal.dto.ApproximateStatisticsResponse;
+import org.yrti.severstal.dto.HistogramMetric;
+import org.yrti.severstal.dto.InventoryResponse;
 import org.yrti.severstal.dto.RollCreateRequest;
 import org.yrti.severstal.dto.RollFilterRequest;
-import org.yrti.severstal.dto.RollStatisticsResponse;
+import org.yrti.severstal.dto.RollHistogramResponse;
+import org.yrti.severstal.dto.RollPercentilesResponse;
+import org.yrti.severstal.dto.RollTimeSeriesPoint;
+import org.yrti.severstal.dto.StockResponse;
+import org.yrti.severstal.dto.TimeSeriesGranularity;
+import org.yrti.severstal.dto.TopOrder;
 import org.yrti.severstal.model.Roll;
+import org.yrti.severstal.service.ApproximateStatisticsService;
+import org.yrti.severstal.service.DataVersionService;
+import org.yrti.severstal.service.InventoryService;
+import org.yrti.severstal.service.RollEventService;
+import org.yrti.severstal.service.RollHistogramService;
 import org.yrti.severstal.service.RollService;
+import org.yrti.severstal.service.RollSketchService;
+import org.yrti.severstal.service.RollTimeSeriesService;
+import org.yrti.severstal.service.RollTopService;
+import org.yrti.severstal.service.StockCounterService;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -18,9 +39,31 @@ import java.util.List;
 public class RollController {
 
     private final RollService rollService;
+    private final DataVersionService dataVersionService;
+    private final RollEventService rollEventService;
+    private final RollSketchService rollSketchService;
+    private final RollTimeSeriesService rollTimeSeriesService;
+    private final InventoryService inventoryService;
+    private final StockCounterService stockCounterService;
+    private final ApproximateStatisticsService approximateStatisticsService;
+    private final RollHistogramService rollHistogramService;
+    private final RollTopService rollTopService;
 
-    public RollController(RollService rollService) {
+    public RollController(RollService rollService, DataVersionService dataVersionService,
+                          RollEventService rollEventService, RollSketchService rollSketchService,
+                          RollTimeSeriesService rollTimeSeriesService, InventoryService inventoryService,
+                          StockCounterService stockCounterService, ApproximateStatisticsService approximateStatisticsService,
+                          RollHistogramService rollHistogramService, RollTopService rollTopService) {
         this.rollService = rollService;
+        this.dataVersionService = dataVersionService;
+        this.rollEventService = rollEventService;
+        this.rollSketchService = rollSketchService;
+        this.rollTimeSeriesService = rollTimeSeriesService;
+        this.inventoryService = inventoryService;
+        this.stockCounterService = stockCounterService;
+        this.approximateStatisticsService = approximateStatisticsService;
+        this.rollHistogramService = rollHistogramService;
+        this.rollTopService = rollTopService;
     }
 
     @PostMapping
@@ -33,16 +76,97 @@ public class RollController {
         return ResponseEntity.ok(rollService.deleteRoll(id));
     }
 
+    @GetMapping("/{id}")
+    public ResponseEntity<Roll> getRoll(@PathVariable Long id) {
+        return ResponseEntity.ok(rollService.getRoll(id));
+    }
+
+    @GetMapping("/batch")
+    public ResponseEntity<List<Roll>> getRollsByIds(@RequestParam List<Long> ids) {
+        return ResponseEntity.ok(rollService.getRolls(ids));
+    }
+
     @GetMapping
-    public ResponseEntity<List<Roll>> getRolls(@Valid RollFilterRequest filter) {
-        return ResponseEntity.ok(rollService.getRolls(filter));
+    public ResponseEntity<List<Roll>> getRolls(@Valid RollFilterRequest filter, WebRequest request) {
+        return dataVersionService.conditional(request, () -> rollService.getRolls(filter));
     }
 
     @GetMapping("/statistics")
-    public ResponseEntity<RollStatisticsResponse> getStatistics(
+    public ResponseEntity<?> getStatistics(
             @Valid
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
-            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end) {
-        return ResponseEntity.ok(rollService.getStatistics(start, end));
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end,
+            @RequestParam(defaultValue = "false") boolean approximate,
+            @Valid RollFilterRequest filter,
+            WebRequest request) {
+        if (approximate) {
+            // выборка каждый раз новая, кэшировать по ETag нечего
+            ApproximateStatisticsResponse response = approximateStatisticsService.getStatistics(start, end, filter);
+            return ResponseEntity.ok(response);
+        }
+        return dataVersionService.conditional(request, () -> rollService.getStatistics(start, end, filter));
+    }
+
+    /**
+     * Перцентили по дневным скетчам. Дни периода берутся целиком, и смысл периода не тот, что у {@code /statistics}
+     * («рулоны на складе в периоде»): длина и вес — у рулонов, добавленных в эти дни, срок хранения —
+     * у рулонов, удаленных в эти дни.
+     */
+    @GetMapping("/statistics/percentiles")
+    public ResponseEntity<RollPercentilesResponse> getPercentiles(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end,
+            @RequestParam(defaultValue = "0.5,0.9,0.99") List<Double> quantiles,
+            @RequestParam(defaultValue = "false") boolean histogram,
+            WebRequest request) {
+        return dataVersionService.conditional(request, () -> rollSketchService.getPercentiles(start, end, quantiles, histogram));
+    }
+
+    @GetMapping("/statistics/histogram")
+    public ResponseEntity<RollHistogramResponse> getHistogram(
+            @RequestParam(defaultValue = "weight") String metric,
+            @RequestParam(required = false) Integer buckets,
+            @RequestParam(required = false) List<BigDecimal> edges,
+            @RequestParam(required = false) BigDecimal lower,
+            @RequestParam(required = false) BigDecimal upper,
+            @RequestParam(defaultValue = "sql") String source,
+            @Valid RollFilterRequest filter,
+            WebRequest request) {
+        return dataVersionService.conditional(request, () -> rollHistogramService.getHistogram(
+                HistogramMetric.parse(metric), buckets, edges, lower, upper, source, filter));
+    }
+
+    @GetMapping("/statistics/timeseries")
+    public ResponseEntity<List<RollTimeSeriesPoint>> getTimeSeries(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end,
+            @RequestParam(defaultValue = "day") String granularity,
+            WebRequest request) {
+        return dataVersionService.conditional(request, () -> rollTimeSeriesService.getTimeSeries(start, end, TimeSeriesGranularity.parse(granularity)));
+    }
+
+    @GetMapping("/stock")
+    public ResponseEntity<StockResponse> getStock() {
+        return ResponseEntity.ok(stockCounterService.getStock());
+    }
+
+    @GetMapping("/top")
+    public ResponseEntity<List<Roll>> getTop(
+            @RequestParam(defaultValue = "weight") String by,
+            @RequestParam(defaultValue = "10") int limit,
+            WebRequest request) {
+        return dataVersionService.conditional(request, () -> rollTopService.getTop(TopOrder.parse(by), limit));
+    }
+
+    @GetMapping("/inventory")
+    public ResponseEntity<InventoryResponse> getInventory(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime at,
+            @RequestParam(defaultValue = "false") boolean ids) {
+        return ResponseEntity.ok(inventoryService.getInventory(at, ids));
+    }
+
+    @GetMapping(path = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter events(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        return rollEventService.subscribe(lastEventId);
     }
 }
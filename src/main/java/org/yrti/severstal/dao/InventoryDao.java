@@ -0,0 +1,73 @@
+package org.yrti.severstal.dao;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.yrti.severstal.model.MoscowTime;
+import org.yrti.severstal.timeline.RollLifetime;
+import org.yrti.severstal.timeline.StockTimeline;
+
+import javax.sql.DataSource;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Запросы остатков на момент времени: загрузка {@link StockTimeline} и прямые запросы к {@code rolls} (вместе с архивом).
+ */
+@Repository
+public class InventoryDao {
+
+    private static final String ON_STOCK_AT = "add_date <= ? AND (delete_date IS NULL OR delete_date > ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    // потоковое чтение при загрузке, чтобы не держать в памяти весь результат
+    private final JdbcTemplate streamingJdbcTemplate;
+
+    public InventoryDao(JdbcTemplate jdbcTemplate, DataSource dataSource) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.streamingJdbcTemplate = new JdbcTemplate(dataSource);
+        this.streamingJdbcTemplate.setFetchSize(10_000);
+    }
+
+    /**
+     * Время жизни рулонов текущего шарда по возрастанию id. Вызывать внутри транзакции, иначе драйвер не читает порциями.
+     */
+    public void forEachLifetime(Consumer<RollLifetime> consumer) {
+        streamingJdbcTemplate.query("SELECT id, length, weight, add_date, delete_date FROM " + RollTables.all() + " ORDER BY id",
+                rs -> {
+                    consumer.accept(RollLifetime.of(rs.getLong(1), rs.getBigDecimal(2), rs.getBigDecimal(3),
+                            MoscowTime.toLocal(rs.getObject(4, OffsetDateTime.class)),
+                            MoscowTime.toLocal(rs.getObject(5, OffsetDateTime.class))));
+                });
+    }
+
+    /**
+     * id событий после {@code id} и те из {@code alsoIds}, что уже есть в журнале.
+     */
+    public Set<Long> eventIdsAfter(long id, Collection<Long> alsoIds) {
+        return new HashSet<>(jdbcTemplate.queryForList("SELECT id FROM roll_events WHERE id > ? OR id = ANY(?)", Long.class,
+                id, alsoIds.toArray(Long[]::new)));
+    }
+
+    /**
+     * id рулона события журнала или {@code null}, если такого события нет.
+     */
+    public Long rollIdOfEvent(long eventId) {
+        return jdbcTemplate.queryForList("SELECT roll_id FROM roll_events WHERE id = ?", Long.class, eventId).stream().findFirst().orElse(null);
+    }
+
+    public StockTimeline.Stock stockAt(LocalDateTime at) {
+        OffsetDateTime t = MoscowTime.toOffset(at);
+        return jdbcTemplate.queryForObject("SELECT COUNT(*), COALESCE(SUM(weight), 0) FROM " + RollTables.since("?") + " WHERE " + ON_STOCK_AT,
+                (rs, rowNum) -> new StockTimeline.Stock(rs.getLong(1), rs.getBigDecimal(2)), t, t, t);
+    }
+
+    public List<Long> idsOnStockAt(LocalDateTime at) {
+        OffsetDateTime t = MoscowTime.toOffset(at);
+        return jdbcTemplate.queryForList("SELECT id FROM " + RollTables.since("?") + " WHERE " + ON_STOCK_AT + " ORDER BY id", Long.class, t, t, t);
+    }
+}
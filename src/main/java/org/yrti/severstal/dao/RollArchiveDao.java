@@ -0,0 +1,89 @@
+package org.yrti.severstal.dao;
+
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.yrti.severstal.dto.RollFilterRequest;
+import org.yrti.severstal.model.MoscowTime;
+import org.yrti.severstal.model.Roll;
+
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Архив давно удаленных рулонов {@code rolls_archive} и его отметка {@code archive_watermark}.
+ * <p>
+ * Порядок архивации: сначала отметка сдвигается на новую границу, затем рулоны, удаленные раньше нее,
+ * переносятся небольшими порциями. Так в архиве никогда нет рулонов, удаленных позже отметки,
+ * и запрос, начинающийся не раньше отметки, может архив не читать.
+ */
+@Repository
+public class RollArchiveDao {
+
+    // перенос одним оператором: строка видна любому запросу либо в rolls, либо в архиве;
+    // SKIP LOCKED — порция не ждет строки, которые сейчас меняет пишущая транзакция
+    private static final String MOVE_BATCH_SQL = """
+            WITH moved AS (
+                DELETE FROM rolls
+                WHERE id IN (SELECT id FROM rolls
+                             WHERE delete_date < :cutoff
+                             ORDER BY delete_date
+                             LIMIT :batchSize
+                             FOR UPDATE SKIP LOCKED)
+                RETURNING %1$s
+            )
+            INSERT INTO rolls_archive (%1$s)
+            SELECT %1$s FROM moved""".formatted(RollTables.COLUMNS);
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public RollArchiveDao(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public LocalDateTime watermark() {
+        return jdbcTemplate.queryForObject("SELECT archived_before FROM archive_watermark", new MapSqlParameterSource(),
+                (rs, rowNum) -> MoscowTime.toLocal(rs.getObject(1, OffsetDateTime.class)));
+    }
+
+    /**
+     * Сдвигает отметку вперед (назад никогда). Коммитить до переноса рулонов.
+     */
+    public void advanceWatermark(LocalDateTime cutoff) {
+        jdbcTemplate.update("UPDATE archive_watermark SET archived_before = GREATEST(archived_before, :cutoff)",
+                new MapSqlParameterSource("cutoff", MoscowTime.toOffset(cutoff)));
+    }
+
+    /**
+     * Переносит в архив до {@code batchSize} рулонов, удаленных раньше {@code cutoff}; возвращает число перенесенных.
+     */
+    public int moveBatch(LocalDateTime cutoff, int batchSize) {
+        return jdbcTemplate.update(MOVE_BATCH_SQL, new MapSqlParameterSource()
+                .addValue("cutoff", MoscowTime.toOffset(cutoff))
+                .addValue("batchSize", batchSize));
+    }
+
+    public Optional<Roll> findById(long id) {
+        return findByIds(List.of(id)).stream().findFirst();
+    }
+
+    public List<Roll> findByIds(Collection<Long> ids) {
+        if (ids.isEmpty()) return List.of();
+        return jdbcTemplate.query("SELECT " + RollTables.COLUMNS + " FROM rolls_archive WHERE id IN (:ids)",
+                new MapSqlParameterSource("ids", ids), RollTables.MAPPER);
+    }
+
+    /**
+     * Архивные рулоны под фильтр; если нижние границы дат фильтра не раньше отметки, архив не читается.
+     */
+    public List<Roll> findByFilter(RollFilterRequest filter) {
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        String since = RollFilterSql.archiveSince(filter, params);
+        String base = since == null ? "TRUE" : since + " < " + RollTables.WATERMARK;
+        return jdbcTemplate.query("SELECT " + RollTables.COLUMNS + " FROM rolls_archive WHERE " + RollFilterSql.where(base, filter, params),
+                params, RollTables.MAPPER);
+    }
+}
@@ -0,0 +1,36 @@
+package org.yrti.severstal.dao;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.yrti.severstal.model.RollEvent;
+
+import java.util.List;
+
+public interface RollEventRepository extends JpaRepository<RollEvent, Long> {
+
+    List<RollEvent> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    List<RollEvent> findByIdGreaterThanAndIdLessThanEqualOrderByIdAsc(Long fromExclusive, Long toInclusive, Limit limit);
+
+    @Query("select coalesce(max(e.id), 0) from RollEvent e")
+    long findMaxId();
+
+    // xid, выданный текущей транзакции: все транзакции с меньшим xid уже начались. Расходует один xid
+    @Query(value = "SELECT pg_current_xact_id()::text::bigint", nativeQuery = true)
+    long transactionHorizon();
+
+    // xmin текущего снимка: транзакции с меньшим xid завершены
+    @Query(value = "SELECT pg_snapshot_xmin(pg_current_snapshot())::text::bigint", nativeQuery = true)
+    long oldestRunningTransaction();
+
+    /**
+     * Версия данных шарда для ETag: последний закоммиченный id события и число событий в хвосте журнала под ним.
+     * Хвост меняется, когда транзакция с меньшим id коммитится позже большей; без него такая запись не сменила бы ETag.
+     * Строки не блокируются.
+     */
+    @Query(value = """
+            SELECT m.max_id || '.' || (SELECT count(*) FROM roll_events WHERE id > m.max_id - 1024)
+            FROM (SELECT coalesce(max(id), 0) AS max_id FROM roll_events) m""", nativeQuery = true)
+    String dataVersion();
+}
@@ -0,0 +1,60 @@
+package org.yrti.severstal.dao;
+
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.yrti.severstal.dto.RollFilterRequest;
+import org.yrti.severstal.model.MoscowTime;
+
+import java.time.LocalDateTime;
+
+/**
+ * Условие {@code WHERE} по {@link RollFilterRequest} для запросов к {@code rolls} через JdbcTemplate —
+ * те же условия, что и JPQL-шаблоны {@link RollQueryRepositoryImpl} (список {@code CONDITIONS}).
+ */
+final class RollFilterSql {
+
+    private RollFilterSql() {
+    }
+
+    /**
+     * Добавляет к {@code base} условия заданных фильтров, значения кладет в {@code params}.
+     */
+    static String where(String base, RollFilterRequest filter, MapSqlParameterSource params) {
+        StringBuilder sql = new StringBuilder(base);
+        if (filter == null) return sql.toString();
+        condition(sql, params, "id >= :idMin", "idMin", filter.getIdMin());
+        condition(sql, params, "id <= :idMax", "idMax", filter.getIdMax());
+        condition(sql, params, "length >= :lengthMin", "lengthMin", filter.getLengthMin());
+        condition(sql, params, "length <= :lengthMax", "lengthMax", filter.getLengthMax());
+        condition(sql, params, "weight >= :weightMin", "weightMin", filter.getWeightMin());
+        condition(sql, params, "weight <= :weightMax", "weightMax", filter.getWeightMax());
+        condition(sql, params, "add_date >= :addDateMin", "addDateMin", MoscowTime.toOffset(filter.getAddDateMin()));
+        condition(sql, params, "add_date <= :addDateMax", "addDateMax", MoscowTime.toOffset(filter.getAddDateMax()));
+        condition(sql, params, "delete_date >= :deleteDateMin", "deleteDateMin", MoscowTime.toOffset(filter.getDeleteDateMin()));
+        condition(sql, params, "delete_date <= :deleteDateMax", "deleteDateMax", MoscowTime.toOffset(filter.getDeleteDateMax()));
+        condition(sql, params, "warehouse = :warehouse", "warehouse", filter.getWarehouse());
+        return sql.toString();
+    }
+
+    /**
+     * Выражение для {@link RollTables#since}: самая поздняя из нижних границ дат фильтра
+     * (рулон, добавленный или удаленный не раньше отметки архива, в архиве быть не может);
+     * {@code null}, если фильтр по датам снизу не ограничен.
+     */
+    static String archiveSince(RollFilterRequest filter, MapSqlParameterSource params) {
+        if (filter == null) return null;
+        LocalDateTime since = filter.getAddDateMin();
+        if (filter.getDeleteDateMin() != null && (since == null || filter.getDeleteDateMin().isAfter(since))) {
+            since = filter.getDeleteDateMin();
+        }
+        if (since == null) return null;
+        params.addValue("archiveSince", MoscowTime.toOffset(since));
+        return ":archiveSince";
+    }
+
+    private static void condition(StringBuilder sql, MapSqlParameterSource params, String predicate, String name, Object value) {
+        if (value != null) {
+            sql.append(" AND ").append(predicate);
+            params.addValue(name, value);
+        }
+    }
+}
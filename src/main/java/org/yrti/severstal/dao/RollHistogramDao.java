@@ -0,0 +1,114 @@
+package org.yrti.severstal.dao;
+
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.yrti.severstal.dto.HistogramMetric;
+import org.yrti.severstal.dto.RollFilterRequest;
+import org.yrti.severstal.dto.RollHistogramTotals;
+
+import java.math.BigDecimal;
+import java.sql.Types;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Гистограммы длины и веса одним агрегирующим запросом: номер корзины считает {@code width_bucket},
+ * наружу уходит по строке на непустую корзину. Архив читается, если фильтр по датам его не исключает.
+ */
+@Repository
+public class RollHistogramDao {
+
+    private static final String EQUAL_WIDTH_SQL = """
+            WITH filtered AS (
+                SELECT %1$s AS v FROM %3$s WHERE %2$s
+            ),
+            bounds AS (
+                SELECT COALESCE(CAST(:lower AS numeric), MIN(v)) AS lo, COALESCE(CAST(:upper AS numeric), MAX(v)) AS hi FROM filtered
+            )
+            SELECT b.lo, b.hi, h.bucket, h.cnt, h.total
+            FROM bounds b
+            LEFT JOIN (
+                SELECT CASE WHEN f.v < b.lo THEN 0
+                            WHEN f.v > b.hi THEN :buckets + 1
+                            WHEN f.v = b.hi THEN :buckets
+                            ELSE width_bucket(f.v, b.lo, b.hi, :buckets) END AS bucket,
+                       COUNT(*) AS cnt, SUM(f.v) AS total
+                FROM filtered f, bounds b
+                GROUP BY 1
+            ) h ON true""";
+
+    private static final String EDGES_SQL = """
+            SELECT CASE WHEN v = :last THEN :buckets ELSE width_bucket(v, CAST(ARRAY[:edges] AS numeric[])) END AS bucket,
+                   COUNT(*) AS cnt, SUM(v) AS total
+            FROM (SELECT %1$s AS v FROM %3$s WHERE %2$s) f
+            GROUP BY 1""";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public RollHistogramDao(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Минимум и максимум показателя по фильтру ({@code null}, если строк нет).
+     */
+    public BigDecimal[] range(HistogramMetric metric, RollFilterRequest filter) {
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        String sql = "SELECT MIN(%1$s), MAX(%1$s) FROM %3$s WHERE %2$s".formatted(metric.column(),
+                RollFilterSql.where("TRUE", filter, params), RollTables.since(RollFilterSql.archiveSince(filter, params)));
+        return jdbcTemplate.queryForObject(sql, params, (rs, rowNum) -> new BigDecimal[]{rs.getBigDecimal(1), rs.getBigDecimal(2)});
+    }
+
+    /**
+     * {@code buckets} равных корзин между {@code lower} и {@code upper}; незаданная граница берется
+     * по минимуму или максимуму отфильтрованных значений в том же запросе.
+     */
+    public RollHistogramTotals equalWidth(HistogramMetric metric, RollFilterRequest filter, BigDecimal lower, BigDecimal upper, int buckets) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("lower", lower, Types.NUMERIC)
+                .addValue("upper", upper, Types.NUMERIC)
+                .addValue("buckets", buckets);
+        String sql = EQUAL_WIDTH_SQL.formatted(metric.column(),
+                RollFilterSql.where("TRUE", filter, params), RollTables.since(RollFilterSql.archiveSince(filter, params)));
+        long[] counts = new long[buckets + 2];
+        BigDecimal[] sums = zeros(buckets + 2);
+        BigDecimal[] bounds = new BigDecimal[2];
+        jdbcTemplate.query(sql, params, rs -> {
+            bounds[0] = rs.getBigDecimal("lo");
+            bounds[1] = rs.getBigDecimal("hi");
+            int bucket = rs.getInt("bucket");
+            if (rs.wasNull()) return;
+            counts[bucket] = rs.getLong("cnt");
+            sums[bucket] = rs.getBigDecimal("total");
+        });
+        return new RollHistogramTotals(bounds[0], bounds[1], counts, sums);
+    }
+
+    /**
+     * Корзины между соседними границами из {@code edges} (по возрастанию).
+     */
+    public RollHistogramTotals withEdges(HistogramMetric metric, RollFilterRequest filter, List<BigDecimal> edges) {
+        int buckets = edges.size() - 1;
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("edges", edges)
+                .addValue("last", edges.getLast())
+                .addValue("buckets", buckets);
+        String sql = EDGES_SQL.formatted(metric.column(),
+                RollFilterSql.where("TRUE", filter, params), RollTables.since(RollFilterSql.archiveSince(filter, params)));
+        long[] counts = new long[buckets + 2];
+        BigDecimal[] sums = zeros(buckets + 2);
+        jdbcTemplate.query(sql, params, rs -> {
+            int bucket = rs.getInt("bucket");
+            counts[bucket] = rs.getLong("cnt");
+            sums[bucket] = rs.getBigDecimal("total");
+        });
+        return new RollHistogramTotals(null, null, counts, sums);
+    }
+
+    private static BigDecimal[] zeros(int size) {
+        BigDecimal[] values = new BigDecimal[size];
+        Arrays.fill(values, BigDecimal.ZERO);
+        return values;
+    }
+}
@@ -0,0 +1,20 @@
+package org.yrti.severstal.dao;
+
+import org.yrti.severstal.dto.RollFilterRequest;
+import org.yrti.severstal.model.Roll;
+
+import java.util.List;
+
+/**
+ * Выборка рулонов по фильтру через заранее собранные JPQL-шаблоны и по списку id ({@link RollQueryRepositoryImpl}).
+ */
+public interface RollQueryRepository {
+
+    List<Roll> findByFilter(RollFilterRequest filter);
+
+    /**
+     * Рулоны по id в порядке {@code ids}, ненайденные пропускаются. Сначала проверяется кэш второго уровня,
+     * недостающие загружаются одним запросом {@code IN}.
+     */
+    List<Roll> findMultiple(List<Long> ids);
+}
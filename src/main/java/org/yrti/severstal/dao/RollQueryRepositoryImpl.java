@@ -0,0 +1,87 @@
+package org.yrti.severstal.dao;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import org.hibernate.Session;
+import org.yrti.severstal.dto.RollFilterRequest;
+import org.yrti.severstal.model.MoscowTime;
+import org.yrti.severstal.model.Roll;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+/**
+ * Фильтр рулонов как JPQL-шаблон на каждый набор заданных полей.
+ * <p>
+ * Набор заданных полей кодируется битовой маской, для каждой маски строка запроса собирается один раз.
+ * Одинаковая строка попадает в кэш планов Hibernate, поэтому запрос не разбирается заново, как было
+ * с Criteria API, где дерево запроса строилось и транслировалось на каждый вызов. Значения — только параметры.
+ */
+public class RollQueryRepositoryImpl implements RollQueryRepository {
+
+    private static final List<Condition> CONDITIONS = List.of(
+            new Condition("idMin", "r.id >= :idMin", RollFilterRequest::getIdMin),
+            new Condition("idMax", "r.id <= :idMax", RollFilterRequest::getIdMax),
+            new Condition("lengthMin", "r.length >= :lengthMin", RollFilterRequest::getLengthMin),
+            new Condition("lengthMax", "r.length <= :lengthMax", RollFilterRequest::getLengthMax),
+            new Condition("weightMin", "r.weight >= :weightMin", RollFilterRequest::getWeightMin),
+            new Condition("weightMax", "r.weight <= :weightMax", RollFilterRequest::getWeightMax),
+            new Condition("addDateMin", "r.addDate >= :addDateMin", filter -> MoscowTime.toInstant(filter.getAddDateMin())),
+            new Condition("addDateMax", "r.addDate <= :addDateMax", filter -> MoscowTime.toInstant(filter.getAddDateMax())),
+            new Condition("deleteDateMin", "r.deleteDate >= :deleteDateMin", filter -> MoscowTime.toInstant(filter.getDeleteDateMin())),
+            new Condition("deleteDateMax", "r.deleteDate <= :deleteDateMax", filter -> MoscowTime.toInstant(filter.getDeleteDateMax())),
+            new Condition("warehouse", "r.warehouse = :warehouse", RollFilterRequest::getWarehouse));
+
+    private static final ConcurrentMap<Integer, String> TEMPLATES = new ConcurrentHashMap<>();
+
+    private final EntityManager entityManager;
+
+    public RollQueryRepositoryImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public List<Roll> findByFilter(RollFilterRequest filter) {
+        int mask = mask(filter);
+        TypedQuery<Roll> query = entityManager.createQuery(TEMPLATES.computeIfAbsent(mask, RollQueryRepositoryImpl::template), Roll.class);
+        for (int i = 0; i < CONDITIONS.size(); i++) {
+            if ((mask & (1 << i)) != 0) {
+                Condition condition = CONDITIONS.get(i);
+                query.setParameter(condition.name(), condition.value().apply(filter));
+            }
+        }
+        return query.getResultList();
+    }
+
+    @Override
+    public List<Roll> findMultiple(List<Long> ids) {
+        return entityManager.unwrap(Session.class).findMultiple(Roll.class, ids).stream()
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    static int mask(RollFilterRequest filter) {
+        int mask = 0;
+        if (filter == null) return mask;
+        for (int i = 0; i < CONDITIONS.size(); i++) {
+            if (CONDITIONS.get(i).value().apply(filter) != null) mask |= 1 << i;
+        }
+        return mask;
+    }
+
+    static String template(int mask) {
+        if (mask == 0) return "SELECT r FROM Roll r";
+        StringJoiner where = new StringJoiner(" AND ", "SELECT r FROM Roll r WHERE ", "");
+        for (int i = 0; i < CONDITIONS.size(); i++) {
+            if ((mask & (1 << i)) != 0) where.add(CONDITIONS.get(i).predicate());
+        }
+        return where.toString();
+    }
+
+    private record Condition(String name, String predicate, Function<RollFilterRequest, Object> value) {
+    }
+}
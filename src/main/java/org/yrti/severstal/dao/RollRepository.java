@@ -1,9 +1,13 @@
 package org.yrti.severstal.dao;
 
 import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
 import org.yrti.severstal.model.Roll;
 
+public interface RollRepository extends JpaRepository<Roll, Long>, RollQueryRepository {
 
-public interface RollRepository extends JpaRepository<Roll, Long>, JpaSpecificationExecutor<Roll> {
+    // оценка числа строк (вместе с архивом) из статистики планировщика, без чтения таблиц; 0, если ANALYZE еще не было
+    @Query(value = "SELECT CAST(COALESCE(SUM(GREATEST(reltuples, 0)), 0) AS BIGINT) FROM pg_class " +
+            "WHERE oid IN (CAST('rolls' AS regclass), CAST('rolls_archive' AS regclass))", nativeQuery = true)
+    long estimatedRowCount();
 }
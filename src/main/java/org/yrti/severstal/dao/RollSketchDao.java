@@ -0,0 +1,50 @@
+package org.yrti.severstal.dao;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.yrti.severstal.sketch.QuantileSketch;
+import org.yrti.severstal.sketch.SketchMetric;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Дневные скетчи квантилей в таблице {@code roll_sketch_bins}: по строке на (день, метрика, корзина).
+ */
+@Repository
+public class RollSketchDao {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public RollSketchDao(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public void increment(LocalDate day, SketchMetric metric, int binIndex) {
+        jdbcTemplate.update("""
+                INSERT INTO roll_sketch_bins (day, metric, bin_index, count) VALUES (?, ?, ?, 1)
+                ON CONFLICT (day, metric, bin_index) DO UPDATE SET count = roll_sketch_bins.count + 1""",
+                Date.valueOf(day), metric.name(), binIndex);
+    }
+
+    /**
+     * Скетчи за дни {@code [from, to]}, объединенные в базе суммированием счетчиков корзин.
+     */
+    public Map<SketchMetric, QuantileSketch> merged(LocalDate from, LocalDate to) {
+        Map<SketchMetric, QuantileSketch> sketches = new EnumMap<>(SketchMetric.class);
+        for (SketchMetric metric : SketchMetric.values()) {
+            sketches.put(metric, new QuantileSketch());
+        }
+        jdbcTemplate.query("""
+                        SELECT metric, bin_index, SUM(count) FROM roll_sketch_bins
+                        WHERE day BETWEEN ? AND ?
+                        GROUP BY metric, bin_index""",
+                rs -> {
+                    sketches.get(SketchMetric.valueOf(rs.getString(1))).add(rs.getInt(2), rs.getLong(3));
+                },
+                Date.valueOf(from), Date.valueOf(to));
+        return sketches;
+    }
+}
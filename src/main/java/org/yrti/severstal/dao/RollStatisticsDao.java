@@ -0,0 +1,128 @@
+package org.yrti.severstal.dao;
+
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.yrti.severstal.dto.RollFilterRequest;
+import org.yrti.severstal.dto.RollStatisticsAggregate;
+import org.yrti.severstal.model.MoscowTime;
+import org.yrti.severstal.model.Roll;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Статистика за период одним агрегирующим запросом: фильтры запроса, окно «был на складе в периоде»,
+ * итоги и дневные остатки (через нарастающую сумму событий по дням) считаются в базе,
+ * наружу уходит одна строка на день периода. Архив читается, только если период начинается раньше его отметки.
+ * <p>
+ * Начала московских дней периода вычисляются один раз на запрос и передаются массивом микросекунд эпохи;
+ * день события — {@code width_bucket} по этому массиву, то есть двоичный поиск по {@code timestamptz}
+ * без перевода каждого момента в календарную дату.
+ */
+@Repository
+public class RollStatisticsDao {
+
+    private static final String ON_STOCK_WINDOW = "add_date <= :end AND (delete_date IS NULL OR delete_date >= :start)";
+
+    private static final String AGGREGATE_SQL = """
+            WITH filtered AS (
+                SELECT add_date, delete_date, length, weight FROM %s
+                WHERE %s
+            ),
+            agg AS (
+                SELECT COUNT(*) FILTER (WHERE add_date >= :start) AS added,
+                       COUNT(*) FILTER (WHERE delete_date <= :end) AS deleted,
+                       COUNT(*) AS on_stock,
+                       COALESCE(SUM(length), 0) AS sum_length,
+                       COALESCE(SUM(weight), 0) AS sum_weight,
+                       MIN(length) AS min_length, MAX(length) AS max_length,
+                       MIN(weight) AS min_weight, MAX(weight) AS max_weight,
+                       CAST(MIN(FLOOR(EXTRACT(EPOCH FROM delete_date - add_date))) FILTER (WHERE delete_date <= :end) AS BIGINT) AS min_life,
+                       CAST(MAX(FLOOR(EXTRACT(EPOCH FROM delete_date - add_date))) FILTER (WHERE delete_date <= :end) AS BIGINT) AS max_life
+                FROM filtered
+            ),
+            day_starts AS (
+                SELECT ARRAY(SELECT to_timestamp(m / 1000000.0) FROM unnest(CAST(:dayStarts AS bigint[])) m) AS starts
+            ),
+            deltas AS (
+                SELECT GREATEST(width_bucket(f.add_date, d.starts), 1) AS day, 1 AS cnt, f.weight FROM filtered f, day_starts d
+                UNION ALL
+                SELECT width_bucket(f.delete_date, d.starts) + 1, -1, -f.weight FROM filtered f, day_starts d
+                WHERE f.delete_date < d.starts[:days]
+            ),
+            per_day AS (
+                SELECT day, SUM(cnt) AS cnt, SUM(weight) AS weight FROM deltas GROUP BY day
+            ),
+            series AS (
+                SELECT i AS day,
+                       SUM(COALESCE(p.cnt, 0)) OVER w AS cnt,
+                       SUM(COALESCE(p.weight, 0)) OVER w AS weight
+                FROM generate_series(1, :days) i
+                LEFT JOIN per_day p ON p.day = i
+                WINDOW w AS (ORDER BY i ROWS UNBOUNDED PRECEDING)
+            )
+            SELECT a.added, a.deleted, a.on_stock, a.sum_length, a.sum_weight,
+                   a.min_length, a.max_length, a.min_weight, a.max_weight, a.min_life, a.max_life,
+                   s.cnt, s.weight
+            FROM agg a CROSS JOIN series s
+            ORDER BY s.day""";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public RollStatisticsDao(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public RollStatisticsAggregate aggregate(LocalDateTime start, LocalDateTime end, RollFilterRequest filter) {
+        LocalDate startDay = start.toLocalDate();
+        int days = (int) ChronoUnit.DAYS.between(startDay, end.toLocalDate()) + 1;
+        MapSqlParameterSource params = windowParams(start, end)
+                .addValue("dayStarts", MoscowTime.dayStarts(startDay, days))
+                .addValue("days", days);
+
+        long[] dailyCount = new long[days];
+        BigDecimal[] dailyWeight = new BigDecimal[days];
+        Arrays.fill(dailyWeight, BigDecimal.ZERO);
+        RollStatisticsAggregate[] totals = new RollStatisticsAggregate[1];
+        int[] day = {0};
+        jdbcTemplate.query(AGGREGATE_SQL.formatted(RollTables.since(":start"), RollFilterSql.where(ON_STOCK_WINDOW, filter, params)), params, rs -> {
+            if (totals[0] == null) {
+                totals[0] = new RollStatisticsAggregate(
+                        rs.getLong("added"), rs.getLong("deleted"), rs.getLong("on_stock"),
+                        rs.getBigDecimal("sum_length"), rs.getBigDecimal("sum_weight"),
+                        rs.getBigDecimal("min_length"), rs.getBigDecimal("max_length"),
+                        rs.getBigDecimal("min_weight"), rs.getBigDecimal("max_weight"),
+                        rs.getObject("min_life", Long.class), rs.getObject("max_life", Long.class),
+                        startDay, dailyCount, dailyWeight);
+            }
+            dailyCount[day[0]] = rs.getLong("cnt");
+            dailyWeight[day[0]] = rs.getBigDecimal("weight");
+            day[0]++;
+        });
+        return totals[0];
+    }
+
+    /**
+     * Случайная выборка страниц таблицы ({@code TABLESAMPLE SYSTEM}) с теми же фильтрами и окном периода.
+     */
+    public List<Roll> sample(double percent, LocalDateTime start, LocalDateTime end, RollFilterRequest filter) {
+        MapSqlParameterSource params = windowParams(start, end).addValue("percent", percent);
+        // TABLESAMPLE применим только к таблице, поэтому архив — отдельной веткой с той же долей
+        String where = RollFilterSql.where(ON_STOCK_WINDOW, filter, params);
+        String sql = "SELECT " + RollTables.COLUMNS + " FROM rolls TABLESAMPLE SYSTEM (:percent) WHERE " + where
+                + " UNION ALL SELECT " + RollTables.COLUMNS + " FROM rolls_archive TABLESAMPLE SYSTEM (:percent) WHERE " + where
+                + " AND :start < " + RollTables.WATERMARK;
+        return jdbcTemplate.query(sql, params, RollTables.MAPPER);
+    }
+
+    private static MapSqlParameterSource windowParams(LocalDateTime start, LocalDateTime end) {
+        return new MapSqlParameterSource()
+                .addValue("start", MoscowTime.toOffset(start))
+                .addValue("end", MoscowTime.toOffset(end));
+    }
+}
@@ -0,0 +1,51 @@
+package org.yrti.severstal.dao;
+
+import org.springframework.jdbc.core.RowMapper;
+import org.yrti.severstal.model.MoscowTime;
+import org.yrti.severstal.model.Roll;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Источник строк рулонов для SQL-запросов: горячая таблица {@code rolls} и архив {@code rolls_archive}.
+ * <p>
+ * В архиве только рулоны, удаленные раньше {@code archive_watermark.archived_before}, поэтому архив нужен,
+ * только если запрос затрагивает время до этой отметки. Проверка отметки — часть самого запроса
+ * (однократный фильтр ветки {@code UNION ALL}): если архив не нужен, PostgreSQL его не читает,
+ * а отметка и строки видны запросу в одном снимке.
+ */
+final class RollTables {
+
+    static final String COLUMNS = "id, length, weight, add_date, delete_date, warehouse";
+
+    static final RowMapper<Roll> MAPPER = (rs, rowNum) -> {
+        Roll roll = new Roll(rs.getBigDecimal("length"), rs.getBigDecimal("weight"),
+                MoscowTime.toLocal(rs.getObject("add_date", OffsetDateTime.class)));
+        roll.setId(rs.getLong("id"));
+        roll.setDeleteDate(MoscowTime.toLocal(rs.getObject("delete_date", OffsetDateTime.class)));
+        roll.setWarehouse(rs.getString("warehouse"));
+        return roll;
+    };
+
+    static final String WATERMARK = "(SELECT archived_before FROM archive_watermark)";
+
+    private RollTables() {
+    }
+
+    /**
+     * {@code rolls} вместе с архивом, без условий.
+     */
+    static String all() {
+        return "(SELECT " + COLUMNS + " FROM rolls UNION ALL SELECT " + COLUMNS + " FROM rolls_archive) AS rolls";
+    }
+
+    /**
+     * {@code rolls} и архив, если {@code since} (выражение SQL: параметр или вычисление от него) раньше отметки архива.
+     * Для {@code null} архив читается всегда.
+     */
+    static String since(String since) {
+        if (since == null) return all();
+        return "(SELECT " + COLUMNS + " FROM rolls UNION ALL SELECT " + COLUMNS + " FROM rolls_archive WHERE "
+                + since + " < " + WATERMARK + ") AS rolls";
+    }
+}
@@ -0,0 +1,93 @@
+package org.yrti.severstal.dao;
+
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.yrti.severstal.dto.RollTimeSeriesPoint;
+import org.yrti.severstal.dto.TimeSeriesGranularity;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Временной ряд остатков за один проход по {@code rolls}.
+ * <p>
+ * Добавление и удаление рулона — события +1/-1, каждое относится к корзине {@code date_trunc} своего момента,
+ * события до начала диапазона — к служебной корзине перед первой. Остатки считаются нарастающими суммами
+ * по корзинам: на складе в корзине были рулоны, добавленные до ее конца, минус удаленные до ее начала.
+ * Число корзин на стоимость запроса почти не влияет.
+ * <p>
+ * Корзины — московское время без зоны; моменты рулонов ({@code timestamptz}) переводятся в него только для
+ * {@code date_trunc}, а границы сравниваются как {@code timestamptz}, так что условия остаются индексными.
+ */
+@Repository
+public class RollTimeSeriesDao {
+
+    private static final String SQL = """
+            WITH buckets AS (
+                SELECT bucket_start
+                FROM generate_series(date_trunc(:unit, CAST(:start AS timestamp)), CAST(:end AS timestamp),
+                                     CAST(:step AS interval)) AS bucket_start
+            ),
+            bounds AS (
+                SELECT MIN(bucket_start) AS first_start, MAX(bucket_start) + CAST(:step AS interval) AS last_end FROM buckets
+            ),
+            events AS (
+                SELECT GREATEST(date_trunc(:unit, rolls.add_date AT TIME ZONE 'Europe/Moscow'), b.first_start - CAST(:step AS interval)) AS bucket,
+                       1 AS added, 0 AS deleted, rolls.weight AS added_weight, 0 AS deleted_weight
+                FROM %1$s, bounds b
+                WHERE rolls.add_date < b.last_end AT TIME ZONE 'Europe/Moscow'
+                UNION ALL
+                SELECT GREATEST(date_trunc(:unit, rolls.delete_date AT TIME ZONE 'Europe/Moscow'), b.first_start - CAST(:step AS interval)),
+                       0, 1, 0, rolls.weight
+                FROM %1$s, bounds b
+                WHERE rolls.delete_date < b.last_end AT TIME ZONE 'Europe/Moscow'
+            ),
+            per_bucket AS (
+                SELECT bucket, SUM(added) AS added, SUM(deleted) AS deleted,
+                       SUM(added_weight) AS added_weight, SUM(deleted_weight) AS deleted_weight
+                FROM events
+                GROUP BY bucket
+            ),
+            series AS (
+                SELECT s.bucket_start,
+                       COALESCE(p.added, 0) AS added,
+                       COALESCE(p.deleted, 0) AS deleted,
+                       SUM(COALESCE(p.added, 0)) OVER upto - COALESCE(SUM(COALESCE(p.deleted, 0)) OVER before, 0) AS stock_count,
+                       SUM(COALESCE(p.added_weight, 0)) OVER upto - COALESCE(SUM(COALESCE(p.deleted_weight, 0)) OVER before, 0) AS stock_weight
+                FROM (SELECT bucket_start FROM buckets
+                      UNION ALL
+                      SELECT first_start - CAST(:step AS interval) FROM bounds) s
+                LEFT JOIN per_bucket p ON p.bucket = s.bucket_start
+                WINDOW upto AS (ORDER BY s.bucket_start ROWS UNBOUNDED PRECEDING),
+                       before AS (ORDER BY s.bucket_start ROWS BETWEEN UNBOUNDED PRECEDING AND 1 PRECEDING)
+            )
+            SELECT s.bucket_start, s.stock_count, s.stock_weight, s.added, s.deleted
+            FROM series s, bounds b
+            WHERE s.bucket_start >= b.first_start
+            ORDER BY s.bucket_start""";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public RollTimeSeriesDao(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public List<RollTimeSeriesPoint> timeSeries(LocalDateTime start, LocalDateTime end, TimeSeriesGranularity granularity) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("unit", granularity.sqlUnit())
+                .addValue("step", granularity.sqlInterval())
+                .addValue("start", Timestamp.valueOf(start))
+                .addValue("end", Timestamp.valueOf(end));
+        // рулоны, удаленные до первой корзины, дают +1 и -1 в служебной корзине, поэтому архив нужен, только если
+        // первая корзина начинается раньше его отметки
+        String sql = SQL.formatted(RollTables.since("date_trunc(:unit, CAST(:start AS timestamp)) AT TIME ZONE 'Europe/Moscow'"));
+        return jdbcTemplate.query(sql, params, (rs, rowNum) -> new RollTimeSeriesPoint(
+                rs.getTimestamp(1).toLocalDateTime(),
+                rs.getLong(2),
+                rs.getBigDecimal(3),
+                rs.getLong(4),
+                rs.getLong(5)));
+    }
+}
@@ -0,0 +1,28 @@
+package org.yrti.severstal.dao;
+
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.yrti.severstal.dto.TopOrder;
+import org.yrti.severstal.model.Roll;
+
+import java.util.List;
+
+/**
+ * Первые K рулонов на складе. Рулоны на складе есть только в горячей таблице, а порядок совпадает
+ * с частичным индексом {@code idx_rolls_on_stock_*}: PostgreSQL читает K записей индекса и останавливается.
+ */
+@Repository
+public class RollTopDao {
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public RollTopDao(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public List<Roll> findTop(TopOrder order, int limit) {
+        return jdbcTemplate.query("SELECT " + RollTables.COLUMNS + " FROM rolls WHERE delete_date IS NULL ORDER BY " + order.orderBy() + " LIMIT :limit",
+                new MapSqlParameterSource("limit", limit), RollTables.MAPPER);
+    }
+}
@@ -0,0 +1,63 @@
+package org.yrti.severstal.dao;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.yrti.severstal.dto.StockResponse;
+
+import java.math.BigDecimal;
+
+/**
+ * Счетчики текущих остатков в {@code stock_counters}: {@link #STRIPES} строк, итог — их сумма.
+ * Пишущая транзакция меняет одну случайную строку и держит ее блокировку до коммита: с одной строкой
+ * все создания и удаления шарда ждали бы друг друга, а так параллельные записи почти не пересекаются.
+ */
+@Repository
+public class StockCounterDao {
+
+    public static final int STRIPES = 16;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public StockCounterDao(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public void add(int stripe, long count, BigDecimal weight, BigDecimal length) {
+        jdbcTemplate.update("""
+                UPDATE stock_counters
+                SET roll_count = roll_count + ?, total_weight = total_weight + ?, total_length = total_length + ?
+                WHERE stripe = ?""", count, weight, length, stripe);
+    }
+
+    public StockResponse totals() {
+        return jdbcTemplate.queryForObject("""
+                        SELECT COALESCE(SUM(roll_count), 0), COALESCE(SUM(total_weight), 0), COALESCE(SUM(total_length), 0)
+                        FROM stock_counters""",
+                (rs, rowNum) -> new StockResponse(rs.getLong(1), rs.getBigDecimal(2), rs.getBigDecimal(3)));
+    }
+
+    /**
+     * Блокирует счетчики до конца транзакции для пересчета. Пишущие транзакции ждут на обновлении счетчика,
+     * а их еще не закоммиченные рулоны в пересчет не попадают — свою дельту они применят после снятия блокировки.
+     * Чтение счетчиков блокировка не останавливает.
+     */
+    public void lockForRepair() {
+        jdbcTemplate.execute("LOCK TABLE stock_counters IN EXCLUSIVE MODE");
+    }
+
+    public void reset(StockResponse actual) {
+        jdbcTemplate.update("""
+                UPDATE stock_counters
+                SET roll_count = CASE WHEN stripe = 0 THEN ? ELSE 0 END,
+                    total_weight = CASE WHEN stripe = 0 THEN ? ELSE 0 END,
+                    total_length = CASE WHEN stripe = 0 THEN ? ELSE 0 END""",
+                actual.count(), actual.totalWeight(), actual.totalLength());
+    }
+
+    public StockResponse actualTotals() {
+        return jdbcTemplate.queryForObject("""
+                        SELECT COUNT(*), COALESCE(SUM(weight), 0), COALESCE(SUM(length), 0)
+                        FROM rolls WHERE delete_date IS NULL""",
+                (rs, rowNum) -> new StockResponse(rs.getLong(1), rs.getBigDecimal(2), rs.getBigDecimal(3)));
+    }
+}
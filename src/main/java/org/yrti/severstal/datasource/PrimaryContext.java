@@ -0,0 +1,30 @@
+package org.yrti.severstal.datasource;
+
+import java.util.function.Supplier;
+
+/**
+ * Признак потока: readOnly-транзакции идут на основную базу, а не на реплику.
+ * Нужен внутренним читателям журнала событий: их курсоры и снимки сверяются с порядком коммитов основной базы,
+ * а реплики отстают каждая по-своему.
+ */
+public final class PrimaryContext {
+
+    private static final ThreadLocal<Boolean> CURRENT = new ThreadLocal<>();
+
+    private PrimaryContext() {
+    }
+
+    public static boolean isPinned() {
+        return CURRENT.get() != null;
+    }
+
+    public static <T> T call(Supplier<T> action) {
+        if (isPinned()) return action.get();
+        CURRENT.set(Boolean.TRUE);
+        try {
+            return action.get();
+        } finally {
+            CURRENT.remove();
+        }
+    }
+}
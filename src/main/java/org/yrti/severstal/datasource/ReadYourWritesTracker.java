@@ -0,0 +1,66 @@
+package org.yrti.severstal.datasource;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.yrti.severstal.event.RollChangedEvent;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Read-your-writes: клиент, только что изменивший рулоны, некоторое время читает с основной базы,
+ * чтобы не увидеть отстающую реплику. Клиент определяется заголовком {@code X-Client-Id}, иначе по адресу.
+ * Окно действует в пределах узла.
+ */
+public class ReadYourWritesTracker extends OncePerRequestFilter {
+
+    public static final String CLIENT_HEADER = "X-Client-Id";
+
+    private static final ThreadLocal<String> CURRENT_CLIENT = new ThreadLocal<>();
+
+    private final Map<String, Long> lastWriteNanos = new ConcurrentHashMap<>();
+    private final long windowNanos;
+
+    public ReadYourWritesTracker(Duration window) {
+        this.windowNanos = window.toNanos();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String client = request.getHeader(CLIENT_HEADER);
+        CURRENT_CLIENT.set(client != null ? client : request.getRemoteAddr());
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            CURRENT_CLIENT.remove();
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onRollChanged(RollChangedEvent event) {
+        String client = CURRENT_CLIENT.get();
+        if (client != null) {
+            lastWriteNanos.put(client, System.nanoTime());
+        }
+    }
+
+    boolean recentlyWrote() {
+        String client = CURRENT_CLIENT.get();
+        if (client == null) return false;
+        Long writtenAt = lastWriteNanos.get(client);
+        return writtenAt != null && System.nanoTime() - writtenAt < windowNanos;
+    }
+
+    void expire() {
+        long now = System.nanoTime();
+        lastWriteNanos.values().removeIf(writtenAt -> now - writtenAt >= windowNanos);
+    }
+}
@@ -0,0 +1,23 @@
+package org.yrti.severstal.datasource;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Реплики для чтения. Пока список пуст, все запросы идут в основной источник {@code spring.datasource}.
+ *
+ * @param replicas            реплики, на которые уходят readOnly-транзакции
+ * @param readYourWritesWindow сколько после своей записи клиент читает с основной базы
+ * @param healthCheckInterval период проверки доступности реплик
+ */
+@ConfigurationProperties("severstal.datasource")
+public record ReplicaProperties(@DefaultValue List<Replica> replicas,
+                                @DefaultValue("5s") Duration readYourWritesWindow,
+                                @DefaultValue("10s") Duration healthCheckInterval) {
+
+    public record Replica(String url, String username, String password) {
+    }
+}
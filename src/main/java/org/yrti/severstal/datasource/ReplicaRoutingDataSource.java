@@ -0,0 +1,95 @@
+package org.yrti.severstal.datasource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Отправляет readOnly-транзакции на реплики по кругу, все остальное — на основную базу.
+ * Внутренние читатели журнала событий закрепляются за основной базой через {@link PrimaryContext}.
+ * <p>
+ * Решение принимается при получении соединения, поэтому источник нужно оборачивать в
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}: тогда соединение берется
+ * при первом запросе, когда признак readOnly транзакции уже выставлен.
+ */
+public class ReplicaRoutingDataSource extends AbstractDataSource implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+    private final DataSource primary;
+    private final List<DataSource> replicas;
+    private final ReadYourWritesTracker readYourWrites;
+    private final AtomicInteger next = new AtomicInteger();
+
+    // реплики, прошедшие последнюю проверку
+    private volatile List<DataSource> healthyReplicas;
+
+    public ReplicaRoutingDataSource(DataSource primary, List<DataSource> replicas, ReadYourWritesTracker readYourWrites) {
+        this.primary = primary;
+        this.replicas = List.copyOf(replicas);
+        this.healthyReplicas = this.replicas;
+        this.readYourWrites = readYourWrites;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return determineTarget().getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return determineTarget().getConnection(username, password);
+    }
+
+    DataSource determineTarget() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly() || PrimaryContext.isPinned()
+                || readYourWrites.recentlyWrote()) {
+            return primary;
+        }
+        List<DataSource> candidates = healthyReplicas;
+        if (candidates.isEmpty()) {
+            return primary;
+        }
+        return candidates.get(Math.floorMod(next.getAndIncrement(), candidates.size()));
+    }
+
+    /**
+     * Проверяет реплики и исключает из ротации недоступные.
+     */
+    @Scheduled(fixedDelayString = "${severstal.datasource.health-check-interval:10s}")
+    public void checkHealth() {
+        List<DataSource> previous = healthyReplicas;
+        List<DataSource> available = new ArrayList<>();
+        for (int i = 0; i < replicas.size(); i++) {
+            DataSource replica = replicas.get(i);
+            boolean valid;
+            try (Connection connection = replica.getConnection()) {
+                valid = connection.isValid(2);
+            } catch (SQLException e) {
+                valid = false;
+            }
+            if (valid != previous.contains(replica)) {
+                log.warn("Реплика #{} {}", i, valid ? "снова доступна" : "недоступна, чтение переключено на остальные");
+            }
+            if (valid) available.add(replica);
+        }
+        healthyReplicas = List.copyOf(available);
+        readYourWrites.expire();
+    }
+
+    @Override
+    public void close() throws Exception {
+        for (DataSource replica : replicas) {
+            if (replica instanceof AutoCloseable closeable) closeable.close();
+        }
+    }
+}
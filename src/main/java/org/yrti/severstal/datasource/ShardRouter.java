@@ -0,0 +1,110 @@
+package org.yrti.severstal.datasource;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+/**
+ * Маршрутизация операций по шардам.
+ * <p>
+ * Запись идет в шард склада, удаление и поиск по id — в шард, закодированный в старших битах id
+ * (каждый шард выдает id из своего диапазона {@code [n << 48, (n + 1) << 48)}). Чтения выполняются
+ * на всех шардах параллельно, каждый шард в своей readOnly-транзакции, результаты объединяет вызывающий.
+ * Без настроенных шардов все выполняется в текущем потоке и текущей транзакции.
+ */
+@Component
+public class ShardRouter {
+
+    public static final int ID_SHIFT = 48;
+
+    private final int shardCount;
+    private final Map<String, Integer> shardByWarehouse = new HashMap<>();
+    private final TransactionTemplate readOnlyTransaction;
+    private final ExecutorService executor;
+
+    @Autowired
+    public ShardRouter(ShardingProperties properties, PlatformTransactionManager transactionManager) {
+        this.shardCount = properties.shards().size() + 1;
+        for (int i = 0; i < properties.shards().size(); i++) {
+            for (String warehouse : properties.shards().get(i).warehouses()) {
+                shardByWarehouse.put(warehouse, i + 1);
+            }
+        }
+        if (shardCount > 1) {
+            this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+            this.readOnlyTransaction.setReadOnly(true);
+            this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        } else {
+            this.readOnlyTransaction = null;
+            this.executor = null;
+        }
+    }
+
+    /**
+     * Маршрутизатор без шардирования, для тестов.
+     */
+    public static ShardRouter single() {
+        return new ShardRouter(new ShardingProperties(List.of()), null);
+    }
+
+    public int shardCount() {
+        return shardCount;
+    }
+
+    public int shardForWarehouse(String warehouse) {
+        return warehouse == null ? 0 : shardByWarehouse.getOrDefault(warehouse, 0);
+    }
+
+    public int shardForId(long id) {
+        int shard = (int) (id >>> ID_SHIFT);
+        return shard < shardCount ? shard : 0;
+    }
+
+    public static long idBase(int shard) {
+        return (long) shard << ID_SHIFT;
+    }
+
+    public <T> T inShard(int shard, Supplier<T> action) {
+        return ShardContext.call(shard, action);
+    }
+
+    /**
+     * Как {@link #inShard}, но и readOnly-чтения идут на основную базу шарда, а не на реплику ({@link PrimaryContext}).
+     */
+    public <T> T inShardOnPrimary(int shard, Supplier<T> action) {
+        return ShardContext.call(shard, () -> PrimaryContext.call(action));
+    }
+
+    /**
+     * Выполняет чтение на каждом шарде и возвращает результаты в порядке номеров шардов.
+     */
+    public <T> List<T> fanOut(Supplier<T> read) {
+        if (shardCount == 1) {
+            return Collections.singletonList(read.get());
+        }
+        List<CompletableFuture<T>> futures = new ArrayList<>(shardCount);
+        for (int shard = 0; shard < shardCount; shard++) {
+            int target = shard;
+            futures.add(CompletableFuture.supplyAsync(
+                    () -> ShardContext.call(target, () -> readOnlyTransaction.execute(status -> read.get())), executor));
+        }
+        try {
+            return futures.stream().map(CompletableFuture::join).toList();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package org.yrti.severstal.datasource;
+
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Выбирает базу шарда по {@link ShardContext}. Как и маршрутизация по репликам, требует
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}: шард выбирается внутри
+ * транзакции, до первого запроса.
+ */
+public class ShardRoutingDataSource extends AbstractDataSource implements AutoCloseable {
+
+    private final List<DataSource> shards;
+
+    public ShardRoutingDataSource(List<DataSource> shards) {
+        this.shards = List.copyOf(shards);
+    }
+
+    public DataSource shard(int index) {
+        return shards.get(index);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return shards.get(ShardContext.current()).getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return shards.get(ShardContext.current()).getConnection(username, password);
+    }
+
+    @Override
+    public void close() throws Exception {
+        for (DataSource shard : shards) {
+            if (shard instanceof AutoCloseable closeable) closeable.close();
+        }
+    }
+}
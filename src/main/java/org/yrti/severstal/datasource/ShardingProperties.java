@@ -0,0 +1,19 @@
+package org.yrti.severstal.datasource;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.util.List;
+
+/**
+ * Шардирование по складам. Шард 0 — основной источник {@code spring.datasource}, на него же попадают склады,
+ * не указанные ни в одном шарде. Здесь перечисляются дополнительные шарды 1..n.
+ *
+ * @param shards дополнительные шарды со списками их складов
+ */
+@ConfigurationProperties("severstal.sharding")
+public record ShardingProperties(@DefaultValue List<Shard> shards) {
+
+    public record Shard(String url, String username, String password, @DefaultValue List<String> warehouses) {
+    }
+}
@@ -0,0 +1,112 @@
+package org.yrti.severstal.datasource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Журнал медленных SQL-запросов: текст, параметры и метод сервиса, из которого пришел запрос.
+ * <p>
+ * Запросы дольше порога пишутся в лог с уровнем WARN и учитываются в таймере {@code severstal.sql.slow}
+ * с тегом {@code origin} ({@code RollService.getRolls}). Источник ищется по стеку только для медленных
+ * запросов, быстрые обходятся сравнением времени. Запросы, выполненные в потоках fanOut при нескольких шардах,
+ * в стеке сервиса не имеют — для них источник — метод DAO.
+ */
+public class SlowQueryListener implements QueryExecutionListener {
+
+    private static final Logger log = LoggerFactory.getLogger(SlowQueryListener.class);
+
+    private static final String APP_PACKAGE = "org.yrti.severstal.";
+    private static final String SERVICE_PACKAGE = APP_PACKAGE + "service.";
+    private static final String UNKNOWN = "unknown";
+
+    private final long thresholdMs;
+    private final int maxLoggedLength;
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+
+    public SlowQueryListener(Duration threshold, int maxLoggedLength, ObjectProvider<MeterRegistry> meterRegistry) {
+        this.thresholdMs = threshold.toMillis();
+        this.maxLoggedLength = maxLoggedLength;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        long elapsedMs = execInfo.getElapsedTime();
+        if (elapsedMs < thresholdMs) return;
+
+        String origin = origin();
+        if (log.isWarnEnabled()) {
+            String sql = queryInfoList.stream().map(QueryInfo::getQuery).collect(Collectors.joining("; "));
+            String params = queryInfoList.stream()
+                    .flatMap(query -> query.getParametersList().stream())
+                    .map(SlowQueryListener::formatParameters)
+                    .collect(Collectors.joining(", "));
+            log.warn("Медленный запрос {} мс из {}{}: {} параметры: {}", elapsedMs, origin,
+                    execInfo.isBatch() ? " (пакет " + execInfo.getBatchSize() + ")" : "",
+                    truncate(sql), truncate(params));
+        }
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        if (registry != null) {
+            Timer.builder("severstal.sql.slow")
+                    .description("SQL-запросы дольше severstal.sql.slow-threshold")
+                    .tag("origin", origin)
+                    .register(registry)
+                    .record(elapsedMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Ближайший метод сервиса в стеке, а если его нет (другой поток) — ближайший метод приложения вне слоя источников данных.
+     */
+    static String origin() {
+        return StackWalker.getInstance().walk(frames -> {
+            String fallback = null;
+            for (StackWalker.StackFrame frame : (Iterable<StackWalker.StackFrame>) frames::iterator) {
+                String className = frame.getClassName();
+                if (!className.startsWith(APP_PACKAGE) || className.contains("$$")
+                        || className.startsWith(APP_PACKAGE + "datasource.") || className.startsWith(APP_PACKAGE + "config.")) {
+                    continue;
+                }
+                String name = className.substring(className.lastIndexOf('.') + 1) + "." + methodName(frame.getMethodName());
+                if (className.startsWith(SERVICE_PACKAGE)) return name;
+                if (fallback == null) fallback = name;
+            }
+            return fallback != null ? fallback : UNKNOWN;
+        });
+    }
+
+    // lambda$getRolls$3 -> getRolls
+    private static String methodName(String method) {
+        if (!method.startsWith("lambda$")) return method;
+        int end = method.indexOf('$', "lambda$".length());
+        return end > 0 ? method.substring("lambda$".length(), end) : method;
+    }
+
+    private static String formatParameters(List<ParameterSetOperation> operations) {
+        return operations.stream()
+                .filter(operation -> !ParameterSetOperation.isRegisterOutParameterOperation(operation))
+                .map(operation -> operation.getArgs()[0] + "=" + (ParameterSetOperation.isSetNullParameterOperation(operation)
+                        ? "null" : operation.getArgs()[1]))
+                .collect(Collectors.joining(", ", "[", "]"));
+    }
+
+    private String truncate(String value) {
+        return value.length() <= maxLoggedLength ? value : value.substring(0, maxLoggedLength) + "... (" + value.length() + " символов)";
+    }
+}
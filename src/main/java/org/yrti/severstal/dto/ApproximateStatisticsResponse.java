@@ -0,0 +1,19 @@
+package org.yrti.severstal.dto;
+
+import java.util.Map;
+
+/**
+ * Приближенная статистика по случайной выборке рулонов.
+ * {@code intervals} — доверительные интервалы уровня {@code confidenceLevel} для оцененных величин.
+ * Минимумы, максимумы и дни с экстремумами берутся из выборки как есть и интервалов не имеют.
+ */
+public record ApproximateStatisticsResponse(
+        RollStatisticsResponse statistics,
+        long sampleSize,
+        double samplingFraction,
+        double confidenceLevel,
+        Map<String, Interval> intervals) {
+
+    public record Interval(double low, double high) {
+    }
+}
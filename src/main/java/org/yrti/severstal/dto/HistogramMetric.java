@@ -0,0 +1,38 @@
+package org.yrti.severstal.dto;
+
+import org.yrti.severstal.sketch.SketchMetric;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Показатель рулона, по которому строится гистограмма.
+ */
+public enum HistogramMetric {
+    LENGTH("length", SketchMetric.LENGTH),
+    WEIGHT("weight", SketchMetric.WEIGHT);
+
+    private final String column;
+    private final SketchMetric sketchMetric;
+
+    HistogramMetric(String column, SketchMetric sketchMetric) {
+        this.column = column;
+        this.sketchMetric = sketchMetric;
+    }
+
+    public static HistogramMetric parse(String value) {
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Неизвестный показатель: " + value + ", допустимые: " + Arrays.toString(values()));
+        }
+    }
+
+    public String column() {
+        return column;
+    }
+
+    public SketchMetric sketchMetric() {
+        return sketchMetric;
+    }
+}
@@ -0,0 +1,20 @@
+package org.yrti.severstal.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Остатки на момент {@code at}: рулоны, добавленные не позже {@code at} и не удаленные к этому моменту.
+ */
+public record InventoryResponse(
+        @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+        LocalDateTime at,
+        long count,
+        BigDecimal totalWeight,
+        @JsonInclude(JsonInclude.Include.NON_NULL)
+        List<Long> ids) {
+}
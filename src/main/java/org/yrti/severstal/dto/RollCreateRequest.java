@@ -3,6 +3,7 @@ package org.yrti.severstal.dto;
 import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.Digits;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
 
 import java.math.BigDecimal;
 
@@ -18,6 +19,9 @@ public class RollCreateRequest {
     @Digits(integer = 6, fraction = 3, message = "Вес: максимум 6 цифр до и 3 после запятой")
     private BigDecimal weight;
 
+    @Pattern(regexp = "[A-Za-z0-9_-]{1,64}", message = "Склад: от 1 до 64 латинских букв, цифр, '_' или '-'")
+    private String warehouse;
+
     public RollCreateRequest() {
     }
 
@@ -36,4 +40,12 @@ public class RollCreateRequest {
     public void setWeight(BigDecimal weight) {
         this.weight = weight;
     }
+
+    public String getWarehouse() {
+        return warehouse;
+    }
+
+    public void setWarehouse(String warehouse) {
+        this.warehouse = warehouse;
+    }
 }
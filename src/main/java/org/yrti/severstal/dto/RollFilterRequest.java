@@ -44,9 +44,20 @@ public class RollFilterRequest {
     @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
     private LocalDateTime deleteDateMax;
 
+    private String warehouse;
+
     public RollFilterRequest() {
     }
 
+    /**
+     * Задан ли хотя бы один фильтр.
+     */
+    public boolean hasCriteria() {
+        return idMin != null || idMax != null || lengthMin != null || lengthMax != null
+                || weightMin != null || weightMax != null || addDateMin != null || addDateMax != null
+                || deleteDateMin != null || deleteDateMax != null || warehouse != null;
+    }
+
     @AssertTrue(message = "Минимальное значение ID не может быть больше максимального")
     public boolean isIdRangeValid() {
         return idMin == null || idMax == null || idMin <= idMax;
@@ -161,4 +172,12 @@ public class RollFilterRequest {
     public void setDeleteDateMax(LocalDateTime deleteDateMax) {
         this.deleteDateMax = deleteDateMax;
     }
+
+    public String getWarehouse() {
+        return warehouse;
+    }
+
+    public void setWarehouse(String warehouse) {
+        this.warehouse = warehouse;
+    }
 }
@@ -0,0 +1,23 @@
+package org.yrti.severstal.dto;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Гистограмма показателя по рулонам, подходящим под фильтр. Корзина — значения в {@code [lower, upper)},
+ * последняя корзина включает и свою верхнюю границу. {@code count} и {@code sum} — по всем подходящим рулонам,
+ * включая вышедшие за границы ({@code underflow}, {@code overflow}).
+ * Для {@code source=sketch} значения оцениваются по корзинам скетча с точностью 1%.
+ */
+public record RollHistogramResponse(
+        String metric,
+        String source,
+        long count,
+        BigDecimal sum,
+        long underflow,
+        long overflow,
+        List<Bucket> buckets) {
+
+    public record Bucket(BigDecimal lower, BigDecimal upper, long count, BigDecimal sum) {
+    }
+}
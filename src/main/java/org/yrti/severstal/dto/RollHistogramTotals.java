@@ -0,0 +1,23 @@
+package org.yrti.severstal.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Счетчики и суммы значений по корзинам гистограммы. Индекс 0 — значения левее первой границы,
+ * индексы {@code 1..n} — корзины, {@code n + 1} — значения правее последней границы.
+ *
+ * @param lower нижняя граница равных корзин ({@code null} для явных границ или если строк нет)
+ * @param upper верхняя граница равных корзин
+ */
+public record RollHistogramTotals(BigDecimal lower, BigDecimal upper, long[] counts, BigDecimal[] sums) {
+
+    public RollHistogramTotals plus(RollHistogramTotals other) {
+        long[] count = counts.clone();
+        BigDecimal[] sum = sums.clone();
+        for (int i = 0; i < count.length; i++) {
+            count[i] += other.counts[i];
+            sum[i] = sum[i].add(other.sums[i]);
+        }
+        return new RollHistogramTotals(lower != null ? lower : other.lower, upper != null ? upper : other.upper, count, sum);
+    }
+}
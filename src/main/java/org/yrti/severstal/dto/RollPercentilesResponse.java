@@ -0,0 +1,96 @@
+package org.yrti.severstal.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Перцентили за период по дневным скетчам. Длина и вес — по рулонам, добавленным в период,
+ * срок хранения — по рулонам, удаленным в период. Период округляется до целых дней.
+ * Каждое значение перцентиля отличается от точного не больше чем на {@code relativeError} (в долях).
+ */
+public class RollPercentilesResponse {
+
+    private double relativeError;
+    private Distribution length;
+    private Distribution weight;
+    private Distribution lifeSpanSeconds;
+
+    public RollPercentilesResponse() {
+    }
+
+    public double getRelativeError() {
+        return relativeError;
+    }
+
+    public void setRelativeError(double relativeError) {
+        this.relativeError = relativeError;
+    }
+
+    public Distribution getLength() {
+        return length;
+    }
+
+    public void setLength(Distribution length) {
+        this.length = length;
+    }
+
+    public Distribution getWeight() {
+        return weight;
+    }
+
+    public void setWeight(Distribution weight) {
+        this.weight = weight;
+    }
+
+    public Distribution getLifeSpanSeconds() {
+        return lifeSpanSeconds;
+    }
+
+    public void setLifeSpanSeconds(Distribution lifeSpanSeconds) {
+        this.lifeSpanSeconds = lifeSpanSeconds;
+    }
+
+    public static class Distribution {
+
+        private long count;
+        private Map<String, Double> percentiles = new LinkedHashMap<>();
+        @JsonInclude(JsonInclude.Include.NON_NULL)
+        private List<HistogramBin> histogram;
+
+        public Distribution() {
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public void setCount(long count) {
+            this.count = count;
+        }
+
+        public Map<String, Double> getPercentiles() {
+            return percentiles;
+        }
+
+        public void setPercentiles(Map<String, Double> percentiles) {
+            this.percentiles = percentiles;
+        }
+
+        public List<HistogramBin> getHistogram() {
+            return histogram;
+        }
+
+        public void setHistogram(List<HistogramBin> histogram) {
+            this.histogram = histogram;
+        }
+    }
+
+    /**
+     * Корзина гистограммы: значения в {@code (lower, upper]}.
+     */
+    public record HistogramBin(double lower, double upper, long count) {
+    }
+}
@@ -0,0 +1,62 @@
+package org.yrti.severstal.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Промежуточный итог статистики за период: суммы и экстремумы вместо средних, дневные остатки целиком.
+ * Итоги разных шардов складываются через {@link #merge}, ответ строится из объединенного итога.
+ *
+ * @param onStockCount рулоны, которые были на складе хотя бы в какой-то момент периода
+ * @param firstDay     день, с которого начинаются {@code dailyCount}/{@code dailyWeight}
+ */
+public record RollStatisticsAggregate(
+        long addedCount,
+        long deletedCount,
+        long onStockCount,
+        BigDecimal sumLength,
+        BigDecimal sumWeight,
+        BigDecimal minLength,
+        BigDecimal maxLength,
+        BigDecimal minWeight,
+        BigDecimal maxWeight,
+        Long minLifeSpanSeconds,
+        Long maxLifeSpanSeconds,
+        LocalDate firstDay,
+        long[] dailyCount,
+        BigDecimal[] dailyWeight) {
+
+    public RollStatisticsAggregate merge(RollStatisticsAggregate other) {
+        long[] count = dailyCount.clone();
+        BigDecimal[] weight = dailyWeight.clone();
+        for (int i = 0; i < count.length; i++) {
+            count[i] += other.dailyCount[i];
+            weight[i] = weight[i].add(other.dailyWeight[i]);
+        }
+        return new RollStatisticsAggregate(
+                addedCount + other.addedCount,
+                deletedCount + other.deletedCount,
+                onStockCount + other.onStockCount,
+                sumLength.add(other.sumLength),
+                sumWeight.add(other.sumWeight),
+                min(minLength, other.minLength),
+                max(maxLength, other.maxLength),
+                min(minWeight, other.minWeight),
+                max(maxWeight, other.maxWeight),
+                min(minLifeSpanSeconds, other.minLifeSpanSeconds),
+                max(maxLifeSpanSeconds, other.maxLifeSpanSeconds),
+                firstDay, count, weight);
+    }
+
+    private static <T extends Comparable<T>> T min(T a, T b) {
+        if (a == null) return b;
+        if (b == null) return a;
+        return a.compareTo(b) <= 0 ? a : b;
+    }
+
+    private static <T extends Comparable<T>> T max(T a, T b) {
+        if (a == null) return b;
+        if (b == null) return a;
+        return a.compareTo(b) >= 0 ? a : b;
+    }
+}
@@ -0,0 +1,28 @@
+package org.yrti.severstal.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Точка временного ряда: корзина {@code [bucketStart, bucketStart + granularity)}.
+ * {@code stockCount}/{@code stockWeight} — рулоны, которые были на складе хотя бы в какой-то момент корзины
+ * (как в дневной статистике), {@code addedCount}/{@code deletedCount} — добавленные и удаленные в корзине.
+ */
+public record RollTimeSeriesPoint(
+        @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+        LocalDateTime bucketStart,
+        long stockCount,
+        BigDecimal stockWeight,
+        long addedCount,
+        long deletedCount) {
+
+    public RollTimeSeriesPoint plus(RollTimeSeriesPoint other) {
+        return new RollTimeSeriesPoint(bucketStart,
+                stockCount + other.stockCount,
+                stockWeight.add(other.stockWeight),
+                addedCount + other.addedCount,
+                deletedCount + other.deletedCount);
+    }
+}
@@ -0,0 +1,19 @@
+package org.yrti.severstal.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Текущие остатки: рулоны, не удаленные со склада.
+ */
+public record StockResponse(long count, BigDecimal totalWeight, BigDecimal totalLength) {
+
+    public StockResponse plus(StockResponse other) {
+        return new StockResponse(count + other.count, totalWeight.add(other.totalWeight), totalLength.add(other.totalLength));
+    }
+
+    public boolean sameAs(StockResponse other) {
+        return count == other.count
+                && totalWeight.compareTo(other.totalWeight) == 0
+                && totalLength.compareTo(other.totalLength) == 0;
+    }
+}
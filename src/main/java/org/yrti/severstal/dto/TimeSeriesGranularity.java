@@ -0,0 +1,44 @@
+package org.yrti.severstal.dto;
+
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Размер корзины временного ряда. Границы корзин — как у {@code date_trunc} в PostgreSQL
+ * (неделя начинается с понедельника).
+ */
+public enum TimeSeriesGranularity {
+    HOUR("hour", ChronoUnit.HOURS),
+    DAY("day", ChronoUnit.DAYS),
+    WEEK("week", ChronoUnit.WEEKS),
+    MONTH("month", ChronoUnit.MONTHS);
+
+    private final String sqlUnit;
+    private final ChronoUnit chronoUnit;
+
+    TimeSeriesGranularity(String sqlUnit, ChronoUnit chronoUnit) {
+        this.sqlUnit = sqlUnit;
+        this.chronoUnit = chronoUnit;
+    }
+
+    public static TimeSeriesGranularity parse(String value) {
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Неизвестный интервал: " + value + ", допустимые: " + Arrays.toString(values()));
+        }
+    }
+
+    public String sqlUnit() {
+        return sqlUnit;
+    }
+
+    public String sqlInterval() {
+        return "1 " + sqlUnit;
+    }
+
+    public ChronoUnit chronoUnit() {
+        return chronoUnit;
+    }
+}
@@ -0,0 +1,41 @@
+package org.yrti.severstal.dto;
+
+import org.yrti.severstal.model.Roll;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Locale;
+
+/**
+ * Порядок выборки первых K рулонов на складе: самые тяжелые, самые длинные или самые старые.
+ * Для каждого порядка есть частичный индекс по рулонам на складе с тем же {@code ORDER BY}.
+ */
+public enum TopOrder {
+    WEIGHT("weight DESC, id", Comparator.comparing(Roll::getWeight).reversed().thenComparing(Roll::getId)),
+    LENGTH("length DESC, id", Comparator.comparing(Roll::getLength).reversed().thenComparing(Roll::getId)),
+    AGE("add_date, id", Comparator.comparing(Roll::getAddDate).thenComparing(Roll::getId));
+
+    private final String orderBy;
+    private final Comparator<Roll> comparator;
+
+    TopOrder(String orderBy, Comparator<Roll> comparator) {
+        this.orderBy = orderBy;
+        this.comparator = comparator;
+    }
+
+    public static TopOrder parse(String value) {
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Неизвестный порядок: " + value + ", допустимые: " + Arrays.toString(values()));
+        }
+    }
+
+    public String orderBy() {
+        return orderBy;
+    }
+
+    public Comparator<Roll> comparator() {
+        return comparator;
+    }
+}
@@ -0,0 +1,14 @@
+package org.yrti.severstal.event;
+
+import org.yrti.severstal.model.Roll;
+
+/**
+ * Публикуется внутри транзакции {@code createRoll}/{@code deleteRoll} после изменения рулона.
+ */
+public record RollChangedEvent(Type type, Roll roll) {
+
+    public enum Type {
+        CREATED,
+        DELETED
+    }
+}
@@ -0,0 +1,199 @@
+package org.yrti.severstal.json;
+
+import org.springframework.boot.jackson.JacksonComponent;
+import org.yrti.severstal.dto.RollStatisticsResponse;
+import org.yrti.severstal.model.Roll;
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.databind.SerializationContext;
+import tools.jackson.databind.ValueSerializer;
+import tools.jackson.dataformat.cbor.CBORGenerator;
+import tools.jackson.dataformat.smile.SmileGenerator;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Ручные сериализаторы для {@link Roll} и {@link RollStatisticsResponse}.
+ * <p>
+ * Пишут поля напрямую в {@link JsonGenerator} без рефлексии и без разбора {@code @JsonFormat} на каждый вызов.
+ * Вывод байт в байт совпадает со стандартной сериализацией Jackson: тот же порядок полей, null пишутся явно.
+ * <p>
+ * В бинарных форматах (CBOR, Smile) даты пишутся компактно: дата-время — секундами эпохи (время московское),
+ * дата — днями эпохи. В CBOR значения помечаются стандартными тегами 1 и 100.
+ */
+@JacksonComponent
+public class RollJacksonComponent {
+
+    private static final DateTimeFormatter DATE_TIME_FALLBACK = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
+    private static final DateTimeFormatter DATE_FALLBACK = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+    private static final ZoneId MOSCOW = ZoneId.of("Europe/Moscow");
+
+    // теги CBOR (RFC 8949, RFC 8943): дата-время в секундах эпохи и дата в днях эпохи
+    private static final int CBOR_TAG_EPOCH_SECONDS = 1;
+    private static final int CBOR_TAG_EPOCH_DAYS = 100;
+
+    // буфер на поток: форматирование даты не создает промежуточных строк
+    private static final ThreadLocal<char[]> BUFFER = ThreadLocal.withInitial(() -> new char[19]);
+
+    public static class RollSerializer extends ValueSerializer<Roll> {
+
+        @Override
+        public void serialize(Roll roll, JsonGenerator gen, SerializationContext ctxt) {
+            // сначала параметры конструктора Roll(length, weight, addDate), затем остальные по алфавиту
+            gen.writeStartObject(roll);
+            gen.writeName("length");
+            writeDecimal(gen, roll.getLength());
+            gen.writeName("weight");
+            writeDecimal(gen, roll.getWeight());
+            gen.writeName("addDate");
+            writeDateTime(gen, roll.getAddDate());
+            gen.writeName("deleteDate");
+            writeDateTime(gen, roll.getDeleteDate());
+            gen.writeName("id");
+            writeLong(gen, roll.getId());
+            gen.writeName("warehouse");
+            gen.writeString(roll.getWarehouse());
+            gen.writeEndObject();
+        }
+
+        @Override
+        public Class<?> handledType() {
+            return Roll.class;
+        }
+    }
+
+    public static class StatisticsSerializer extends ValueSerializer<RollStatisticsResponse> {
+
+        @Override
+        public void serialize(RollStatisticsResponse stats, JsonGenerator gen, SerializationContext ctxt) {
+            gen.writeStartObject(stats);
+            gen.writeNumberProperty("addedCount", stats.getAddedCount());
+            gen.writeName("averageLength");
+            writeDouble(gen, stats.getAverageLength());
+            gen.writeName("averageWeight");
+            writeDouble(gen, stats.getAverageWeight());
+            gen.writeName("dayWithMaxCount");
+            writeDate(gen, stats.getDayWithMaxCount());
+            gen.writeName("dayWithMaxWeight");
+            writeDate(gen, stats.getDayWithMaxWeight());
+            gen.writeName("dayWithMinCount");
+            writeDate(gen, stats.getDayWithMinCount());
+            gen.writeName("dayWithMinWeight");
+            writeDate(gen, stats.getDayWithMinWeight());
+            gen.writeNumberProperty("deletedCount", stats.getDeletedCount());
+            gen.writeName("maxLength");
+            writeDecimal(gen, stats.getMaxLength());
+            gen.writeName("maxLifeSpanSeconds");
+            writeLong(gen, stats.getMaxLifeSpanSeconds());
+            gen.writeName("maxWeight");
+            writeDecimal(gen, stats.getMaxWeight());
+            gen.writeName("minLength");
+            writeDecimal(gen, stats.getMinLength());
+            gen.writeName("minLifeSpanSeconds");
+            writeLong(gen, stats.getMinLifeSpanSeconds());
+            gen.writeName("minWeight");
+            writeDecimal(gen, stats.getMinWeight());
+            gen.writeName("totalWeight");
+            writeDecimal(gen, stats.getTotalWeight());
+            gen.writeEndObject();
+        }
+
+        @Override
+        public Class<?> handledType() {
+            return RollStatisticsResponse.class;
+        }
+    }
+
+    private static void writeLong(JsonGenerator gen, Long value) {
+        if (value == null) {
+            gen.writeNull();
+        } else {
+            gen.writeNumber(value.longValue());
+        }
+    }
+
+    private static void writeDouble(JsonGenerator gen, Double value) {
+        if (value == null) {
+            gen.writeNull();
+        } else {
+            gen.writeNumber(value.doubleValue());
+        }
+    }
+
+    private static void writeDecimal(JsonGenerator gen, BigDecimal value) {
+        if (value == null) {
+            gen.writeNull();
+        } else {
+            gen.writeNumber(value);
+        }
+    }
+
+    // yyyy-MM-dd'T'HH:mm:ss
+    static void writeDateTime(JsonGenerator gen, LocalDateTime value) {
+        if (value == null) {
+            gen.writeNull();
+            return;
+        }
+        if (isBinary(gen)) {
+            if (gen instanceof CBORGenerator cbor) cbor.writeTag(CBOR_TAG_EPOCH_SECONDS);
+            gen.writeNumber(value.toEpochSecond(MOSCOW.getRules().getOffset(value)));
+            return;
+        }
+        int year = value.getYear();
+        if (year < 1 || year > 9999) {
+            gen.writeString(DATE_TIME_FALLBACK.format(value));
+            return;
+        }
+        char[] buf = BUFFER.get();
+        putDate(buf, year, value.getMonthValue(), value.getDayOfMonth());
+        buf[10] = 'T';
+        put2(buf, 11, value.getHour());
+        buf[13] = ':';
+        put2(buf, 14, value.getMinute());
+        buf[16] = ':';
+        put2(buf, 17, value.getSecond());
+        gen.writeString(buf, 0, 19);
+    }
+
+    // yyyy-MM-dd
+    static void writeDate(JsonGenerator gen, LocalDate value) {
+        if (value == null) {
+            gen.writeNull();
+            return;
+        }
+        if (isBinary(gen)) {
+            if (gen instanceof CBORGenerator cbor) cbor.writeTag(CBOR_TAG_EPOCH_DAYS);
+            gen.writeNumber(value.toEpochDay());
+            return;
+        }
+        int year = value.getYear();
+        if (year < 1 || year > 9999) {
+            gen.writeString(DATE_FALLBACK.format(value));
+            return;
+        }
+        char[] buf = BUFFER.get();
+        putDate(buf, year, value.getMonthValue(), value.getDayOfMonth());
+        gen.writeString(buf, 0, 10);
+    }
+
+    private static boolean isBinary(JsonGenerator gen) {
+        return gen instanceof CBORGenerator || gen instanceof SmileGenerator;
+    }
+
+    private static void putDate(char[] buf, int year, int month, int day) {
+        put2(buf, 0, year / 100);
+        put2(buf, 2, year % 100);
+        buf[4] = '-';
+        put2(buf, 5, month);
+        buf[7] = '-';
+        put2(buf, 8, day);
+    }
+
+    private static void put2(char[] buf, int pos, int value) {
+        buf[pos] = (char) ('0' + value / 10);
+        buf[pos + 1] = (char) ('0' + value % 10);
+    }
+}
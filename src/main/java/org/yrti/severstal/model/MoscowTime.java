@@ -0,0 +1,68 @@
+package org.yrti.severstal.model;
+
+import java.time.*;
+import java.util.Arrays;
+
+/**
+ * Моменты рулонов хранятся как {@code timestamptz} — точка на шкале времени, а в API, фильтрах и ответах
+ * остаются московским временем без зоны. Переводы между ними собраны здесь.
+ * <p>
+ * Границы дней периода считаются один раз на запрос ({@link #dayStarts}), дальше раскладка по дням —
+ * сравнения {@code long} без календарной арифметики на каждый рулон.
+ */
+public final class MoscowTime {
+
+    public static final ZoneId ZONE = ZoneId.of("Europe/Moscow");
+
+    private MoscowTime() {
+    }
+
+    public static Instant toInstant(LocalDateTime value) {
+        return value == null ? null : value.atZone(ZONE).toInstant();
+    }
+
+    public static LocalDateTime toLocal(Instant value) {
+        return value == null ? null : LocalDateTime.ofInstant(value, ZONE);
+    }
+
+    /**
+     * Параметр JDBC: {@link OffsetDateTime} драйвер PostgreSQL передает как {@code timestamptz},
+     * не завися от часового пояса сессии.
+     */
+    public static OffsetDateTime toOffset(LocalDateTime value) {
+        return value == null ? null : value.atZone(ZONE).toOffsetDateTime();
+    }
+
+    public static LocalDateTime toLocal(OffsetDateTime value) {
+        return value == null ? null : toLocal(value.toInstant());
+    }
+
+    public static long toMicros(Instant value) {
+        return value.getEpochSecond() * 1_000_000 + value.getNano() / 1_000;
+    }
+
+    public static long toMicros(LocalDateTime value) {
+        return toMicros(toInstant(value));
+    }
+
+    /**
+     * Начала {@code days} московских дней подряд с {@code first} и начало следующего за ними дня,
+     * в микросекундах эпохи ({@code days + 1} значение).
+     */
+    public static long[] dayStarts(LocalDate first, int days) {
+        long[] starts = new long[days + 1];
+        for (int day = 0; day <= days; day++) {
+            starts[day] = toMicros(first.plusDays(day).atStartOfDay(ZONE).toInstant());
+        }
+        return starts;
+    }
+
+    /**
+     * Номер дня, в который попадает {@code micros}, по границам из {@link #dayStarts}:
+     * -1 — раньше первого дня, {@code days} — позже последнего.
+     */
+    public static int dayIndex(long[] dayStarts, long micros) {
+        int found = Arrays.binarySearch(dayStarts, micros);
+        return found >= 0 ? found : -found - 2;
+    }
+}
@@ -2,13 +2,22 @@ package org.yrti.severstal.model;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "rolls")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Roll.CACHE_REGION)
 public class Roll {
 
+    // регион кэша второго уровня, размер задается в application.conf
+    public static final String CACHE_REGION = "rolls";
+
+    public static final String DEFAULT_WAREHOUSE = "default";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -19,13 +28,17 @@ public class Roll {
     @Column(nullable = false)
     private BigDecimal weight;
 
+    // в базе timestamptz; снаружи — московское время без зоны, см. MoscowTime
     @Column(name = "add_date", nullable = false)
     @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss", timezone = "Europe/Moscow")
-    private LocalDateTime addDate;
+    private Instant addDate;
 
     @Column(name = "delete_date")
     @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss", timezone = "Europe/Moscow")
-    private LocalDateTime deleteDate;
+    private Instant deleteDate;
+
+    @Column(nullable = false, length = 64)
+    private String warehouse = DEFAULT_WAREHOUSE;
 
     public Roll() {
     }
@@ -33,7 +46,7 @@ public class Roll {
     public Roll(BigDecimal length, BigDecimal weight, LocalDateTime addDate) {
         this.length = length;
         this.weight = weight;
-        this.addDate = addDate;
+        this.addDate = MoscowTime.toInstant(addDate);
     }
 
     public Long getId() {
@@ -61,19 +74,35 @@ public class Roll {
     }
 
     public LocalDateTime getAddDate() {
-        return addDate;
+        return MoscowTime.toLocal(addDate);
     }
 
     public void setAddDate(LocalDateTime addDate) {
-        this.addDate = addDate;
+        this.addDate = MoscowTime.toInstant(addDate);
     }
 
     public LocalDateTime getDeleteDate() {
-        return deleteDate;
+        return MoscowTime.toLocal(deleteDate);
     }
 
     public void setDeleteDate(LocalDateTime deleteDate) {
-        this.deleteDate = deleteDate;
+        this.deleteDate = MoscowTime.toInstant(deleteDate);
+    }
+
+    public Instant addedAt() {
+        return addDate;
+    }
+
+    public Instant deletedAt() {
+        return deleteDate;
+    }
+
+    public String getWarehouse() {
+        return warehouse;
+    }
+
+    public void setWarehouse(String warehouse) {
+        this.warehouse = warehouse;
     }
 
     @Override
@@ -82,8 +111,9 @@ public class Roll {
                 "id=" + id +
                 ", length=" + length +
                 ", weight=" + weight +
-                ", addDate=" + addDate +
-                ", deleteDate=" + deleteDate +
+                ", addDate=" + getAddDate() +
+                ", deleteDate=" + getDeleteDate() +
+                ", warehouse=" + warehouse +
                 '}';
     }
 }
@@ -0,0 +1,76 @@
+package org.yrti.severstal.model;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import jakarta.persistence.*;
+import org.yrti.severstal.event.RollChangedEvent;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Запись журнала изменений рулонов. Журнал только дописывается, в той же транзакции, что и само изменение.
+ */
+@Entity
+@Table(name = "roll_events")
+public class RollEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "roll_id", nullable = false)
+    private Long rollId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private RollChangedEvent.Type type;
+
+    @Column(nullable = false)
+    private BigDecimal length;
+
+    @Column(nullable = false)
+    private BigDecimal weight;
+
+    @Column(name = "occurred_at", nullable = false)
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss", timezone = "Europe/Moscow")
+    private LocalDateTime occurredAt;
+
+    public RollEvent() {
+    }
+
+    public RollEvent(Long rollId, RollChangedEvent.Type type, BigDecimal length, BigDecimal weight, LocalDateTime occurredAt) {
+        this.rollId = rollId;
+        this.type = type;
+        this.length = length;
+        this.weight = weight;
+        this.occurredAt = occurredAt;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getRollId() {
+        return rollId;
+    }
+
+    public RollChangedEvent.Type getType() {
+        return type;
+    }
+
+    public BigDecimal getLength() {
+        return length;
+    }
+
+    public BigDecimal getWeight() {
+        return weight;
+    }
+
+    public LocalDateTime getOccurredAt() {
+        return occurredAt;
+    }
+}
@@ -0,0 +1,102 @@
+package org.yrti.severstal.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.yrti.severstal.dao.RollRepository;
+import org.yrti.severstal.dao.RollStatisticsDao;
+import org.yrti.severstal.datasource.ShardRouter;
+import org.yrti.severstal.dto.ApproximateStatisticsResponse;
+import org.yrti.severstal.dto.RollFilterRequest;
+import org.yrti.severstal.dto.RollStatisticsResponse;
+import org.yrti.severstal.model.Roll;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Приближенная статистика: {@link RollStatisticsCalculator} по выборке {@code TABLESAMPLE SYSTEM}.
+ * <p>
+ * Доля выборки подбирается по оценке числа строк из {@code pg_class.reltuples} так, чтобы читалось около
+ * {@code sample-size} строк, поэтому время ответа не зависит от размера таблицы. Количества и суммарный вес
+ * масштабируются на {@code 1 / доля}. Интервалы считаются как для простой случайной выборки
+ * с поправкой на конечную совокупность; SYSTEM выбирает страницы целиком, и если соседние строки
+ * похожи (например, добавлены в один день), реальная ошибка может быть больше. Фильтры применяются к выборке,
+ * поэтому при узком фильтре строк в выборке мало и интервалы широкие.
+ */
+@Service
+public class ApproximateStatisticsService {
+
+    public static final double CONFIDENCE_LEVEL = 0.95;
+    private static final double Z = 1.959964;
+
+    private final RollRepository rollRepository;
+    private final RollStatisticsDao rollStatisticsDao;
+    private final ShardRouter shardRouter;
+    private final long sampleSize;
+
+    public ApproximateStatisticsService(RollRepository rollRepository,
+                                        RollStatisticsDao rollStatisticsDao,
+                                        ShardRouter shardRouter,
+                                        @Value("${severstal.statistics.sample-size:10000}") long sampleSize) {
+        this.rollRepository = rollRepository;
+        this.rollStatisticsDao = rollStatisticsDao;
+        this.shardRouter = shardRouter;
+        this.sampleSize = sampleSize;
+    }
+
+    @Transactional(readOnly = true)
+    public ApproximateStatisticsResponse getStatistics(LocalDateTime start, LocalDateTime end, RollFilterRequest filter) {
+        if (start.isAfter(end)) {
+            throw new IllegalArgumentException("Дата начала не может быть после даты окончания");
+        }
+
+        // одна доля на все шарды — тогда объединение выборок тоже равномерная выборка
+        long estimatedRows = shardRouter.fanOut(rollRepository::estimatedRowCount).stream().mapToLong(Long::longValue).sum();
+        double fraction = estimatedRows <= sampleSize ? 1.0 : (double) sampleSize / estimatedRows;
+        List<Roll> sample = shardRouter.fanOut(() -> rollStatisticsDao.sample(fraction * 100, start, end, filter)).stream()
+                .flatMap(List::stream)
+                .toList();
+
+        RollStatisticsResponse stats = RollStatisticsCalculator.calculate(sample, start, end);
+        Map<String, ApproximateStatisticsResponse.Interval> intervals = new LinkedHashMap<>();
+        double correction = 1 - fraction;
+
+        long added = stats.getAddedCount();
+        stats.setAddedCount(Math.round(added / fraction));
+        intervals.put("addedCount", around(stats.getAddedCount(), Z * Math.sqrt(added * correction) / fraction));
+
+        long deleted = stats.getDeletedCount();
+        stats.setDeletedCount(Math.round(deleted / fraction));
+        intervals.put("deletedCount", around(stats.getDeletedCount(), Z * Math.sqrt(deleted * correction) / fraction));
+
+        if (!sample.isEmpty()) {
+            double sumSquares = sample.stream().mapToDouble(r -> r.getWeight().doubleValue() * r.getWeight().doubleValue()).sum();
+            stats.setTotalWeight(stats.getTotalWeight().divide(BigDecimal.valueOf(fraction), 3, RoundingMode.HALF_UP));
+            intervals.put("totalWeight", around(stats.getTotalWeight().doubleValue(), Z * Math.sqrt(sumSquares * correction) / fraction));
+
+            intervals.put("averageLength", around(stats.getAverageLength(),
+                    Z * standardDeviation(sample, r -> r.getLength().doubleValue()) / Math.sqrt(sample.size()) * Math.sqrt(correction)));
+            intervals.put("averageWeight", around(stats.getAverageWeight(),
+                    Z * standardDeviation(sample, r -> r.getWeight().doubleValue()) / Math.sqrt(sample.size()) * Math.sqrt(correction)));
+        }
+
+        return new ApproximateStatisticsResponse(stats, sample.size(), fraction, CONFIDENCE_LEVEL, intervals);
+    }
+
+    private static ApproximateStatisticsResponse.Interval around(double value, double halfWidth) {
+        return new ApproximateStatisticsResponse.Interval(Math.max(value - halfWidth, 0), value + halfWidth);
+    }
+
+    private static double standardDeviation(List<Roll> rolls, ToDoubleFunction<Roll> value) {
+        if (rolls.size() < 2) return 0;
+        double mean = rolls.stream().mapToDouble(value).average().orElse(0);
+        double sum = rolls.stream().mapToDouble(r -> (value.applyAsDouble(r) - mean) * (value.applyAsDouble(r) - mean)).sum();
+        return Math.sqrt(sum / (rolls.size() - 1));
+    }
+}
@@ -0,0 +1,176 @@
+package org.yrti.severstal.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.yrti.severstal.config.CacheConfig;
+import org.yrti.severstal.config.CoherentMapCache;
+import org.yrti.severstal.datasource.ShardingProperties;
+import org.yrti.severstal.event.RollChangedEvent;
+import org.yrti.severstal.model.Roll;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Согласованность локальных кэшей между узлами через PostgreSQL LISTEN/NOTIFY.
+ * <p>
+ * Каждое изменение рулона отправляет NOTIFY в пишущей транзакции, поэтому уведомление уходит только
+ * после коммита. Каждый узел слушает канал на отдельном соединении и удаляет затронутые записи кэша.
+ * После переподключения кэши очищаются целиком: уведомления, пришедшие во время разрыва, потеряны.
+ * При шардировании уведомление уходит из базы шарда, поэтому узел слушает канал на каждом шарде.
+ * Кроме кэшей Spring, по уведомлению из кэша второго уровня Hibernate удаляется измененный рулон:
+ * свой узел обновляет кэш сам при коммите, а другие узлы иначе отдавали бы рулон без даты удаления.
+ * Статистика, которую начали считать до удаления записей, в кэш уже не попадает ({@link CoherentMapCache}):
+ * иначе запрос, прочитавший данные до коммита, положил бы устаревший результат после уведомления.
+ */
+@Service
+public class CacheCoherenceService implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(CacheCoherenceService.class);
+
+    static final String CHANNEL = "roll_changes";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final CacheManager cacheManager;
+    private final EntityManagerFactory entityManagerFactory;
+    private final List<Database> databases = new ArrayList<>();
+    private final Duration reconnectDelay;
+
+    private volatile boolean running;
+    private final List<Thread> listenerThreads = new ArrayList<>();
+
+    public CacheCoherenceService(JdbcTemplate jdbcTemplate,
+                                 CacheManager cacheManager,
+                                 EntityManagerFactory entityManagerFactory,
+                                 ShardingProperties shardingProperties,
+                                 @Value("${spring.datasource.url}") String url,
+                                 @Value("${spring.datasource.username}") String username,
+                                 @Value("${spring.datasource.password}") String password,
+                                 @Value("${severstal.cache.reconnect-delay:5s}") Duration reconnectDelay) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.cacheManager = cacheManager;
+        this.entityManagerFactory = entityManagerFactory;
+        this.databases.add(new Database(url, username, password));
+        for (ShardingProperties.Shard shard : shardingProperties.shards()) {
+            this.databases.add(new Database(shard.url(),
+                    shard.username() != null ? shard.username() : username,
+                    shard.password() != null ? shard.password() : password));
+        }
+        this.reconnectDelay = reconnectDelay;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void publish(RollChangedEvent event) {
+        String payload = event.type() + ":" + event.roll().getId() + ":" + event.roll().getAddDate();
+        jdbcTemplate.query("SELECT pg_notify(?, ?)", rs -> null, CHANNEL, payload);
+    }
+
+    // свой узел чистим сразу после коммита, не дожидаясь уведомления
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void evictLocally(RollChangedEvent event) {
+        evictStatistics(event.roll().getAddDate());
+    }
+
+    void onNotification(String payload) {
+        String[] parts = payload.split(":", 3);
+        if (parts.length < 3) {
+            log.warn("Некорректное уведомление об изменении рулона: {}", payload);
+            clearAll();
+            return;
+        }
+        entityManagerFactory.getCache().evict(Roll.class, Long.parseLong(parts[1]));
+        evictStatistics(LocalDateTime.parse(parts[2]));
+    }
+
+    /**
+     * Рулон, добавленный в момент {@code addDate}, влияет только на статистику периодов,
+     * которые заканчиваются не раньше этого момента (и при добавлении, и при удалении).
+     */
+    private void evictStatistics(LocalDateTime addDate) {
+        Cache cache = cacheManager.getCache(CacheConfig.STATISTICS);
+        if (cache instanceof CoherentMapCache coherentMapCache) {
+            coherentMapCache.evictIf(key -> !(key instanceof List<?> bounds) || !((LocalDateTime) bounds.get(1)).isBefore(addDate));
+        } else if (cache != null) {
+            cache.clear();
+        }
+    }
+
+    private void clearAll() {
+        entityManagerFactory.getCache().evict(Roll.class);
+        cacheManager.getCacheNames().forEach(name -> {
+            Cache cache = cacheManager.getCache(name);
+            if (cache != null) cache.clear();
+        });
+    }
+
+    private void listen(Database database) {
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(database.url(), database.username(), database.password())) {
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + CHANNEL);
+                }
+                clearAll();
+                log.info("Подписка на канал {} установлена ({})", CHANNEL, database.url());
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(1000);
+                    if (notifications == null) continue;
+                    for (PGNotification notification : notifications) {
+                        onNotification(notification.getParameter());
+                    }
+                }
+            } catch (SQLException e) {
+                if (!running) break;
+                log.warn("Соединение LISTEN {} потеряно, переподключение через {}: {}", CHANNEL, reconnectDelay, e.getMessage());
+                clearAll();
+                try {
+                    Thread.sleep(reconnectDelay);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        for (int i = 0; i < databases.size(); i++) {
+            Database database = databases.get(i);
+            listenerThreads.add(Thread.ofPlatform().daemon().name("cache-coherence-listener-" + i).start(() -> listen(database)));
+        }
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        listenerThreads.forEach(Thread::interrupt);
+        listenerThreads.clear();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private record Database(String url, String username, String password) {
+    }
+}
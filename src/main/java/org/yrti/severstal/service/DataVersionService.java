@@ -0,0 +1,87 @@
+package org.yrti.severstal.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.WebRequest;
+import org.yrti.severstal.dao.RollEventRepository;
+import org.yrti.severstal.datasource.ShardRouter;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+@Service
+public class DataVersionService {
+
+    private final RollEventRepository rollEventRepository;
+    private final ShardRouter shardRouter;
+    private final TransactionTemplate readOnlyTransaction;
+
+    public DataVersionService(RollEventRepository rollEventRepository, ShardRouter shardRouter,
+                              PlatformTransactionManager transactionManager) {
+        this.rollEventRepository = rollEventRepository;
+        this.shardRouter = shardRouter;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * Версия данных — по журналу {@code roll_events} каждого шарда, версии шардов через {@code _}.
+     * Событие пишется в транзакции изменения, поэтому отдельной строки-счетчика, на которой ждали бы все записи, нет.
+     */
+    public String currentVersion() {
+        return String.join("_", shardRouter.fanOut(rollEventRepository::dataVersion));
+    }
+
+    /**
+     * Ответ с ETag: 304, если версия данных не изменилась, иначе тело из {@code body}.
+     * Версия и тело читаются в одной readOnly-транзакции, то есть через одно соединение: с репликами —
+     * с одной и той же реплики, а не с двух, отстающих по-разному. Версия читается первой,
+     * поэтому ETag никогда не окажется новее тела ответа.
+     */
+    public <T> ResponseEntity<T> conditional(WebRequest request, Supplier<T> body) {
+        return readOnlyTransaction.execute(status -> {
+            String etag = etag(request);
+            if (request.checkNotModified(etag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).<T>build();
+            }
+            return ResponseEntity.ok().eTag(etag).body(body.get());
+        });
+    }
+
+    /**
+     * ETag ответа: версия данных плюс параметры запроса и формат ответа.
+     * Параметры входят SHA-256 от их канонической строки: у разных запросов одной версии ETag не совпадают.
+     */
+    public String etag(WebRequest request) {
+        return "\"" + currentVersion() + "-" + requestDigest(request) + "\"";
+    }
+
+    // ключи и значения кодируются, поэтому разные наборы параметров дают разные строки
+    private static String requestDigest(WebRequest request) {
+        String params = request.getParameterMap().entrySet().stream()
+                .map(e -> encode(e.getKey()) + "=" + Arrays.stream(e.getValue()).map(DataVersionService::encode).collect(Collectors.joining(",")))
+                .sorted()
+                .collect(Collectors.joining("&"));
+        String accept = request.getHeader("Accept");
+        String canonical = params + "\n" + (accept == null ? "" : accept);
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(canonical.getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,336 @@
+package org.yrti.severstal.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.yrti.severstal.dao.InventoryDao;
+import org.yrti.severstal.dao.RollEventRepository;
+import org.yrti.severstal.datasource.ShardRouter;
+import org.yrti.severstal.dto.InventoryResponse;
+import org.yrti.severstal.event.RollChangedEvent;
+import org.yrti.severstal.model.RollEvent;
+import org.yrti.severstal.timeline.LifetimeStore;
+import org.yrti.severstal.timeline.RollLifetime;
+import org.yrti.severstal.timeline.StockTimeline;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Остатки на произвольный момент времени.
+ * <p>
+ * Количество и вес берутся из {@link StockTimeline} в памяти. После старта она загружается из {@code rolls}
+ * и дальше обновляется событиями из журнала {@code roll_events}, поэтому видит изменения с других узлов.
+ * Пока загрузка не закончилась, запрос идет в базу. Список id всегда читается из базы.
+ * <p>
+ * Если задан {@code severstal.inventory.snapshot-dir}, время жизни рулонов сохраняется на диск ({@link LifetimeStore}):
+ * полное чтение таблицы пишет снимок, каждое событие дописывается в журнал, периодически журнал сливается со снимком.
+ * При старте шкала строится из снимка, если его курсоры сходятся с {@code roll_events}, и дочитываются
+ * только события после снимка; иначе — полное чтение таблицы, как без снимка.
+ */
+@Service
+public class InventoryService {
+
+    private static final Logger log = LoggerFactory.getLogger(InventoryService.class);
+
+    private static final int REPLAY_BATCH_SIZE = 10_000;
+
+    private final InventoryDao inventoryDao;
+    private final RollEventService rollEventService;
+    private final RollEventRepository rollEventRepository;
+    private final ShardRouter shardRouter;
+    private final TransactionTemplate snapshotTransaction;
+    // null, если снимок на диске не ведется (не задан каталог или запись не удалась)
+    private volatile LifetimeStore store;
+
+    private volatile StockTimeline timeline = new StockTimeline();
+    // события, пришедшие во время загрузки, и id событий, уже учтенных в загруженном снимке
+    private final List<RollEvent> pending = new ArrayList<>();
+    private final Set<Long> inSnapshot = new HashSet<>();
+    private volatile boolean ready;
+
+    public InventoryService(InventoryDao inventoryDao,
+                            RollEventService rollEventService,
+                            RollEventRepository rollEventRepository,
+                            ShardRouter shardRouter,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${severstal.inventory.snapshot-dir:}") String snapshotDir) {
+        this.inventoryDao = inventoryDao;
+        this.rollEventService = rollEventService;
+        this.rollEventRepository = rollEventRepository;
+        this.shardRouter = shardRouter;
+        this.store = snapshotDir.isBlank() ? null : new LifetimeStore(Path.of(snapshotDir), shardRouter.shardCount());
+        this.snapshotTransaction = new TransactionTemplate(transactionManager);
+        this.snapshotTransaction.setReadOnly(true);
+        this.snapshotTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startLoading() {
+        Thread.ofVirtual().name("stock-timeline-loader").start(this::load);
+    }
+
+    void load() {
+        long startedAt = System.nanoTime();
+        // сначала подписка, потом снимок: все, что закоммичено после подписки, придет событием
+        RollEventService.Registration registration = rollEventService.registerConsumer(this::onEvent);
+        long[] cursors = registration.cursors();
+        try {
+            if (store != null && restore(cursors, registration.skippedIds())) {
+                log.info("Шкала остатков восстановлена из снимка: {} рулонов за {} мс", timeline.size(), (System.nanoTime() - startedAt) / 1_000_000);
+            } else {
+                loadFromDatabase(cursors, registration.skippedIds());
+                log.info("Шкала остатков загружена: {} рулонов за {} мс", timeline.size(), (System.nanoTime() - startedAt) / 1_000_000);
+            }
+            synchronized (pending) {
+                pending.forEach(this::apply);
+                pending.clear();
+                ready = true;
+            }
+        } catch (RuntimeException e) {
+            log.error("Не удалось загрузить шкалу остатков, остатки будут считаться запросами к базе", e);
+        }
+    }
+
+    private void loadFromDatabase(long[] cursors, Set<Long> skippedIds) {
+        StockTimeline.Builder builder = new StockTimeline.Builder();
+        // ошибка записи снимка не мешает загрузке шкалы: запись просто прекращается
+        LifetimeStore.SnapshotWriter[] writer = {newSnapshot()};
+        for (int shard = 0; shard < shardRouter.shardCount(); shard++) {
+            long cursor = cursors[shard];
+            // снимок и список вошедших в него событий читаются в одной транзакции REPEATABLE READ
+            shardRouter.inShardOnPrimary(shard, () -> snapshotTransaction.execute(status -> {
+                // пропущенные id ниже курсора: если событие уже в снимке, его опоздавшая доставка не учитывается второй раз
+                Set<Long> eventIds = inventoryDao.eventIdsAfter(cursor, skippedIds);
+                synchronized (pending) {
+                    inSnapshot.addAll(eventIds);
+                }
+                inventoryDao.forEachLifetime(lifetime -> {
+                    add(builder, lifetime);
+                    if (writer[0] != null && !write(writer[0], lifetime)) writer[0] = null;
+                });
+                return null;
+            }));
+        }
+        timeline = builder.build();
+        if (writer[0] != null) {
+            try {
+                // события после курсоров, уже попавшие в снимок, при восстановлении учтутся повторно без изменений
+                writer[0].commit(cursors, cursorRollIds(cursors));
+                store.openJournal();
+            } catch (IOException e) {
+                disableStore("Не удалось записать снимок шкалы остатков", e);
+            }
+        }
+    }
+
+    /**
+     * Шкала из снимка на диске и событий после него. {@code false}, если снимка нет или он не сходится с базой.
+     */
+    private boolean restore(long[] cursors, Set<Long> skippedIds) {
+        LifetimeStore.State state;
+        try {
+            state = store.open();
+        } catch (IOException e) {
+            log.warn("Снимок шкалы остатков не читается, загрузка из базы: {}", e.getMessage());
+            return false;
+        }
+        if (state == null) return false;
+        for (int shard = 0; shard < cursors.length; shard++) {
+            long saved = state.cursors()[shard];
+            if (saved > cursors[shard]) {
+                log.warn("Снимок шкалы остатков новее журнала событий шарда {} ({} > {}), загрузка из базы", shard, saved, cursors[shard]);
+                return false;
+            }
+            if (saved > ShardRouter.idBase(shard)
+                    && !Objects.equals(shardRouter.inShardOnPrimary(shard, () -> inventoryDao.rollIdOfEvent(saved)), state.cursorRollIds()[shard])) {
+                log.warn("Снимок шкалы остатков не сходится с журналом событий шарда {} (событие {}), загрузка из базы", shard, saved);
+                return false;
+            }
+        }
+        try {
+            store.openJournal();
+            long replayed = 0;
+            for (int shard = 0; shard < cursors.length; shard++) {
+                replayed += replay(shard, state.cursors()[shard], cursors[shard], skippedIds);
+            }
+            StockTimeline.Builder builder = new StockTimeline.Builder();
+            store.forEachMerged(lifetime -> add(builder, lifetime));
+            timeline = builder.build();
+            log.debug("После снимка шкалы остатков дочитано событий: {}", replayed);
+            return true;
+        } catch (IOException e) {
+            disableStore("Не удалось восстановить шкалу остатков из снимка, загрузка из базы", e);
+            return false;
+        }
+    }
+
+    // события (from, to] шарда из roll_events дописываются в журнал снимка
+    private long replay(int shard, long from, long to, Set<Long> skippedIds) throws IOException {
+        long replayed = 0;
+        long position = from;
+        while (position < to) {
+            long after = position;
+            List<RollEvent> page = shardRouter.inShardOnPrimary(shard,
+                    () -> rollEventRepository.findByIdGreaterThanAndIdLessThanEqualOrderByIdAsc(after, to, Limit.of(REPLAY_BATCH_SIZE)));
+            if (page.isEmpty()) break;
+            for (RollEvent event : page) {
+                store.append(shard, event.getId(), event.getRollId(), lifetime(event));
+                if (skippedIds.contains(event.getId())) {
+                    synchronized (pending) {
+                        inSnapshot.add(event.getId());
+                    }
+                }
+                position = event.getId();
+            }
+            replayed += page.size();
+        }
+        return replayed;
+    }
+
+    void onEvent(RollEvent event) {
+        synchronized (pending) {
+            if (ready) {
+                apply(event);
+            } else {
+                pending.add(event);
+            }
+        }
+    }
+
+    private void apply(RollEvent event) {
+        LifetimeStore current = store;
+        if (current != null) {
+            try {
+                current.append(shardRouter.shardForId(event.getId()), event.getId(), event.getRollId(), lifetime(event));
+            } catch (IOException e) {
+                disableStore("Не удалось дописать журнал шкалы остатков", e);
+            }
+        }
+        if (inSnapshot.remove(event.getId())) return;
+        if (event.getType() == RollChangedEvent.Type.CREATED) {
+            timeline.added(event.getOccurredAt(), event.getWeight());
+        } else {
+            timeline.deleted(event.getOccurredAt(), event.getWeight());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${severstal.inventory.checkpoint-interval:10m}")
+    public void checkpoint() {
+        LifetimeStore current = store;
+        if (current == null || !ready) return;
+        try {
+            current.checkpoint();
+        } catch (IOException e) {
+            log.warn("Контрольная точка шкалы остатков не удалась, журнал продолжит расти: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        LifetimeStore current = store;
+        if (current != null) current.close();
+    }
+
+    public InventoryResponse getInventory(LocalDateTime at, boolean withIds) {
+        StockTimeline.Stock stock = ready ? timeline.at(at) : fromDatabase(at);
+        List<Long> ids = null;
+        if (withIds) {
+            ids = shardRouter.fanOut(() -> inventoryDao.idsOnStockAt(at)).stream()
+                    .flatMap(List::stream)
+                    .sorted(Comparator.naturalOrder())
+                    .toList();
+        }
+        return new InventoryResponse(at, stock.count(), stock.totalWeight(), ids);
+    }
+
+    private StockTimeline.Stock fromDatabase(LocalDateTime at) {
+        long count = 0;
+        BigDecimal weight = BigDecimal.ZERO;
+        for (StockTimeline.Stock shard : shardRouter.fanOut(() -> inventoryDao.stockAt(at))) {
+            count += shard.count();
+            weight = weight.add(shard.totalWeight());
+        }
+        return new StockTimeline.Stock(count, weight);
+    }
+
+    private LifetimeStore.SnapshotWriter newSnapshot() {
+        if (store == null) return null;
+        try {
+            return store.newSnapshot();
+        } catch (IOException e) {
+            disableStore("Не удалось создать снимок шкалы остатков", e);
+            return null;
+        }
+    }
+
+    private long[] cursorRollIds(long[] cursors) {
+        long[] rollIds = new long[cursors.length];
+        for (int shard = 0; shard < cursors.length; shard++) {
+            long cursor = cursors[shard];
+            Long rollId = shardRouter.inShardOnPrimary(shard, () -> inventoryDao.rollIdOfEvent(cursor));
+            rollIds[shard] = rollId == null ? 0 : rollId;
+        }
+        return rollIds;
+    }
+
+    // без снимка на диске шкала работает как раньше, следующий старт прочитает таблицу целиком
+    private void disableStore(String message, Exception e) {
+        log.warn("{}: {}", message, e.getMessage());
+        LifetimeStore current = store;
+        store = null;
+        if (current != null) {
+            try {
+                current.close();
+            } catch (IOException ignored) {
+                // журнал уже не используется
+            }
+        }
+    }
+
+    private boolean write(LifetimeStore.SnapshotWriter writer, RollLifetime lifetime) {
+        try {
+            writer.add(lifetime);
+            return true;
+        } catch (IOException e) {
+            disableStore("Не удалось записать снимок шкалы остатков", e);
+            try {
+                writer.close();
+            } catch (IOException ignored) {
+                // недописанный снимок удаляется при закрытии, если это возможно
+            }
+            return false;
+        }
+    }
+
+    // запись журнала об удалении не знает момента добавления: он есть в снимке или в записи о создании
+    private static RollLifetime lifetime(RollEvent event) {
+        return event.getType() == RollChangedEvent.Type.CREATED
+                ? RollLifetime.of(event.getRollId(), event.getLength(), event.getWeight(), event.getOccurredAt(), null)
+                : RollLifetime.of(event.getRollId(), event.getLength(), event.getWeight(), null, event.getOccurredAt());
+    }
+
+    private static void add(StockTimeline.Builder builder, RollLifetime lifetime) {
+        // удаление без добавления бывает только у записи журнала, чей рулон не попал в снимок, — в согласованных файлах его нет
+        if (lifetime.added() == 0) return;
+        builder.added(lifetime.added(), lifetime.weight());
+        if (lifetime.deleted() != 0) builder.deleted(lifetime.deleted(), lifetime.weight());
+    }
+}
@@ -0,0 +1,71 @@
+package org.yrti.severstal.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.yrti.severstal.dao.RollArchiveDao;
+import org.yrti.severstal.datasource.ShardRouter;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * Перенос рулонов, удаленных больше {@code retention} назад, из {@code rolls} в {@code rolls_archive}.
+ * <p>
+ * Каждая порция — отдельная короткая транзакция, поэтому пишущие транзакции не ждут весь перенос,
+ * а горячая таблица остается небольшой (место удаленных строк освобождает autovacuum).
+ * Чтения подключают архив сами, когда период запроса начинается раньше отметки архива.
+ */
+@Service
+public class RollArchiveService {
+
+    private static final Logger log = LoggerFactory.getLogger(RollArchiveService.class);
+
+    private final RollArchiveDao rollArchiveDao;
+    private final ShardRouter shardRouter;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration retention;
+    private final int batchSize;
+
+    public RollArchiveService(RollArchiveDao rollArchiveDao,
+                              ShardRouter shardRouter,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${severstal.archive.retention:365d}") Duration retention,
+                              @Value("${severstal.archive.batch-size:1000}") int batchSize) {
+        this.rollArchiveDao = rollArchiveDao;
+        this.shardRouter = shardRouter;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.retention = retention;
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(cron = "${severstal.archive.cron:0 30 3 * * *}", zone = "Europe/Moscow")
+    public void archive() {
+        LocalDateTime cutoff = LocalDateTime.now(ZoneId.of("Europe/Moscow")).minus(retention);
+        for (int shard = 0; shard < shardRouter.shardCount(); shard++) {
+            int target = shard;
+            long moved = shardRouter.inShard(shard, () -> archiveBefore(cutoff));
+            if (moved > 0) {
+                log.info("В архив шарда {} перенесено {} рулонов, удаленных до {}", target, moved, cutoff);
+            }
+        }
+    }
+
+    long archiveBefore(LocalDateTime cutoff) {
+        // отметка коммитится раньше переноса: в архиве не должно быть рулонов, удаленных позже нее
+        transactionTemplate.executeWithoutResult(status -> rollArchiveDao.advanceWatermark(cutoff));
+        long total = 0;
+        int moved;
+        do {
+            Integer batch = transactionTemplate.execute(status -> rollArchiveDao.moveBatch(cutoff, batchSize));
+            moved = batch == null ? 0 : batch;
+            total += moved;
+        } while (moved == batchSize);
+        return total;
+    }
+}
@@ -0,0 +1,417 @@
+package org.yrti.severstal.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.yrti.severstal.dao.RollEventRepository;
+import org.yrti.severstal.datasource.ShardRouter;
+import org.yrti.severstal.event.RollChangedEvent;
+import org.yrti.severstal.model.Roll;
+import org.yrti.severstal.model.RollEvent;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Журнал изменений рулонов и его раздача подписчикам через Server-Sent Events.
+ * <p>
+ * События пишутся в {@code roll_events} в транзакции изменения. Один цикл опроса читает новые записи
+ * и раскладывает их по очередям подписчиков и внутренних потребителей; каждый разбирает свою очередь в своем потоке.
+ * Запросы к базе идут вне блокировки, она берется только чтобы сдвинуть курсоры и разложить события.
+ * Подписчик, не успевающий читать, отключается и при переподключении дочитывает пропущенное из таблицы
+ * по {@code Last-Event-ID}.
+ * <p>
+ * Разрыв в id (транзакция еще не закоммичена или откачена) цикл опроса ждет, пока не завершатся транзакции,
+ * которые шли, когда разрыв был замечен: после этого недостающий id уже не появится и пропускается сразу.
+ * Дольше {@code gap-timeout} опрос не ждет (например, если в базе висит долгая транзакция), а пропущенные
+ * по таймауту id перечитывает на следующих опросах еще {@code late-timeout}: событие транзакции,
+ * закоммиченной позже, доставляется с опозданием, а не теряется.
+ * <p>
+ * При шардировании журнал у каждого шарда свой, курсор ведется по каждому шарду отдельно,
+ * а id события SSE — вектор курсоров через точку ({@code 12.281474976710703}). Без шардов это просто id.
+ */
+@Service
+public class RollEventService {
+
+    private static final Logger log = LoggerFactory.getLogger(RollEventService.class);
+
+    private final RollEventRepository rollEventRepository;
+    private final ShardRouter shardRouter;
+    private final int bufferSize;
+    private final int batchSize;
+    private final long emitterTimeoutMs;
+    private final Duration gapTimeout;
+    private final Duration lateTimeout;
+
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    private final List<ConsumerQueue> consumers = new CopyOnWriteArrayList<>();
+    private final Object lock = new Object();
+
+    // последний разосланный id по шардам; null до первого обращения к базе
+    private final Long[] cursors;
+    // разрыв в id, на котором стоит опрос шарда; null — разрыва нет. Меняется только потоком опроса
+    private final Gap[] gaps;
+    // id, пропущенные после истечения ожидания разрыва, и когда их пропустили; id шардов не пересекаются
+    private final TreeMap<Long, Instant> skipped = new TreeMap<>();
+
+    public RollEventService(RollEventRepository rollEventRepository,
+                            ShardRouter shardRouter,
+                            @Value("${severstal.events.buffer-size:256}") int bufferSize,
+                            @Value("${severstal.events.batch-size:500}") int batchSize,
+                            @Value("${severstal.events.emitter-timeout:30m}") Duration emitterTimeout,
+                            @Value("${severstal.events.gap-timeout:5s}") Duration gapTimeout,
+                            @Value("${severstal.events.late-timeout:10m}") Duration lateTimeout) {
+        this.rollEventRepository = rollEventRepository;
+        this.shardRouter = shardRouter;
+        this.bufferSize = bufferSize;
+        this.batchSize = batchSize;
+        this.emitterTimeoutMs = emitterTimeout.toMillis();
+        this.gapTimeout = gapTimeout;
+        this.lateTimeout = lateTimeout;
+        this.cursors = new Long[shardRouter.shardCount()];
+        this.gaps = new Gap[shardRouter.shardCount()];
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void onRollChanged(RollChangedEvent event) {
+        Roll roll = event.roll();
+        LocalDateTime occurredAt = event.type() == RollChangedEvent.Type.CREATED ? roll.getAddDate() : roll.getDeleteDate();
+        rollEventRepository.save(new RollEvent(roll.getId(), event.type(), roll.getLength(), roll.getWeight(), occurredAt));
+    }
+
+    public SseEmitter subscribe(String lastEventId) {
+        return subscribe(lastEventId, new SseEmitter(emitterTimeoutMs));
+    }
+
+    SseEmitter subscribe(String lastEventId, SseEmitter emitter) {
+        long[] requested = parseEventId(lastEventId);
+        initCursors();
+        synchronized (lock) {
+            long[] live = new long[cursors.length];
+            long[] replayFrom = new long[cursors.length];
+            for (int shard = 0; shard < cursors.length; shard++) {
+                live[shard] = cursors[shard];
+                replayFrom[shard] = requested == null ? live[shard] : Math.min(requested[shard], live[shard]);
+            }
+            Subscriber subscriber = new Subscriber(emitter, replayFrom, live);
+            subscribers.add(subscriber);
+            emitter.onCompletion(subscriber::close);
+            emitter.onTimeout(subscriber::close);
+            emitter.onError(e -> subscriber.close());
+            Thread.ofVirtual().name("roll-events-subscriber").start(subscriber);
+        }
+        log.debug("Новый подписчик на события рулонов, Last-Event-ID={}", lastEventId);
+        return emitter;
+    }
+
+    /**
+     * Курсоры по шардам, с которых потребитель получает события, и пропущенные id ниже курсоров:
+     * их события тоже придут потребителю, если закоммитятся позже.
+     */
+    public record Registration(long[] cursors, Set<Long> skippedIds) {
+    }
+
+    /**
+     * Подписывает внутреннего потребителя на все события после текущих курсоров и на опоздавшие пропущенные.
+     * Потребитель вызывается в своем потоке, события приходят по одному в порядке раздачи.
+     */
+    public Registration registerConsumer(Consumer<RollEvent> consumer) {
+        initCursors();
+        synchronized (lock) {
+            long[] positions = new long[cursors.length];
+            for (int shard = 0; shard < cursors.length; shard++) {
+                positions[shard] = cursors[shard];
+            }
+            ConsumerQueue queue = new ConsumerQueue(consumer);
+            consumers.add(queue);
+            Thread.ofVirtual().name("roll-events-consumer").start(queue);
+            return new Registration(positions, Set.copyOf(skipped.keySet()));
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${severstal.events.poll-interval:500ms}")
+    public void poll() {
+        for (int shard = 0; shard < cursors.length; shard++) {
+            long from = currentCursor(shard);
+            Gap gap = gaps[shard];
+            // xmin читается до событий: все, что закоммичено к этому моменту, чтение событий увидит
+            Gap settled = gap != null && gap.horizon != null
+                    && shardRouter.inShardOnPrimary(shard, rollEventRepository::oldestRunningTransaction) >= gap.horizon ? gap : null;
+            List<RollEvent> batch = shardRouter.inShardOnPrimary(shard,
+                    () -> rollEventRepository.findByIdGreaterThanOrderByIdAsc(from, Limit.of(batchSize)));
+            Gap waiting;
+            synchronized (lock) {
+                waiting = advance(shard, batch, settled);
+            }
+            if (waiting != null && waiting.horizon == null) {
+                // горизонт берется после чтения событий, поэтому покрывает все id ниже прочитанных
+                waiting.below = batch.getLast().getId();
+                waiting.horizon = shardRouter.inShardOnPrimary(shard, rollEventRepository::transactionHorizon);
+            }
+        }
+        pollSkipped();
+    }
+
+    // сдвигает курсор шарда по прочитанным событиям; возвращает разрыв, на котором опрос остановился
+    private Gap advance(int shard, List<RollEvent> batch, Gap settled) {
+        long expected = cursors[shard] + 1;
+        for (RollEvent event : batch) {
+            if (event.getId() != expected) {
+                if (settled != null && event.getId() <= settled.below) {
+                    log.debug("Id {}..{} в журнале событий рулонов шарда {} откачены", expected, event.getId() - 1, shard);
+                } else if (gapExpired(shard)) {
+                    skip(expected, event.getId());
+                } else {
+                    // более ранний id может еще закоммититься — ждем, чтобы не потерять событие
+                    if (settled != null) gaps[shard].horizon = null;
+                    return gaps[shard];
+                }
+            }
+            gaps[shard] = null;
+            deliver(event);
+            cursors[shard] = event.getId();
+            expected = event.getId() + 1;
+        }
+        return null;
+    }
+
+    private void deliver(RollEvent event) {
+        consumers.forEach(c -> c.offer(event));
+        subscribers.forEach(s -> s.offer(event));
+    }
+
+    private void skip(long fromInclusive, long toExclusive) {
+        if (skipped.size() + (toExclusive - fromInclusive) > batchSize) {
+            log.warn("Слишком много пропущенных id в журнале событий рулонов, id {}..{} перечитываться не будут", fromInclusive, toExclusive - 1);
+            return;
+        }
+        Instant now = Instant.now();
+        for (long id = fromInclusive; id < toExclusive; id++) skipped.put(id, now);
+    }
+
+    // пропущенные id, чьи транзакции закоммитились позже, доставляются с опозданием; устаревшие забываются
+    private void pollSkipped() {
+        Map<Integer, List<Long>> byShard = new TreeMap<>();
+        synchronized (lock) {
+            for (Long id : skipped.keySet()) {
+                byShard.computeIfAbsent(shardRouter.shardForId(id), shard -> new ArrayList<>()).add(id);
+            }
+        }
+        if (byShard.isEmpty()) return;
+        List<RollEvent> late = new ArrayList<>();
+        for (Map.Entry<Integer, List<Long>> shard : byShard.entrySet()) {
+            late.addAll(shardRouter.inShardOnPrimary(shard.getKey(), () -> rollEventRepository.findAllById(shard.getValue())));
+        }
+        late.sort(Comparator.comparing(RollEvent::getId));
+        synchronized (lock) {
+            for (RollEvent event : late) {
+                if (skipped.remove(event.getId()) == null) continue;
+                log.info("Событие рулонов id={} закоммичено после истечения ожидания разрыва, доставлено с опозданием", event.getId());
+                deliver(event);
+            }
+            Instant expiredBefore = Instant.now().minus(lateTimeout);
+            for (Iterator<Instant> it = skipped.values().iterator(); it.hasNext(); ) {
+                if (it.next().isBefore(expiredBefore)) it.remove();
+            }
+        }
+    }
+
+    public int subscriberCount() {
+        return subscribers.size();
+    }
+
+    // курсоры читаются из базы до блокировки, чтобы подписка не ждала запроса
+    private void initCursors() {
+        for (int shard = 0; shard < cursors.length; shard++) currentCursor(shard);
+    }
+
+    private long currentCursor(int shard) {
+        synchronized (lock) {
+            if (cursors[shard] != null) return cursors[shard];
+        }
+        // у пустого шарда отсчет идет от начала его диапазона id
+        long max = Math.max(shardRouter.inShardOnPrimary(shard, rollEventRepository::findMaxId), ShardRouter.idBase(shard));
+        synchronized (lock) {
+            if (cursors[shard] == null) cursors[shard] = max;
+            return cursors[shard];
+        }
+    }
+
+    private long[] parseEventId(String lastEventId) {
+        if (lastEventId == null || lastEventId.isBlank()) return null;
+        long[] positions = new long[cursors.length];
+        String[] parts = lastEventId.split("\\.");
+        for (int shard = 0; shard < positions.length; shard++) {
+            // шард, добавленный после отключения клиента, дочитываем с начала его диапазона
+            positions[shard] = ShardRouter.idBase(shard);
+            if (shard < parts.length) {
+                try {
+                    positions[shard] = Long.parseLong(parts[shard]);
+                } catch (NumberFormatException e) {
+                    log.debug("Некорректный Last-Event-ID: {}", lastEventId);
+                    return null;
+                }
+            }
+        }
+        return positions;
+    }
+
+    private boolean gapExpired(int shard) {
+        if (gaps[shard] == null) {
+            gaps[shard] = new Gap(Instant.now());
+            return false;
+        }
+        if (Duration.between(gaps[shard].seenAt, Instant.now()).compareTo(gapTimeout) < 0) {
+            return false;
+        }
+        log.warn("Пропуск в журнале событий рулонов шарда {} после id={}, ожидание истекло", shard, cursors[shard]);
+        return true;
+    }
+
+    /**
+     * Разрыв в id, замеченный на шарде. {@code horizon} — xid, выданный короткой транзакции опроса после чтения,
+     * в котором был виден id {@code below}. Событие пишется после изменения рулона, поэтому транзакция,
+     * выдавшая id меньше {@code below}, к тому моменту уже имела меньший xid. Транзакция опроса сразу завершается,
+     * и когда xmin базы дорос до горизонта, все такие транзакции тоже завершились: недостающие id ниже
+     * {@code below} откачены.
+     */
+    private static final class Gap {
+
+        private final Instant seenAt;
+        private Long horizon;
+        private long below;
+
+        private Gap(Instant seenAt) {
+            this.seenAt = seenAt;
+        }
+    }
+
+    // внутренний потребитель: опрос только кладет события в очередь, потребитель разбирает ее в своем потоке
+    private static final class ConsumerQueue implements Runnable {
+
+        private final Consumer<RollEvent> consumer;
+        // без ограничения: внутреннего потребителя, в отличие от подписчика, нельзя отключить
+        private final BlockingQueue<RollEvent> queue = new LinkedBlockingQueue<>();
+
+        private ConsumerQueue(Consumer<RollEvent> consumer) {
+            this.consumer = consumer;
+        }
+
+        void offer(RollEvent event) {
+            queue.add(event);
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                RollEvent event;
+                try {
+                    event = queue.take();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                try {
+                    consumer.accept(event);
+                } catch (RuntimeException e) {
+                    log.error("Потребитель событий рулонов не обработал событие id={}", event.getId(), e);
+                }
+            }
+        }
+    }
+
+    private final class Subscriber implements Runnable {
+
+        private final SseEmitter emitter;
+        private final BlockingQueue<RollEvent> queue = new ArrayBlockingQueue<>(bufferSize);
+        private final long[] replayTo;
+        // позиция подписчика по каждому шарду, из нее собирается id события
+        private final long[] position;
+        private volatile boolean closed;
+
+        private Subscriber(SseEmitter emitter, long[] replayFrom, long[] replayTo) {
+            this.emitter = emitter;
+            this.position = replayFrom;
+            this.replayTo = replayTo;
+        }
+
+        void offer(RollEvent event) {
+            if (!closed && !queue.offer(event)) {
+                log.warn("Подписчик не успевает читать события, отключаем (последний отправленный id будет дочитан при переподключении)");
+                close();
+                emitter.complete();
+            }
+        }
+
+        void close() {
+            closed = true;
+            subscribers.remove(this);
+        }
+
+        @Override
+        public void run() {
+            try {
+                // сначала дочитываем пропущенное из журнала, затем переходим на живую очередь
+                for (int shard = 0; shard < position.length; shard++) {
+                    int target = shard;
+                    while (!closed && position[shard] < replayTo[shard]) {
+                        List<RollEvent> page = shardRouter.inShardOnPrimary(shard, () -> rollEventRepository
+                                .findByIdGreaterThanAndIdLessThanEqualOrderByIdAsc(position[target], replayTo[target], Limit.of(batchSize)));
+                        if (page.isEmpty()) break;
+                        for (RollEvent event : page) send(event);
+                    }
+                    position[shard] = Math.max(position[shard], replayTo[shard]);
+                }
+                while (!closed) {
+                    RollEvent event = queue.poll(1, TimeUnit.SECONDS);
+                    if (event != null) send(event);
+                }
+            } catch (IOException | IllegalStateException e) {
+                log.debug("Подписчик отключился: {}", e.getMessage());
+                close();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                close();
+            }
+        }
+
+        private void send(RollEvent event) throws IOException {
+            // опоздавшее событие позицию не сдвигает назад: при переподключении оно не повторится
+            int shard = shardRouter.shardForId(event.getId());
+            position[shard] = Math.max(position[shard], event.getId());
+            emitter.send(SseEmitter.event()
+                    .id(eventId())
+                    .name(event.getType().name().toLowerCase())
+                    .data(event));
+        }
+
+        private String eventId() {
+            if (position.length == 1) return String.valueOf(position[0]);
+            StringJoiner joiner = new StringJoiner(".");
+            for (long p : position) joiner.add(String.valueOf(p));
+            return joiner.toString();
+        }
+    }
+}
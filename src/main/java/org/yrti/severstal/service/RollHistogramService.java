@@ -0,0 +1,197 @@
+package org.yrti.severstal.service;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.yrti.severstal.dao.RollHistogramDao;
+import org.yrti.severstal.dao.RollSketchDao;
+import org.yrti.severstal.datasource.ShardRouter;
+import org.yrti.severstal.dto.HistogramMetric;
+import org.yrti.severstal.dto.RollFilterRequest;
+import org.yrti.severstal.dto.RollHistogramResponse;
+import org.yrti.severstal.dto.RollHistogramTotals;
+import org.yrti.severstal.sketch.QuantileSketch;
+import org.yrti.severstal.sketch.SketchMetric;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Гистограммы длины и веса: равные корзины или явные границы.
+ * <p>
+ * {@code sql} считает точную гистограмму в базе ({@link RollHistogramDao}) с любыми фильтрами.
+ * {@code sketch} строит ее по дневным скетчам {@link QuantileSketch} без чтения {@code rolls}:
+ * значение каждой корзины скетча оценивается с точностью 1%, из фильтров поддерживается только дата добавления.
+ */
+@Service
+public class RollHistogramService {
+
+    public static final int MAX_BUCKETS = 1000;
+    public static final int DEFAULT_BUCKETS = 20;
+
+    private final RollHistogramDao rollHistogramDao;
+    private final RollSketchDao rollSketchDao;
+    private final ShardRouter shardRouter;
+
+    public RollHistogramService(RollHistogramDao rollHistogramDao, RollSketchDao rollSketchDao, ShardRouter shardRouter) {
+        this.rollHistogramDao = rollHistogramDao;
+        this.rollSketchDao = rollSketchDao;
+        this.shardRouter = shardRouter;
+    }
+
+    @Transactional(readOnly = true)
+    public RollHistogramResponse getHistogram(HistogramMetric metric, Integer buckets, List<BigDecimal> edges,
+                                              BigDecimal lower, BigDecimal upper, String source, RollFilterRequest filter) {
+        if (edges != null && !edges.isEmpty()) {
+            if (buckets != null || lower != null || upper != null) {
+                throw new IllegalArgumentException("Укажите либо edges, либо buckets/lower/upper");
+            }
+            validateEdges(edges);
+        } else {
+            buckets = buckets == null ? DEFAULT_BUCKETS : buckets;
+            if (buckets < 1 || buckets > MAX_BUCKETS) {
+                throw new IllegalArgumentException("Число корзин должно быть от 1 до " + MAX_BUCKETS);
+            }
+            if (lower != null && upper != null && lower.compareTo(upper) >= 0) {
+                throw new IllegalArgumentException("Нижняя граница должна быть меньше верхней");
+            }
+        }
+
+        return switch (source) {
+            case "sql" -> fromDatabase(metric, buckets, edges, lower, upper, filter);
+            case "sketch" -> fromSketch(metric, buckets, edges, lower, upper, filter);
+            default -> throw new IllegalArgumentException("Неизвестный источник: " + source + ", допустимые: sql, sketch");
+        };
+    }
+
+    private RollHistogramResponse fromDatabase(HistogramMetric metric, Integer buckets, List<BigDecimal> edges,
+                                               BigDecimal lower, BigDecimal upper, RollFilterRequest filter) {
+        if (buckets == null) {
+            RollHistogramTotals totals = shardRouter.fanOut(() -> rollHistogramDao.withEdges(metric, filter, edges)).stream()
+                    .reduce(RollHistogramTotals::plus).orElseThrow();
+            return response(metric, "sql", edges, totals);
+        }
+        if ((lower == null || upper == null) && shardRouter.shardCount() > 1) {
+            // у шардов должны совпадать границы корзин, поэтому диапазон сначала считаем по всем шардам
+            BigDecimal min = null, max = null;
+            for (BigDecimal[] range : shardRouter.fanOut(() -> rollHistogramDao.range(metric, filter))) {
+                if (range[0] != null && (min == null || range[0].compareTo(min) < 0)) min = range[0];
+                if (range[1] != null && (max == null || range[1].compareTo(max) > 0)) max = range[1];
+            }
+            if (min == null) return response(metric, "sql", List.of(), empty(0));
+            lower = lower != null ? lower : min;
+            upper = upper != null ? upper : max;
+        }
+        BigDecimal from = lower, to = upper;
+        int count = buckets;
+        RollHistogramTotals totals = shardRouter.fanOut(() -> rollHistogramDao.equalWidth(metric, filter, from, to, count)).stream()
+                .reduce(RollHistogramTotals::plus).orElseThrow();
+        if (totals.lower() == null) return response(metric, "sql", List.of(), empty(0));
+        return response(metric, "sql", equalEdges(totals.lower(), totals.upper(), buckets), totals);
+    }
+
+    private RollHistogramResponse fromSketch(HistogramMetric metric, Integer buckets, List<BigDecimal> edges,
+                                             BigDecimal lower, BigDecimal upper, RollFilterRequest filter) {
+        LocalDate from = LocalDate.EPOCH;
+        LocalDate to = LocalDate.now(ZoneId.of("Europe/Moscow")).plusDays(1);
+        if (filter != null) {
+            if (hasOtherCriteria(filter)) {
+                throw new IllegalArgumentException("Для source=sketch поддерживаются только фильтры addDateMin/addDateMax");
+            }
+            // скетчи дневные, поэтому даты округляются до целых дней
+            if (filter.getAddDateMin() != null) from = filter.getAddDateMin().toLocalDate();
+            if (filter.getAddDateMax() != null) to = filter.getAddDateMax().toLocalDate();
+        }
+
+        QuantileSketch sketch = new QuantileSketch();
+        LocalDate fromDay = from, toDay = to;
+        for (Map<SketchMetric, QuantileSketch> shard : shardRouter.fanOut(() -> rollSketchDao.merged(fromDay, toDay))) {
+            sketch.merge(shard.get(metric.sketchMetric()));
+        }
+        if (sketch.count() == 0 && (edges == null || edges.isEmpty())) {
+            return response(metric, "sketch", List.of(), empty(0));
+        }
+
+        if (edges == null || edges.isEmpty()) {
+            BigDecimal min = lower != null ? lower : estimate(sketch.bins().firstKey());
+            BigDecimal max = upper != null ? upper : estimate(sketch.bins().lastKey());
+            edges = equalEdges(min, max, buckets);
+        }
+        RollHistogramTotals totals = empty(edges.size() - 1);
+        for (Map.Entry<Integer, Long> bin : sketch.bins().entrySet()) {
+            BigDecimal value = estimate(bin.getKey());
+            int bucket = bucketOf(value, edges);
+            totals.counts()[bucket] += bin.getValue();
+            totals.sums()[bucket] = totals.sums()[bucket].add(value.multiply(BigDecimal.valueOf(bin.getValue())));
+        }
+        return response(metric, "sketch", edges, totals);
+    }
+
+    private static boolean hasOtherCriteria(RollFilterRequest filter) {
+        return filter.getIdMin() != null || filter.getIdMax() != null
+                || filter.getLengthMin() != null || filter.getLengthMax() != null
+                || filter.getWeightMin() != null || filter.getWeightMax() != null
+                || filter.getDeleteDateMin() != null || filter.getDeleteDateMax() != null
+                || filter.getWarehouse() != null;
+    }
+
+    private static void validateEdges(List<BigDecimal> edges) {
+        if (edges.size() < 2 || edges.size() > MAX_BUCKETS + 1) {
+            throw new IllegalArgumentException("Границ корзин должно быть от 2 до " + (MAX_BUCKETS + 1));
+        }
+        for (int i = 1; i < edges.size(); i++) {
+            if (edges.get(i - 1) == null || edges.get(i) == null || edges.get(i - 1).compareTo(edges.get(i)) >= 0) {
+                throw new IllegalArgumentException("Границы корзин должны строго возрастать");
+            }
+        }
+    }
+
+    // как в RollHistogramDao: значение, равное последней границе, попадает в последнюю корзину
+    static int bucketOf(BigDecimal value, List<BigDecimal> edges) {
+        int n = edges.size() - 1;
+        if (value.compareTo(edges.getLast()) == 0) return n;
+        int position = Collections.binarySearch(edges, value);
+        // число границ, не превышающих значение
+        return position >= 0 ? position + 1 : -position - 1;
+    }
+
+    private static List<BigDecimal> equalEdges(BigDecimal lower, BigDecimal upper, int buckets) {
+        // длина и вес хранятся с тремя знаками после запятой, точнее границы не нужны
+        int scale = Math.max(Math.max(lower.scale(), upper.scale()), 3);
+        List<BigDecimal> edges = new ArrayList<>(buckets + 1);
+        BigDecimal range = upper.subtract(lower);
+        for (int i = 0; i < buckets; i++) {
+            edges.add(lower.add(range.multiply(BigDecimal.valueOf(i)).divide(BigDecimal.valueOf(buckets), scale, RoundingMode.HALF_UP)));
+        }
+        edges.add(upper.setScale(scale));
+        return edges;
+    }
+
+    private static BigDecimal estimate(int binIndex) {
+        return BigDecimal.valueOf(QuantileSketch.estimate(binIndex)).setScale(3, RoundingMode.HALF_UP);
+    }
+
+    private static RollHistogramTotals empty(int buckets) {
+        BigDecimal[] sums = new BigDecimal[buckets + 2];
+        Arrays.fill(sums, BigDecimal.ZERO);
+        return new RollHistogramTotals(null, null, new long[buckets + 2], sums);
+    }
+
+    private static RollHistogramResponse response(HistogramMetric metric, String source, List<BigDecimal> edges, RollHistogramTotals totals) {
+        List<RollHistogramResponse.Bucket> buckets = new ArrayList<>(Math.max(edges.size() - 1, 0));
+        for (int i = 1; i < edges.size(); i++) {
+            buckets.add(new RollHistogramResponse.Bucket(edges.get(i - 1), edges.get(i), totals.counts()[i], totals.sums()[i]));
+        }
+        long count = Arrays.stream(totals.counts()).sum();
+        BigDecimal sum = Arrays.stream(totals.sums()).reduce(BigDecimal.ZERO, BigDecimal::add);
+        int last = totals.counts().length - 1;
+        return new RollHistogramResponse(metric.column(), source, count, sum,
+                totals.counts()[0], last > 0 ? totals.counts()[last] : 0, buckets);
+    }
+}
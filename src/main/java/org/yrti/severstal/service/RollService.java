@@ -2,18 +2,24 @@ package org.yrti.severstal.service;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.data.jpa.domain.Specification;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.yrti.severstal.config.CacheConfig;
+import org.yrti.severstal.dao.RollArchiveDao;
 import org.yrti.severstal.dao.RollRepository;
+import org.yrti.severstal.dao.RollStatisticsDao;
+import org.yrti.severstal.datasource.ShardContext;
+import org.yrti.severstal.datasource.ShardRouter;
 import org.yrti.severstal.dto.RollCreateRequest;
 import org.yrti.severstal.dto.RollFilterRequest;
+import org.yrti.severstal.dto.RollStatisticsAggregate;
 import org.yrti.severstal.dto.RollStatisticsResponse;
+import org.yrti.severstal.event.RollChangedEvent;
 import org.yrti.severstal.exception.RollNotFoundException;
 import org.yrti.severstal.model.Roll;
 
-import jakarta.persistence.criteria.Predicate;
-import java.math.BigDecimal;
 import java.time.*;
 import java.util.*;
 import java.util.stream.Collectors;
@@ -23,10 +29,21 @@ public class RollService {
 
     private static final Logger log = LoggerFactory.getLogger(RollService.class);
 
+    public static final int MAX_BATCH_IDS = 1000;
+
     private final RollRepository rollRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ShardRouter shardRouter;
+    private final RollStatisticsDao rollStatisticsDao;
+    private final RollArchiveDao rollArchiveDao;
 
-    public RollService(RollRepository rollRepository) {
+    public RollService(RollRepository rollRepository, ApplicationEventPublisher eventPublisher, ShardRouter shardRouter,
+                       RollStatisticsDao rollStatisticsDao, RollArchiveDao rollArchiveDao) {
         this.rollRepository = rollRepository;
+        this.eventPublisher = eventPublisher;
+        this.shardRouter = shardRouter;
+        this.rollStatisticsDao = rollStatisticsDao;
+        this.rollArchiveDao = rollArchiveDao;
     }
 
     @Transactional
@@ -35,166 +52,120 @@ public class RollService {
             throw new IllegalArgumentException("Длина и вес обязательны");
         }
         Roll roll = new Roll(request.getLength(), request.getWeight(), LocalDateTime.now(ZoneId.of("Europe/Moscow")));
-        Roll saved = rollRepository.save(roll);
+        if (request.getWarehouse() != null) {
+            roll.setWarehouse(request.getWarehouse());
+        }
+        // соединение транзакции берется при первом запросе, поэтому вся транзакция остается на шарде склада
+        Roll saved = shardRouter.inShard(shardRouter.shardForWarehouse(roll.getWarehouse()), () -> rollRepository.save(roll));
+        eventPublisher.publishEvent(new RollChangedEvent(RollChangedEvent.Type.CREATED, saved));
         log.debug("Создан рулон: id={}, length={}, weight={}", saved.getId(), saved.getLength(), saved.getWeight());
         return saved;
     }
 
     @Transactional
     public Roll deleteRoll(Long id) {
-        Roll roll = rollRepository.findById(id)
-                .orElseThrow(() -> new RollNotFoundException("Рулон с id " + id + " не найден"));
+        // как в createRoll, все тело — в шарде рулона: рулон может прийти из кэша второго уровня без запроса,
+        // поэтому изменение сбрасывается сразу, и соединение транзакции берется еще в шарде, а не при коммите
+        return shardRouter.inShard(shardRouter.shardForId(id), () -> {
+            Optional<Roll> found = rollRepository.findById(id);
+            if (found.isEmpty()) {
+                // в архиве только давно удаленные рулоны
+                Roll archived = rollArchiveDao.findById(id)
+                        .orElseThrow(() -> new RollNotFoundException("Рулон с id " + id + " не найден"));
+                log.warn("Попытка повторного удаления архивного рулона id={}", id);
+                return archived;
+            }
+            Roll roll = found.get();
 
-        if (roll.getDeleteDate() != null) {
-            log.warn("Попытка повторного удаления рулона id={}", id);
-            return roll;
-        }
+            if (roll.getDeleteDate() != null) {
+                log.warn("Попытка повторного удаления рулона id={}", id);
+                return roll;
+            }
 
-        roll.setDeleteDate(LocalDateTime.now(ZoneId.of("Europe/Moscow")));
-        Roll saved = rollRepository.save(roll);
-        log.debug("Рулон id={} помечен как удаленный", id);
-        return saved;
+            roll.setDeleteDate(LocalDateTime.now(ZoneId.of("Europe/Moscow")));
+            Roll saved = rollRepository.saveAndFlush(roll);
+            eventPublisher.publishEvent(new RollChangedEvent(RollChangedEvent.Type.DELETED, saved));
+            log.debug("Рулон id={} помечен как удаленный", id);
+            return saved;
+        });
     }
 
+    /**
+     * Рулон по id из шарда, закодированного в id. Повторные чтения обслуживает кэш второго уровня без запроса к базе.
+     */
     @Transactional(readOnly = true)
-    public List<Roll> getRolls(RollFilterRequest filter) {
-        return rollRepository.findAll(createSpecification(filter));
-    }
-
-    private Specification<Roll> createSpecification(RollFilterRequest filter) {
-        return (root, query, cb) -> {
-            List<Predicate> predicates = new ArrayList<>();
-
-            if (filter.getIdMin() != null) predicates.add(cb.greaterThanOrEqualTo(root.get("id"), filter.getIdMin()));
-            if (filter.getIdMax() != null) predicates.add(cb.lessThanOrEqualTo(root.get("id"), filter.getIdMax()));
-
-            if (filter.getLengthMin() != null) predicates.add(cb.greaterThanOrEqualTo(root.get("length"), filter.getLengthMin()));
-            if (filter.getLengthMax() != null) predicates.add(cb.lessThanOrEqualTo(root.get("length"), filter.getLengthMax()));
-
-            if (filter.getWeightMin() != null) predicates.add(cb.greaterThanOrEqualTo(root.get("weight"), filter.getWeightMin()));
-            if (filter.getWeightMax() != null) predicates.add(cb.lessThanOrEqualTo(root.get("weight"), filter.getWeightMax()));
-
-            if (filter.getAddDateMin() != null) predicates.add(cb.greaterThanOrEqualTo(root.get("addDate"), filter.getAddDateMin()));
-            if (filter.getAddDateMax() != null) predicates.add(cb.lessThanOrEqualTo(root.get("addDate"), filter.getAddDateMax()));
-
-            if (filter.getDeleteDateMin() != null) predicates.add(cb.greaterThanOrEqualTo(root.get("deleteDate"), filter.getDeleteDateMin()));
-            if (filter.getDeleteDateMax() != null) predicates.add(cb.lessThanOrEqualTo(root.get("deleteDate"), filter.getDeleteDateMax()));
-
-            return cb.and(predicates.toArray(new Predicate[0]));
-        };
+    public Roll getRoll(Long id) {
+        int shard = shardRouter.shardForId(id);
+        return shardRouter.inShard(shard, () -> rollRepository.findById(id).or(() -> rollArchiveDao.findById(id)))
+                .orElseThrow(() -> new RollNotFoundException("Рулон с id " + id + " не найден"));
     }
 
+    /**
+     * Рулоны по списку id в порядке запроса, ненайденные пропускаются.
+     * На каждом шарде недостающие в кэше рулоны читаются одним запросом.
+     */
     @Transactional(readOnly = true)
-    public RollStatisticsResponse getStatistics(LocalDateTime start, LocalDateTime end) {
-        if (start.isAfter(end)) {
-            throw new IllegalArgumentException("Дата начала не может быть после даты окончания");
-        }
-
-        // рулоны, которые были на складе хотя бы в какой-то момент периода
-        Specification<Roll> wasOnStockSpec = (root, query, cb) -> {
-            Predicate addedBeforeEnd = cb.lessThanOrEqualTo(root.get("addDate"), end);
-            Predicate notDeletedYet = cb.isNull(root.get("deleteDate"));
-            Predicate deletedAfterStart = cb.greaterThanOrEqualTo(root.get("deleteDate"), start);
-            return cb.and(addedBeforeEnd, cb.or(notDeletedYet, deletedAfterStart));
-        };
-
-        List<Roll> activeInRange = rollRepository.findAll(wasOnStockSpec);
-
-        List<Roll> deletedInPeriod = activeInRange.stream()
-                .filter(r -> r.getDeleteDate() != null && !r.getDeleteDate().isBefore(start) && !r.getDeleteDate().isAfter(end))
-                .toList();
-
-        RollStatisticsResponse stats = new RollStatisticsResponse();
-
-        // количество добавленных
-        stats.setAddedCount(activeInRange.stream()
-                .filter(r -> !r.getAddDate().isBefore(start) && !r.getAddDate().isAfter(end))
-                .count());
-
-        // количество удаленных
-        stats.setDeletedCount(deletedInPeriod.size());
-
-        if (!activeInRange.isEmpty()) {
-            // средняя длина и вес рулонов, находившихся на складе в этот период
-            stats.setAverageLength(activeInRange.stream().mapToDouble(r -> r.getLength().doubleValue()).average().orElse(0.0));
-            stats.setAverageWeight(activeInRange.stream().mapToDouble(r -> r.getWeight().doubleValue()).average().orElse(0.0));
-
-            //макс и мин длина и вес
-            stats.setMinLength(activeInRange.stream().map(Roll::getLength).min(BigDecimal::compareTo).orElse(BigDecimal.ZERO));
-            stats.setMaxLength(activeInRange.stream().map(Roll::getLength).max(BigDecimal::compareTo).orElse(BigDecimal.ZERO));
-            stats.setMinWeight(activeInRange.stream().map(Roll::getWeight).min(BigDecimal::compareTo).orElse(BigDecimal.ZERO));
-            stats.setMaxWeight(activeInRange.stream().map(Roll::getWeight).max(BigDecimal::compareTo).orElse(BigDecimal.ZERO));
-
-            // суммарный вес (всех рулонов, находившихся на складе за период)
-            stats.setTotalWeight(activeInRange.stream().map(Roll::getWeight).reduce(BigDecimal.ZERO, BigDecimal::add));
+    public List<Roll> getRolls(List<Long> ids) {
+        if (ids.size() > MAX_BATCH_IDS) {
+            throw new IllegalArgumentException("Слишком много id: " + ids.size() + ", максимум " + MAX_BATCH_IDS);
         }
-
-        // макс и мин промежуток между добавлением и удалением (для тех, кто был удален в период)
-        if (!deletedInPeriod.isEmpty()) {
-            List<Long> lifeSpans = deletedInPeriod.stream()
-                    .map(r -> Duration.between(r.getAddDate(), r.getDeleteDate()).getSeconds())
-                    .toList();
-            stats.setMinLifeSpanSeconds(Collections.min(lifeSpans));
-            stats.setMaxLifeSpanSeconds(Collections.max(lifeSpans));
-        }
-
-        // дни с мин/макс количеством и весом
-        calculateDailyStats(stats, activeInRange, start, end);
-
-        return stats;
+        List<Long> distinct = ids.stream().filter(Objects::nonNull).distinct().toList();
+        // каждый шард читает только свои id (при нескольких шардах — каждый в своей транзакции)
+        Map<Long, Roll> found = new HashMap<>();
+        shardRouter.fanOut(() -> findWithArchive(distinct.stream().filter(id -> shardRouter.shardForId(id) == ShardContext.current()).toList()))
+                .forEach(shard -> shard.forEach(roll -> found.put(roll.getId(), roll)));
+        return distinct.stream().map(found::get).filter(Objects::nonNull).toList();
     }
 
-    private void calculateDailyStats(RollStatisticsResponse stats, List<Roll> rolls, LocalDateTime start, LocalDateTime end) {
-        LocalDate startDate = start.toLocalDate();
-        LocalDate endDate = end.toLocalDate();
-        Map<LocalDate, Long> dailyCount = new HashMap<>();
-        Map<LocalDate, BigDecimal> dailyWeight = new HashMap<>();
-
-        ZoneId zoneId = ZoneId.of("Europe/Moscow");
-
-        for (LocalDate date = startDate; !date.isAfter(endDate); date = date.plusDays(1)) {
-
-            ZonedDateTime dayStartZoned = date.atStartOfDay(zoneId);
-            ZonedDateTime dayEndZoned = date.atTime(LocalTime.MAX).atZone(zoneId);
-
-            LocalDateTime dayStart = dayStartZoned.toLocalDateTime();
-            LocalDateTime dayEnd = dayEndZoned.toLocalDateTime();
-
-            long count = 0;
-            BigDecimal weight = BigDecimal.ZERO;
+    private List<Roll> findWithArchive(List<Long> ids) {
+        if (ids.isEmpty()) return List.of();
+        List<Roll> rolls = rollRepository.findMultiple(ids);
+        if (rolls.size() == ids.size()) return rolls;
+        Set<Long> hot = rolls.stream().map(Roll::getId).collect(Collectors.toSet());
+        List<Roll> all = new ArrayList<>(rolls);
+        all.addAll(rollArchiveDao.findByIds(ids.stream().filter(id -> !hot.contains(id)).toList()));
+        return all;
+    }
 
-            for (Roll r : rolls) {
-                // был ли рулон на складе в этот конкретный день?
-                if (!r.getAddDate().isAfter(dayEnd) && (r.getDeleteDate() == null || !r.getDeleteDate().isBefore(dayStart))) {
-                    count++;
-                    weight = weight.add(r.getWeight());
-                }
-            }
-            dailyCount.put(date, count);
-            dailyWeight.put(date, weight);
+    @Transactional(readOnly = true)
+    public List<Roll> getRolls(RollFilterRequest filter) {
+        if (filter.getWarehouse() != null && shardRouter.shardCount() > 1) {
+            return shardRouter.inShard(shardRouter.shardForWarehouse(filter.getWarehouse()), () -> findWithArchive(filter));
         }
+        return flatten(shardRouter.fanOut(() -> findWithArchive(filter)));
+    }
 
-        if (!dailyCount.isEmpty()) {
-            Optional<Map.Entry<LocalDate, Long>> minCountEntry = dailyCount.entrySet().stream()
-                    .filter(e -> e.getValue() > 0)
-                    .min(Map.Entry.comparingByValue());
-
-            Optional<Map.Entry<LocalDate, Long>> maxCountEntry = dailyCount.entrySet().stream()
-                    .filter(e -> e.getValue() > 0)
-                    .max(Map.Entry.comparingByValue());
-
-            Optional<Map.Entry<LocalDate, BigDecimal>> minWeightEntry = dailyWeight.entrySet().stream()
-                    .filter(e -> e.getValue().compareTo(BigDecimal.ZERO) > 0)
-                    .min(Map.Entry.comparingByValue());
+    // сначала горячая таблица, потом архив: рулон, перенесенный между запросами, попадет в оба списка, но не потеряется
+    private List<Roll> findWithArchive(RollFilterRequest filter) {
+        List<Roll> hot = rollRepository.findByFilter(filter);
+        List<Roll> archived = rollArchiveDao.findByFilter(filter);
+        if (archived.isEmpty()) return hot;
+        Set<Long> hotIds = hot.stream().map(Roll::getId).collect(Collectors.toSet());
+        List<Roll> all = new ArrayList<>(hot);
+        archived.stream().filter(roll -> !hotIds.contains(roll.getId())).forEach(all::add);
+        return all;
+    }
 
-            Optional<Map.Entry<LocalDate, BigDecimal>> maxWeightEntry = dailyWeight.entrySet().stream()
-                    .filter(e -> e.getValue().compareTo(BigDecimal.ZERO) > 0)
-                    .max(Map.Entry.comparingByValue());
+    private static List<Roll> flatten(List<List<Roll>> perShard) {
+        if (perShard.size() == 1) return perShard.getFirst();
+        return perShard.stream().flatMap(List::stream).toList();
+    }
 
-            minCountEntry.ifPresent(entry -> stats.setDayWithMinCount(entry.getKey()));
-            maxCountEntry.ifPresent(entry -> stats.setDayWithMaxCount(entry.getKey()));
-            minWeightEntry.ifPresent(entry -> stats.setDayWithMinWeight(entry.getKey()));
-            maxWeightEntry.ifPresent(entry -> stats.setDayWithMaxWeight(entry.getKey()));
+    /**
+     * Статистика по рулонам, которые были на складе в периоде и подходят под фильтр.
+     * Все считается в базе одним запросом на шард ({@link RollStatisticsDao}), частичные итоги шардов складываются.
+     * В кэш попадает только статистика без фильтров; {@code sync} нужен, чтобы результат,
+     * посчитанный до изменения данных, не попал в кэш после удаления записей.
+     */
+    @Transactional(readOnly = true)
+    @Cacheable(cacheNames = CacheConfig.STATISTICS, key = "{#start, #end}", sync = true, condition = "#filter == null || !#filter.hasCriteria()")
+    public RollStatisticsResponse getStatistics(LocalDateTime start, LocalDateTime end, RollFilterRequest filter) {
+        if (start.isAfter(end)) {
+            throw new IllegalArgumentException("Дата начала не может быть после даты окончания");
         }
+        RollStatisticsAggregate aggregate = shardRouter.fanOut(() -> rollStatisticsDao.aggregate(start, end, filter)).stream()
+                .reduce(RollStatisticsAggregate::merge)
+                .orElseThrow();
+        return RollStatisticsCalculator.toResponse(aggregate);
     }
 }
@@ -0,0 +1,94 @@
+package org.yrti.severstal.service;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.yrti.severstal.dao.RollSketchDao;
+import org.yrti.severstal.datasource.ShardRouter;
+import org.yrti.severstal.dto.RollPercentilesResponse;
+import org.yrti.severstal.event.RollChangedEvent;
+import org.yrti.severstal.model.Roll;
+import org.yrti.severstal.sketch.QuantileSketch;
+import org.yrti.severstal.sketch.SketchMetric;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Перцентили длины, веса и срока хранения по дневным скетчам {@link QuantileSketch}.
+ * Скетчи обновляются в транзакции изменения рулона, запрос за период объединяет дневные скетчи.
+ * Длина и вес попадают в скетч дня добавления рулона, срок хранения — в скетч дня удаления.
+ */
+@Service
+public class RollSketchService {
+
+    private final RollSketchDao rollSketchDao;
+    private final ShardRouter shardRouter;
+
+    public RollSketchService(RollSketchDao rollSketchDao, ShardRouter shardRouter) {
+        this.rollSketchDao = rollSketchDao;
+        this.shardRouter = shardRouter;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void onRollChanged(RollChangedEvent event) {
+        Roll roll = event.roll();
+        if (event.type() == RollChangedEvent.Type.CREATED) {
+            rollSketchDao.increment(roll.getAddDate().toLocalDate(), SketchMetric.LENGTH, QuantileSketch.binIndex(roll.getLength().doubleValue()));
+            rollSketchDao.increment(roll.getAddDate().toLocalDate(), SketchMetric.WEIGHT, QuantileSketch.binIndex(roll.getWeight().doubleValue()));
+        } else {
+            long lifeSpan = Duration.between(roll.getAddDate(), roll.getDeleteDate()).getSeconds();
+            rollSketchDao.increment(roll.getDeleteDate().toLocalDate(), SketchMetric.LIFESPAN, QuantileSketch.binIndex(lifeSpan));
+        }
+    }
+
+    public RollPercentilesResponse getPercentiles(LocalDateTime start, LocalDateTime end, List<Double> quantiles, boolean histogram) {
+        if (start.isAfter(end)) {
+            throw new IllegalArgumentException("Дата начала не может быть после даты окончания");
+        }
+        for (Double q : quantiles) {
+            if (q == null || q < 0 || q > 1) {
+                throw new IllegalArgumentException("Квантиль должен быть в диапазоне [0, 1]");
+            }
+        }
+
+        // счетчики корзин складываются, поэтому скетчи шардов объединяются так же, как дневные
+        Map<SketchMetric, QuantileSketch> merged = new EnumMap<>(SketchMetric.class);
+        for (Map<SketchMetric, QuantileSketch> shard : shardRouter.fanOut(() -> rollSketchDao.merged(start.toLocalDate(), end.toLocalDate()))) {
+            shard.forEach((metric, sketch) -> merged.computeIfAbsent(metric, m -> new QuantileSketch()).merge(sketch));
+        }
+
+        RollPercentilesResponse response = new RollPercentilesResponse();
+        response.setRelativeError(QuantileSketch.RELATIVE_ACCURACY);
+        response.setLength(distribution(merged.get(SketchMetric.LENGTH), quantiles, histogram));
+        response.setWeight(distribution(merged.get(SketchMetric.WEIGHT), quantiles, histogram));
+        response.setLifeSpanSeconds(distribution(merged.get(SketchMetric.LIFESPAN), quantiles, histogram));
+        return response;
+    }
+
+    private static RollPercentilesResponse.Distribution distribution(QuantileSketch sketch, List<Double> quantiles, boolean histogram) {
+        if (sketch == null) sketch = new QuantileSketch();
+        RollPercentilesResponse.Distribution distribution = new RollPercentilesResponse.Distribution();
+        distribution.setCount(sketch.count());
+        for (Double q : quantiles) {
+            distribution.getPercentiles().put(percentileName(q), sketch.quantile(q));
+        }
+        if (histogram) {
+            List<RollPercentilesResponse.HistogramBin> bins = new ArrayList<>(sketch.bins().size());
+            sketch.bins().forEach((index, count) ->
+                    bins.add(new RollPercentilesResponse.HistogramBin(QuantileSketch.lowerBound(index), QuantileSketch.upperBound(index), count)));
+            distribution.setHistogram(bins);
+        }
+        return distribution;
+    }
+
+    // 0.5 -> p50, 0.999 -> p99.9
+    private static String percentileName(double q) {
+        return "p" + BigDecimal.valueOf(q).movePointRight(2).stripTrailingZeros().toPlainString();
+    }
+}
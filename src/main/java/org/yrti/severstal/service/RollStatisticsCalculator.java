@@ -0,0 +1,129 @@
+package org.yrti.severstal.service;
+
+import org.yrti.severstal.dto.RollStatisticsAggregate;
+import org.yrti.severstal.dto.RollStatisticsResponse;
+import org.yrti.severstal.model.MoscowTime;
+import org.yrti.severstal.model.Roll;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.time.*;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+
+/**
+ * Расчет статистики по рулонам, которые были на складе хотя бы в какой-то момент периода.
+ * <p>
+ * Сначала строится {@link RollStatisticsAggregate} (в памяти по списку рулонов или одним SQL-запросом
+ * в {@code RollStatisticsDao}), затем из него — ответ. Второй шаг общий для всех источников,
+ * поэтому точная статистика, статистика по выборке и по нескольким шардам считаются одинаково.
+ */
+public final class RollStatisticsCalculator {
+
+    private RollStatisticsCalculator() {
+    }
+
+    public static RollStatisticsResponse calculate(List<Roll> activeInRange, LocalDateTime start, LocalDateTime end) {
+        return toResponse(aggregate(activeInRange, start, end));
+    }
+
+    public static RollStatisticsAggregate aggregate(List<Roll> activeInRange, LocalDateTime start, LocalDateTime end) {
+        long startMicros = MoscowTime.toMicros(start);
+        long endMicros = MoscowTime.toMicros(end);
+        // начала дней периода считаются один раз, дальше для каждого рулона только сравнения long
+        LocalDate startDate = start.toLocalDate();
+        int days = (int) ChronoUnit.DAYS.between(startDate, end.toLocalDate()) + 1;
+        long[] dayStarts = MoscowTime.dayStarts(startDate, days);
+
+        long addedCount = 0;
+        long deletedCount = 0;
+        // промежуток между добавлением и удалением (для тех, кто был удален в период)
+        Long minLifeSpan = null, maxLifeSpan = null;
+        // остатки по дням: был ли рулон на складе хоть в какой-то момент дня
+        long[] dailyCount = new long[days];
+        BigDecimal[] dailyWeight = new BigDecimal[days];
+        Arrays.fill(dailyWeight, BigDecimal.ZERO);
+        for (Roll r : activeInRange) {
+            long added = MoscowTime.toMicros(r.addedAt());
+            if (added >= startMicros && added <= endMicros) addedCount++;
+            int from = Math.max(MoscowTime.dayIndex(dayStarts, added), 0);
+            int to = days - 1;
+            if (r.deletedAt() != null) {
+                long deleted = MoscowTime.toMicros(r.deletedAt());
+                if (deleted >= startMicros && deleted <= endMicros) {
+                    deletedCount++;
+                    long lifeSpan = Math.floorDiv(deleted - added, 1_000_000);
+                    if (minLifeSpan == null || lifeSpan < minLifeSpan) minLifeSpan = lifeSpan;
+                    if (maxLifeSpan == null || lifeSpan > maxLifeSpan) maxLifeSpan = lifeSpan;
+                }
+                to = Math.min(MoscowTime.dayIndex(dayStarts, deleted), days - 1);
+            }
+            for (int day = from; day <= to; day++) {
+                dailyCount[day]++;
+                dailyWeight[day] = dailyWeight[day].add(r.getWeight());
+            }
+        }
+
+        return new RollStatisticsAggregate(
+                addedCount,
+                deletedCount,
+                activeInRange.size(),
+                activeInRange.stream().map(Roll::getLength).reduce(BigDecimal.ZERO, BigDecimal::add),
+                activeInRange.stream().map(Roll::getWeight).reduce(BigDecimal.ZERO, BigDecimal::add),
+                activeInRange.stream().map(Roll::getLength).min(BigDecimal::compareTo).orElse(null),
+                activeInRange.stream().map(Roll::getLength).max(BigDecimal::compareTo).orElse(null),
+                activeInRange.stream().map(Roll::getWeight).min(BigDecimal::compareTo).orElse(null),
+                activeInRange.stream().map(Roll::getWeight).max(BigDecimal::compareTo).orElse(null),
+                minLifeSpan,
+                maxLifeSpan,
+                startDate, dailyCount, dailyWeight);
+    }
+
+    public static RollStatisticsResponse toResponse(RollStatisticsAggregate aggregate) {
+        RollStatisticsResponse stats = new RollStatisticsResponse();
+
+        stats.setAddedCount(aggregate.addedCount());
+        stats.setDeletedCount(aggregate.deletedCount());
+
+        if (aggregate.onStockCount() > 0) {
+            // средняя длина и вес рулонов, находившихся на складе в этот период
+            BigDecimal count = BigDecimal.valueOf(aggregate.onStockCount());
+            stats.setAverageLength(aggregate.sumLength().divide(count, MathContext.DECIMAL64).doubleValue());
+            stats.setAverageWeight(aggregate.sumWeight().divide(count, MathContext.DECIMAL64).doubleValue());
+
+            //макс и мин длина и вес
+            stats.setMinLength(aggregate.minLength());
+            stats.setMaxLength(aggregate.maxLength());
+            stats.setMinWeight(aggregate.minWeight());
+            stats.setMaxWeight(aggregate.maxWeight());
+
+            // суммарный вес (всех рулонов, находившихся на складе за период)
+            stats.setTotalWeight(aggregate.sumWeight());
+        }
+
+        stats.setMinLifeSpanSeconds(aggregate.minLifeSpanSeconds());
+        stats.setMaxLifeSpanSeconds(aggregate.maxLifeSpanSeconds());
+
+        // дни с мин/макс количеством и весом (среди дней, когда на складе что-то было; при равенстве — более ранний)
+        Integer minCount = null, maxCount = null, minWeight = null, maxWeight = null;
+        long[] dailyCount = aggregate.dailyCount();
+        BigDecimal[] dailyWeight = aggregate.dailyWeight();
+        for (int day = 0; day < dailyCount.length; day++) {
+            if (dailyCount[day] > 0) {
+                if (minCount == null || dailyCount[day] < dailyCount[minCount]) minCount = day;
+                if (maxCount == null || dailyCount[day] > dailyCount[maxCount]) maxCount = day;
+            }
+            if (dailyWeight[day].signum() > 0) {
+                if (minWeight == null || dailyWeight[day].compareTo(dailyWeight[minWeight]) < 0) minWeight = day;
+                if (maxWeight == null || dailyWeight[day].compareTo(dailyWeight[maxWeight]) > 0) maxWeight = day;
+            }
+        }
+        LocalDate firstDay = aggregate.firstDay();
+        if (minCount != null) stats.setDayWithMinCount(firstDay.plusDays(minCount));
+        if (maxCount != null) stats.setDayWithMaxCount(firstDay.plusDays(maxCount));
+        if (minWeight != null) stats.setDayWithMinWeight(firstDay.plusDays(minWeight));
+        if (maxWeight != null) stats.setDayWithMaxWeight(firstDay.plusDays(maxWeight));
+
+        return stats;
+    }
+}
@@ -0,0 +1,52 @@
+package org.yrti.severstal.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.yrti.severstal.dao.RollTimeSeriesDao;
+import org.yrti.severstal.datasource.ShardRouter;
+import org.yrti.severstal.dto.RollTimeSeriesPoint;
+import org.yrti.severstal.dto.TimeSeriesGranularity;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+@Service
+public class RollTimeSeriesService {
+
+    private final RollTimeSeriesDao rollTimeSeriesDao;
+    private final ShardRouter shardRouter;
+    private final long maxBuckets;
+
+    public RollTimeSeriesService(RollTimeSeriesDao rollTimeSeriesDao,
+                                 ShardRouter shardRouter,
+                                 @Value("${severstal.timeseries.max-buckets:10000}") long maxBuckets) {
+        this.rollTimeSeriesDao = rollTimeSeriesDao;
+        this.shardRouter = shardRouter;
+        this.maxBuckets = maxBuckets;
+    }
+
+    public List<RollTimeSeriesPoint> getTimeSeries(LocalDateTime start, LocalDateTime end, TimeSeriesGranularity granularity) {
+        if (start.isAfter(end)) {
+            throw new IllegalArgumentException("Дата начала не может быть после даты окончания");
+        }
+        // грубая оценка сверху: лишняя корзина на выравнивание начала
+        long buckets = granularity.chronoUnit().between(start.truncatedTo(ChronoUnit.HOURS), end) + 2;
+        if (buckets > maxBuckets) {
+            throw new IllegalArgumentException("Слишком много интервалов: " + buckets + ", максимум " + maxBuckets);
+        }
+
+        List<List<RollTimeSeriesPoint>> perShard = shardRouter.fanOut(() -> rollTimeSeriesDao.timeSeries(start, end, granularity));
+        if (perShard.size() == 1) return perShard.getFirst();
+
+        // корзины у всех шардов одинаковые, все показатели аддитивны
+        List<RollTimeSeriesPoint> merged = new ArrayList<>(perShard.getFirst());
+        for (List<RollTimeSeriesPoint> shard : perShard.subList(1, perShard.size())) {
+            for (int i = 0; i < merged.size(); i++) {
+                merged.set(i, merged.get(i).plus(shard.get(i)));
+            }
+        }
+        return merged;
+    }
+}
@@ -0,0 +1,41 @@
+package org.yrti.severstal.service;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.yrti.severstal.dao.RollTopDao;
+import org.yrti.severstal.datasource.ShardRouter;
+import org.yrti.severstal.dto.TopOrder;
+import org.yrti.severstal.model.Roll;
+
+import java.util.List;
+
+/**
+ * Первые K рулонов на складе по весу, длине или возрасту. Каждый шард отдает свои K по индексу,
+ * общий результат — первые K из объединения, так что ответ не зависит от размера склада.
+ */
+@Service
+public class RollTopService {
+
+    public static final int MAX_LIMIT = 1000;
+
+    private final RollTopDao rollTopDao;
+    private final ShardRouter shardRouter;
+
+    public RollTopService(RollTopDao rollTopDao, ShardRouter shardRouter) {
+        this.rollTopDao = rollTopDao;
+        this.shardRouter = shardRouter;
+    }
+
+    @Transactional(readOnly = true)
+    public List<Roll> getTop(TopOrder order, int limit) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new IllegalArgumentException("Число рулонов должно быть от 1 до " + MAX_LIMIT);
+        }
+        return merge(shardRouter.fanOut(() -> rollTopDao.findTop(order, limit)), order, limit);
+    }
+
+    static List<Roll> merge(List<List<Roll>> perShard, TopOrder order, int limit) {
+        if (perShard.size() == 1) return perShard.getFirst();
+        return perShard.stream().flatMap(List::stream).sorted(order.comparator()).limit(limit).toList();
+    }
+}
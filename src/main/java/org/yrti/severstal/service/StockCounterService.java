@@ -0,0 +1,71 @@
+package org.yrti.severstal.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.yrti.severstal.dao.StockCounterDao;
+import org.yrti.severstal.datasource.ShardRouter;
+import org.yrti.severstal.dto.StockResponse;
+import org.yrti.severstal.event.RollChangedEvent;
+import org.yrti.severstal.model.Roll;
+
+import java.math.BigDecimal;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Текущие остатки за O(1): счетчики обновляются в транзакции создания/удаления рулона
+ * и периодически сверяются с таблицей.
+ */
+@Service
+public class StockCounterService {
+
+    private static final Logger log = LoggerFactory.getLogger(StockCounterService.class);
+
+    private final StockCounterDao stockCounterDao;
+    private final ShardRouter shardRouter;
+    private final TransactionTemplate transactionTemplate;
+
+    public StockCounterService(StockCounterDao stockCounterDao, ShardRouter shardRouter, PlatformTransactionManager transactionManager) {
+        this.stockCounterDao = stockCounterDao;
+        this.shardRouter = shardRouter;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void onRollChanged(RollChangedEvent event) {
+        Roll roll = event.roll();
+        int stripe = ThreadLocalRandom.current().nextInt(StockCounterDao.STRIPES);
+        if (event.type() == RollChangedEvent.Type.CREATED) {
+            stockCounterDao.add(stripe, 1, roll.getWeight(), roll.getLength());
+        } else {
+            stockCounterDao.add(stripe, -1, roll.getWeight().negate(), roll.getLength().negate());
+        }
+    }
+
+    public StockResponse getStock() {
+        return shardRouter.fanOut(stockCounterDao::totals).stream()
+                .reduce(new StockResponse(0, BigDecimal.ZERO, BigDecimal.ZERO), StockResponse::plus);
+    }
+
+    @Scheduled(cron = "${severstal.stock.repair-cron:0 0 3 * * *}", zone = "Europe/Moscow")
+    public void repair() {
+        for (int shard = 0; shard < shardRouter.shardCount(); shard++) {
+            int target = shard;
+            shardRouter.inShard(shard, () -> transactionTemplate.execute(status -> {
+                stockCounterDao.lockForRepair();
+                StockResponse counted = stockCounterDao.totals();
+                StockResponse actual = stockCounterDao.actualTotals();
+                if (!actual.sameAs(counted)) {
+                    log.warn("Счетчики остатков шарда {} расходились с таблицей: {}, исправлено на {}", target, counted, actual);
+                    stockCounterDao.reset(actual);
+                }
+                return null;
+            }));
+        }
+    }
+}
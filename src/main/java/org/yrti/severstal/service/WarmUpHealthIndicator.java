@@ -0,0 +1,31 @@
+package org.yrti.severstal.service;
+
+import org.springframework.boot.health.contributor.Health;
+import org.springframework.boot.health.contributor.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Индикатор {@code warmUp} группы readiness: OUT_OF_SERVICE, пока идет прогрев {@link WarmUpService}.
+ */
+@Component
+public class WarmUpHealthIndicator implements HealthIndicator {
+
+    private final WarmUpService warmUpService;
+
+    public WarmUpHealthIndicator(WarmUpService warmUpService) {
+        this.warmUpService = warmUpService;
+    }
+
+    @Override
+    public Health health() {
+        Health.Builder builder = warmUpService.isComplete() ? Health.up() : Health.outOfService();
+        builder.withDetail("rounds", warmUpService.rounds());
+        Duration p99 = warmUpService.lastP99();
+        if (p99 != null) {
+            builder.withDetail("p99Ms", p99.toMillis());
+        }
+        return builder.build();
+    }
+}
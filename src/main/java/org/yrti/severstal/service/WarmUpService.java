@@ -0,0 +1,176 @@
+package org.yrti.severstal.service;
+
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.yrti.severstal.dto.RollCreateRequest;
+import org.yrti.severstal.dto.RollFilterRequest;
+import org.yrti.severstal.model.Roll;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Прогрев после старта: JIT, пул соединений Hikari и кэш планов запросов Hibernate.
+ * <p>
+ * Раундами гоняет по реальной базе те же чтения, что и клиенты: фильтр рулонов и статистику с фильтром
+ * (она не кэшируется). Запись в базу не прогревается: прогрев идет на каждом старте каждого узла
+ * и не должен ни вставлять строки, ни расходовать последовательности, ни запускать слушателей изменений.
+ * Запросы, в том числе на создание рулона, проходят валидацию, а результаты сериализуются в JSON,
+ * как в контроллере, — прогреваются и метаданные валидатора, и сериализаторы ответов.
+ * Пока p99 раунда выше порога, {@link WarmUpHealthIndicator} держит readiness в OUT_OF_SERVICE
+ * и балансировщик не направляет сюда трафик. По истечении {@code timeout} узел считается готовым в любом случае,
+ * чтобы медленная база не останавливала выкладку.
+ */
+@Service
+public class WarmUpService {
+
+    private static final Logger log = LoggerFactory.getLogger(WarmUpService.class);
+
+    private final RollService rollService;
+    private final JsonMapper jsonMapper;
+    private final Validator validator;
+    private final boolean enabled;
+    private final int threads;
+    private final int requestsPerRound;
+    private final Duration latencyThreshold;
+    private final Duration timeout;
+
+    private volatile boolean complete;
+    private volatile int rounds;
+    private volatile Duration lastP99;
+
+    public WarmUpService(RollService rollService,
+                         JsonMapper jsonMapper,
+                         Validator validator,
+                         @Value("${severstal.warmup.enabled:true}") boolean enabled,
+                         @Value("${severstal.warmup.threads:4}") int threads,
+                         @Value("${severstal.warmup.requests-per-round:300}") int requestsPerRound,
+                         @Value("${severstal.warmup.latency-threshold:50ms}") Duration latencyThreshold,
+                         @Value("${severstal.warmup.timeout:2m}") Duration timeout) {
+        this.rollService = rollService;
+        this.jsonMapper = jsonMapper;
+        this.validator = validator;
+        this.enabled = enabled;
+        this.threads = threads;
+        this.requestsPerRound = requestsPerRound;
+        this.latencyThreshold = latencyThreshold;
+        this.timeout = timeout;
+        this.complete = !enabled;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (enabled) {
+            Thread.ofPlatform().daemon().name("warm-up").start(this::run);
+        }
+    }
+
+    public boolean isComplete() {
+        return complete;
+    }
+
+    public int rounds() {
+        return rounds;
+    }
+
+    public Duration lastP99() {
+        return lastP99;
+    }
+
+    void run() {
+        long startedAt = System.nanoTime();
+        long deadline = startedAt + timeout.toNanos();
+        try (ExecutorService executor = Executors.newFixedThreadPool(threads, Thread.ofPlatform().name("warm-up-", 0).factory())) {
+            while (true) {
+                lastP99 = round(executor);
+                rounds++;
+                if (lastP99.compareTo(latencyThreshold) <= 0) {
+                    log.info("Прогрев завершен за {} мс, раундов: {}, p99 последнего раунда: {} мс",
+                            (System.nanoTime() - startedAt) / 1_000_000, rounds, lastP99.toMillis());
+                    break;
+                }
+                if (System.nanoTime() - deadline > 0) {
+                    log.warn("Прогрев не достиг порога {} мс за {}, раундов: {}, p99 последнего раунда: {} мс; узел помечается готовым",
+                            latencyThreshold.toMillis(), timeout, rounds, lastP99.toMillis());
+                    break;
+                }
+                log.debug("Раунд прогрева {}: p99 {} мс", rounds, lastP99.toMillis());
+            }
+        } catch (RuntimeException e) {
+            log.warn("Прогрев прерван ошибкой, узел помечается готовым: {}", e.getMessage());
+        } finally {
+            complete = true;
+        }
+    }
+
+    private Duration round(ExecutorService executor) {
+        List<Future<Long>> futures = new ArrayList<>(requestsPerRound);
+        for (int i = 0; i < requestsPerRound; i++) {
+            int workload = i % 3;
+            futures.add(executor.submit(() -> timed(workload)));
+        }
+        long[] nanos = new long[futures.size()];
+        try {
+            for (int i = 0; i < nanos.length; i++) {
+                nanos[i] = futures.get(i).get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Прогрев прерван", e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : new IllegalStateException(e.getCause());
+        }
+        Arrays.sort(nanos);
+        return Duration.ofNanos(nanos[(int) Math.ceil(nanos.length * 0.99) - 1]);
+    }
+
+    private long timed(int workload) {
+        long startedAt = System.nanoTime();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        LocalDateTime now = LocalDateTime.now(ZoneId.of("Europe/Moscow"));
+        Object result = switch (workload) {
+            case 0 -> {
+                RollFilterRequest filter = new RollFilterRequest();
+                BigDecimal lengthMin = BigDecimal.valueOf(random.nextInt(1, 100));
+                filter.setLengthMin(lengthMin);
+                filter.setLengthMax(lengthMin.add(BigDecimal.TEN));
+                if (random.nextBoolean()) filter.setAddDateMin(now.minusDays(1));
+                validator.validate(filter);
+                yield rollService.getRolls(filter);
+            }
+            case 1 -> {
+                // фильтр с условием отключает кэш статистики: нужен сам запрос, а не попадание в кэш
+                RollFilterRequest filter = new RollFilterRequest();
+                filter.setWeightMin(BigDecimal.valueOf(random.nextInt(0, 10)));
+                validator.validate(filter);
+                yield rollService.getStatistics(now.minusDays(1), now, filter);
+            }
+            default -> {
+                // только валидация запроса и ответ создания, без обращения к базе
+                RollCreateRequest request = new RollCreateRequest();
+                request.setLength(BigDecimal.valueOf(random.nextInt(1, 1000), 1));
+                request.setWeight(BigDecimal.valueOf(random.nextInt(1, 10000), 1));
+                validator.validate(request);
+                yield new Roll(request.getLength(), request.getWeight(), now);
+            }
+        };
+        jsonMapper.writeValueAsBytes(result);
+        return System.nanoTime() - startedAt;
+    }
+}
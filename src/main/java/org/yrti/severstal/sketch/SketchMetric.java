@@ -0,0 +1,13 @@
+package org.yrti.severstal.sketch;
+
+/**
+ * Величины, по которым ведутся дневные скетчи.
+ */
+public enum SketchMetric {
+    /** длина рулонов, добавленных за день */
+    LENGTH,
+    /** вес рулонов, добавленных за день */
+    WEIGHT,
+    /** срок хранения (секунды) рулонов, удаленных за день */
+    LIFESPAN
+}
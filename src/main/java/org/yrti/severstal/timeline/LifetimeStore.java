@@ -0,0 +1,333 @@
+package org.yrti.severstal.timeline;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.zip.CRC32C;
+
+/**
+ * Время жизни всех рулонов на диске, чтобы после перезапуска восстанавливать {@link StockTimeline}
+ * за секунды вместо полного чтения {@code rolls}.
+ * <p>
+ * Файлы каталога:
+ * <ul>
+ *     <li>{@code rolls.snapshot} — записи {@link RollLifetime}, отсортированные по id; читается через {@link MappedByteBuffer};</li>
+ *     <li>{@code rolls.journal} — записи, дописанные после снимка, по одной на событие {@code roll_events};</li>
+ *     <li>{@code rolls.journal.old} — журнал, который в контрольной точке сливается со снимком.</li>
+ * </ul>
+ * Заголовок файла: магическое число, версия, число шардов, число записей, CRC32C записей (у снимка)
+ * и по каждому шарду курсор {@code roll_events} — последнее учтенное событие — вместе с id рулона этого события.
+ * По ним при старте содержимое сверяется с базой и дочитываются более поздние события.
+ * <p>
+ * Снимок заменяется атомарным переименованием, в журнал сначала пишется запись, затем заголовок.
+ * После падения процесса файлы остаются согласованными: недописанная запись не входит в число записей,
+ * а событие, учтенное дважды, ничего не меняет ({@link RollLifetime#merge}).
+ */
+public class LifetimeStore implements Closeable {
+
+    private static final String SNAPSHOT = "rolls.snapshot";
+    private static final String SNAPSHOT_TMP = "rolls.snapshot.tmp";
+    private static final String JOURNAL = "rolls.journal";
+    private static final String JOURNAL_OLD = "rolls.journal.old";
+
+    private static final int MAGIC = 0x524C4C54;
+    // 2: моменты — настоящие микросекунды эпохи, а не московское время, отсчитанное как UTC;
+    // снимок версии 1 не читается, и шкала один раз загружается из базы заново
+    private static final int VERSION = 2;
+    // записей в одном отображении: MappedByteBuffer адресует не больше 2 ГБ
+    private static final int CHUNK_RECORDS = 1 << 25;
+
+    private final Path dir;
+    private final int shardCount;
+    private final int headerSize;
+    private final Object checkpointLock = new Object();
+
+    private FileChannel journal;
+    private long journalCount;
+    private long[] journalCursors;
+    private long[] journalRollIds;
+
+    public record State(long[] cursors, long[] cursorRollIds) {
+    }
+
+    private record Header(long count, long crc, long[] cursors, long[] rollIds) {
+    }
+
+    @FunctionalInterface
+    public interface Sink {
+        void accept(RollLifetime lifetime) throws IOException;
+    }
+
+    public LifetimeStore(Path dir, int shardCount) {
+        this.dir = dir;
+        this.shardCount = shardCount;
+        this.headerSize = 32 + 16 * shardCount;
+    }
+
+    /**
+     * Курсоры сохраненного состояния (по самому свежему файлу) или {@code null}, если снимка нет.
+     * Поврежденный или чужой снимок — {@link IOException} с причиной.
+     */
+    public synchronized State open() throws IOException {
+        Path snapshot = dir.resolve(SNAPSHOT);
+        if (!Files.exists(snapshot)) return null;
+        Header header = readHeader(snapshot, true);
+        for (String name : List.of(JOURNAL_OLD, JOURNAL)) {
+            Path file = dir.resolve(name);
+            if (Files.exists(file)) header = readHeader(file, false);
+        }
+        return new State(header.cursors(), header.rollIds());
+    }
+
+    /**
+     * Открывает журнал на дозапись; если его нет, создает пустой с курсорами последнего файла.
+     */
+    public synchronized void openJournal() throws IOException {
+        Path file = dir.resolve(JOURNAL);
+        if (Files.exists(file)) {
+            Header header = readHeader(file, false);
+            journal = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            journalCount = header.count();
+            journalCursors = header.cursors();
+            journalRollIds = header.rollIds();
+        } else {
+            State state = open();
+            if (state == null) throw new IOException("Нет снимка " + dir.resolve(SNAPSHOT));
+            createJournal(state.cursors(), state.cursorRollIds());
+        }
+    }
+
+    /**
+     * Дописывает в журнал запись события {@code eventId} шарда {@code shard}.
+     */
+    public synchronized void append(int shard, long eventId, long rollId, RollLifetime lifetime) throws IOException {
+        ByteBuffer record = ByteBuffer.allocate(RollLifetime.BYTES);
+        lifetime.write(record);
+        writeFully(journal, record.flip(), headerSize + journalCount * RollLifetime.BYTES);
+        journalCount++;
+        // опоздавшее событие (id меньше курсора) записывается, но курсор назад не двигает
+        if (eventId > journalCursors[shard]) {
+            journalCursors[shard] = eventId;
+            journalRollIds[shard] = rollId;
+        }
+        writeFully(journal, header(journalCount, 0, journalCursors, journalRollIds), 0);
+    }
+
+    /**
+     * Все рулоны (снимок вместе с журналами) по возрастанию id, записи одного рулона слиты.
+     */
+    public void forEachMerged(Sink sink) throws IOException {
+        merge(List.of(JOURNAL_OLD, JOURNAL), sink);
+    }
+
+    /**
+     * Новый снимок с нуля (после полного чтения базы); записи добавляются по возрастанию id.
+     * {@link SnapshotWriter#commit} заменяет им прежний снимок и начинает пустой журнал.
+     */
+    public SnapshotWriter newSnapshot() throws IOException {
+        Files.createDirectories(dir);
+        return new SnapshotWriter(true);
+    }
+
+    /**
+     * Контрольная точка: журнал откладывается в {@code rolls.journal.old} (дозапись продолжается в новый)
+     * и сливается со снимком в новый снимок. Дозапись блокируется только на время переименования.
+     */
+    public void checkpoint() throws IOException {
+        synchronized (checkpointLock) {
+            synchronized (this) {
+                if (journal == null) return;
+                if (!Files.exists(dir.resolve(JOURNAL_OLD))) {
+                    if (journalCount == 0) return;
+                    journal.close();
+                    Files.move(dir.resolve(JOURNAL), dir.resolve(JOURNAL_OLD), StandardCopyOption.ATOMIC_MOVE);
+                    createJournal(journalCursors, journalRollIds);
+                }
+            }
+            Header old = readHeader(dir.resolve(JOURNAL_OLD), false);
+            try (SnapshotWriter writer = new SnapshotWriter(false)) {
+                merge(List.of(JOURNAL_OLD), writer::add);
+                writer.commit(old.cursors(), old.rollIds());
+            }
+            Files.delete(dir.resolve(JOURNAL_OLD));
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (journal != null) {
+            journal.close();
+            journal = null;
+        }
+    }
+
+    public final class SnapshotWriter implements Closeable {
+
+        private final boolean resetJournal;
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20);
+        private final CRC32C crc = new CRC32C();
+        private long position = headerSize;
+        private long count;
+        private long lastId = Long.MIN_VALUE;
+
+        private SnapshotWriter(boolean resetJournal) throws IOException {
+            this.resetJournal = resetJournal;
+            this.channel = FileChannel.open(dir.resolve(SNAPSHOT_TMP), StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        }
+
+        public void add(RollLifetime lifetime) throws IOException {
+            if (lifetime.id() <= lastId) {
+                throw new IllegalArgumentException("Записи снимка должны идти по возрастанию id: " + lifetime.id() + " после " + lastId);
+            }
+            lastId = lifetime.id();
+            if (buffer.remaining() < RollLifetime.BYTES) flush();
+            lifetime.write(buffer);
+            count++;
+        }
+
+        /**
+         * Дописывает заголовок с курсорами, по которым снимок полон, и ставит снимок на место прежнего.
+         */
+        public void commit(long[] cursors, long[] cursorRollIds) throws IOException {
+            flush();
+            writeFully(channel, header(count, crc.getValue(), cursors, cursorRollIds), 0);
+            channel.force(true);
+            channel.close();
+            synchronized (LifetimeStore.this) {
+                if (resetJournal) {
+                    close();
+                    Files.deleteIfExists(dir.resolve(JOURNAL_OLD));
+                    Files.deleteIfExists(dir.resolve(JOURNAL));
+                }
+                Files.move(dir.resolve(SNAPSHOT_TMP), dir.resolve(SNAPSHOT), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            crc.update(buffer.duplicate());
+            position += writeFully(channel, buffer, position);
+            buffer.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (channel.isOpen()) {
+                channel.close();
+                Files.deleteIfExists(dir.resolve(SNAPSHOT_TMP));
+            }
+        }
+    }
+
+    // снимок читается по порядку, записи журналов (их немного) накладываются из сортированной карты
+    private void merge(List<String> journals, Sink sink) throws IOException {
+        TreeMap<Long, RollLifetime> overlay = new TreeMap<>();
+        for (String name : journals) {
+            Path file = dir.resolve(name);
+            if (!Files.exists(file)) continue;
+            forEachRecord(file, readHeader(file, false).count(), lifetime -> overlay.merge(lifetime.id(), lifetime, RollLifetime::merge));
+        }
+        Iterator<RollLifetime> pending = overlay.values().iterator();
+        RollLifetime[] next = {pending.hasNext() ? pending.next() : null};
+        Path snapshot = dir.resolve(SNAPSHOT);
+        forEachRecord(snapshot, readHeader(snapshot, false).count(), lifetime -> {
+            while (next[0] != null && next[0].id() < lifetime.id()) {
+                sink.accept(next[0]);
+                next[0] = pending.hasNext() ? pending.next() : null;
+            }
+            if (next[0] != null && next[0].id() == lifetime.id()) {
+                sink.accept(lifetime.merge(next[0]));
+                next[0] = pending.hasNext() ? pending.next() : null;
+            } else {
+                sink.accept(lifetime);
+            }
+        });
+        while (next[0] != null) {
+            sink.accept(next[0]);
+            next[0] = pending.hasNext() ? pending.next() : null;
+        }
+    }
+
+    private void forEachRecord(Path file, long count, Sink sink) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long position = headerSize;
+            for (long remaining = count; remaining > 0; ) {
+                int records = (int) Math.min(remaining, CHUNK_RECORDS);
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, (long) records * RollLifetime.BYTES);
+                for (int i = 0; i < records; i++) {
+                    sink.accept(RollLifetime.read(buffer, i * RollLifetime.BYTES));
+                }
+                position += (long) records * RollLifetime.BYTES;
+                remaining -= records;
+            }
+        }
+    }
+
+    private Header readHeader(Path file, boolean verifyChecksum) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < headerSize) throw new IOException(file + ": файл короче заголовка");
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, headerSize);
+            if (header.getInt() != MAGIC || header.getInt() != VERSION) throw new IOException(file + ": неизвестный формат");
+            if (header.getInt() != shardCount) throw new IOException(file + ": снят при другом числе шардов");
+            header.getInt();
+            long count = header.getLong();
+            long crc = header.getLong();
+            long[] cursors = new long[shardCount];
+            long[] rollIds = new long[shardCount];
+            for (int i = 0; i < shardCount; i++) cursors[i] = header.getLong();
+            for (int i = 0; i < shardCount; i++) rollIds[i] = header.getLong();
+            // в журнале после падения может остаться недописанная запись сверх числа записей
+            long expected = headerSize + count * RollLifetime.BYTES;
+            if (count < 0 || size < expected || (verifyChecksum && size != expected)) {
+                throw new IOException(file + ": размер " + size + " не соответствует числу записей " + count);
+            }
+            if (verifyChecksum) {
+                CRC32C actual = new CRC32C();
+                for (long position = headerSize; position < size; ) {
+                    long length = Math.min(size - position, (long) CHUNK_RECORDS * RollLifetime.BYTES);
+                    actual.update(channel.map(FileChannel.MapMode.READ_ONLY, position, length));
+                    position += length;
+                }
+                if (actual.getValue() != crc) throw new IOException(file + ": контрольная сумма не совпадает");
+            }
+            return new Header(count, crc, cursors, rollIds);
+        }
+    }
+
+    private void createJournal(long[] cursors, long[] rollIds) throws IOException {
+        journal = FileChannel.open(dir.resolve(JOURNAL), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        journalCount = 0;
+        journalCursors = cursors.clone();
+        journalRollIds = rollIds.clone();
+        writeFully(journal, header(0, 0, journalCursors, journalRollIds), 0);
+    }
+
+    private ByteBuffer header(long count, long crc, long[] cursors, long[] rollIds) {
+        ByteBuffer header = ByteBuffer.allocate(headerSize);
+        header.putInt(MAGIC).putInt(VERSION).putInt(shardCount).putInt(0).putLong(count).putLong(crc);
+        for (long cursor : cursors) header.putLong(cursor);
+        for (long rollId : rollIds) header.putLong(rollId);
+        return header.flip();
+    }
+
+    private static int writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        int written = 0;
+        while (buffer.hasRemaining()) {
+            written += channel.write(buffer, position + written);
+        }
+        return written;
+    }
+}
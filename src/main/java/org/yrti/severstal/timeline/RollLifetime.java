@@ -0,0 +1,47 @@
+package org.yrti.severstal.timeline;
+
+import org.yrti.severstal.model.MoscowTime;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+
+/**
+ * Время жизни рулона — запись снимка {@link LifetimeStore}, ровно {@value #BYTES} байта:
+ * id, длина и вес в тысячных долях ({@code int}), моменты добавления и удаления в микросекундах эпохи
+ * ({@link MoscowTime#toMicros}, как в {@link StockTimeline}). Момент {@code 0} означает, что он неизвестен
+ * (удаление еще не было или запись журнала об удалении не знает момента добавления).
+ */
+public record RollLifetime(long id, int length, int weight, long added, long deleted) {
+
+    public static final int BYTES = 32;
+
+    public static RollLifetime of(long id, BigDecimal length, BigDecimal weight, LocalDateTime addDate, LocalDateTime deleteDate) {
+        return new RollLifetime(id,
+                Math.toIntExact(StockTimeline.toUnits(length)),
+                Math.toIntExact(StockTimeline.toUnits(weight)),
+                addDate == null ? 0 : MoscowTime.toMicros(addDate),
+                deleteDate == null ? 0 : MoscowTime.toMicros(deleteDate));
+    }
+
+    /**
+     * Две записи одного рулона (из снимка и из журнала) в одну: известные моменты не теряются.
+     * Слияние не зависит от порядка и повторов, поэтому одно событие можно учесть дважды.
+     */
+    public RollLifetime merge(RollLifetime other) {
+        return new RollLifetime(id,
+                length != 0 ? length : other.length,
+                weight != 0 ? weight : other.weight,
+                added != 0 ? added : other.added,
+                deleted != 0 ? deleted : other.deleted);
+    }
+
+    void write(ByteBuffer buffer) {
+        buffer.putLong(id).putInt(length).putInt(weight).putLong(added).putLong(deleted);
+    }
+
+    static RollLifetime read(ByteBuffer buffer, int offset) {
+        return new RollLifetime(buffer.getLong(offset), buffer.getInt(offset + 8), buffer.getInt(offset + 12),
+                buffer.getLong(offset + 16), buffer.getLong(offset + 24));
+    }
+}
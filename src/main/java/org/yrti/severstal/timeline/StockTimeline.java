@@ -0,0 +1,247 @@
+package org.yrti.severstal.timeline;
+
+import org.yrti.severstal.model.MoscowTime;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Остатки склада на любой момент времени за {@code O(log n)}.
+ * <p>
+ * Хранит два отсортированных по времени массива: моменты добавления и моменты удаления рулонов,
+ * и к каждому — нарастающую сумму веса. На складе в момент {@code t} рулоны, добавленные не позже {@code t},
+ * минус удаленные не позже {@code t}; обе величины находятся бинарным поиском.
+ * Моменты — микросекунды эпохи ({@link MoscowTime#toMicros}), снаружи — московское время без зоны.
+ * <p>
+ * События почти всегда приходят в порядке времени и дописываются в конец; запоздавшее событие
+ * вставляется со сдвигом хвоста. Память — 32 байта на рулон (время и вес в каждом из двух массивов).
+ * Для загрузки целиком (чтение таблицы или снимка {@link LifetimeStore}) есть {@link Builder}.
+ */
+public class StockTimeline {
+
+    // вес хранится в тысячных долях: так суммы точные и помещаются в long
+    private static final int WEIGHT_SCALE = 3;
+
+    private final Column adds;
+    private final Column deletes;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public StockTimeline() {
+        this(new Column(), new Column());
+    }
+
+    private StockTimeline(Column adds, Column deletes) {
+        this.adds = adds;
+        this.deletes = deletes;
+    }
+
+    public record Stock(long count, BigDecimal totalWeight) {
+    }
+
+    public void added(LocalDateTime at, BigDecimal weight) {
+        lock.writeLock().lock();
+        try {
+            adds.insert(MoscowTime.toMicros(at), toUnits(weight));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void deleted(LocalDateTime at, BigDecimal weight) {
+        lock.writeLock().lock();
+        try {
+            deletes.insert(MoscowTime.toMicros(at), toUnits(weight));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Добавляет содержимое другой временной шкалы (загрузку очередного шарда) слиянием за линейное время.
+     */
+    public void merge(StockTimeline other) {
+        lock.writeLock().lock();
+        try {
+            adds.merge(other.adds);
+            deletes.merge(other.deletes);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public Stock at(LocalDateTime at) {
+        long t = MoscowTime.toMicros(at);
+        lock.readLock().lock();
+        try {
+            int added = adds.countUpTo(t);
+            int deleted = deletes.countUpTo(t);
+            long weight = adds.weightOfFirst(added) - deletes.weightOfFirst(deleted);
+            return new Stock(added - deleted, BigDecimal.valueOf(weight, WEIGHT_SCALE));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return adds.size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Сборка шкалы из событий в произвольном порядке: события дописываются в конец,
+     * а сортировка и нарастающие суммы считаются один раз в {@link #build()}, без вставок со сдвигом.
+     */
+    public static final class Builder {
+
+        private final Column adds = new Column();
+        private final Column deletes = new Column();
+
+        public void added(long micros, long units) {
+            adds.append(micros, units);
+        }
+
+        public void deleted(long micros, long units) {
+            deletes.append(micros, units);
+        }
+
+        public StockTimeline build() {
+            adds.sortAndSum();
+            deletes.sortAndSum();
+            return new StockTimeline(adds, deletes);
+        }
+    }
+
+    static long toUnits(BigDecimal weight) {
+        return weight.setScale(WEIGHT_SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    /**
+     * Отсортированные моменты событий и нарастающая сумма веса ({@code prefix[i]} — вес событий {@code 0..i}).
+     */
+    private static final class Column {
+
+        private long[] times = new long[1024];
+        private long[] prefix = new long[1024];
+        private int size;
+
+        void insert(long time, long weight) {
+            ensureCapacity(size + 1);
+            int pos = upperBound(time);
+            if (pos < size) {
+                System.arraycopy(times, pos, times, pos + 1, size - pos);
+                System.arraycopy(prefix, pos, prefix, pos + 1, size - pos);
+            }
+            times[pos] = time;
+            size++;
+            long running = pos == 0 ? 0 : prefix[pos - 1];
+            // после вставки в середину пересчитываем хвост; для событий в конце это одна итерация
+            prefix[pos] = running + weight;
+            for (int i = pos + 1; i < size; i++) {
+                prefix[i] += weight;
+            }
+        }
+
+        // для Builder: prefix пока хранит вес самого события, суммы считает sortAndSum
+        void append(long time, long weight) {
+            ensureCapacity(size + 1);
+            times[size] = time;
+            prefix[size] = weight;
+            size++;
+        }
+
+        void sortAndSum() {
+            if (!isSorted()) {
+                mergeSort(times, prefix, Arrays.copyOf(times, size), Arrays.copyOf(prefix, size), 0, size);
+            }
+            for (int i = 1; i < size; i++) {
+                prefix[i] += prefix[i - 1];
+            }
+        }
+
+        private boolean isSorted() {
+            for (int i = 1; i < size; i++) {
+                if (times[i - 1] > times[i]) return false;
+            }
+            return true;
+        }
+
+        // сортировка слиянием по времени, вес переставляется вместе со временем; src — копия [from, to)
+        private static void mergeSort(long[] times, long[] weights, long[] srcTimes, long[] srcWeights, int from, int to) {
+            if (to - from < 2) return;
+            int mid = (from + to) >>> 1;
+            mergeSort(srcTimes, srcWeights, times, weights, from, mid);
+            mergeSort(srcTimes, srcWeights, times, weights, mid, to);
+            if (srcTimes[mid - 1] <= srcTimes[mid]) {
+                System.arraycopy(srcTimes, from, times, from, to - from);
+                System.arraycopy(srcWeights, from, weights, from, to - from);
+                return;
+            }
+            for (int i = from, l = from, r = mid; i < to; i++) {
+                if (r >= to || (l < mid && srcTimes[l] <= srcTimes[r])) {
+                    times[i] = srcTimes[l];
+                    weights[i] = srcWeights[l++];
+                } else {
+                    times[i] = srcTimes[r];
+                    weights[i] = srcWeights[r++];
+                }
+            }
+        }
+
+        void merge(Column other) {
+            if (other.size == 0) return;
+            long[] mergedTimes = new long[Math.max(size + other.size, 1024)];
+            long[] mergedPrefix = new long[mergedTimes.length];
+            int i = 0, j = 0, k = 0;
+            long running = 0;
+            while (i < size || j < other.size) {
+                if (j >= other.size || (i < size && times[i] <= other.times[j])) {
+                    running += prefix[i] - (i == 0 ? 0 : prefix[i - 1]);
+                    mergedTimes[k] = times[i++];
+                } else {
+                    running += other.prefix[j] - (j == 0 ? 0 : other.prefix[j - 1]);
+                    mergedTimes[k] = other.times[j++];
+                }
+                mergedPrefix[k++] = running;
+            }
+            times = mergedTimes;
+            prefix = mergedPrefix;
+            size = k;
+        }
+
+        int countUpTo(long time) {
+            return upperBound(time);
+        }
+
+        long weightOfFirst(int count) {
+            return count == 0 ? 0 : prefix[count - 1];
+        }
+
+        // первый индекс с временем строго больше time
+        private int upperBound(long time) {
+            if (size == 0 || times[size - 1] <= time) return size;
+            int low = 0, high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (times[mid] <= time) low = mid + 1;
+                else high = mid;
+            }
+            return low;
+        }
+
+        private void ensureCapacity(int capacity) {
+            if (capacity > times.length) {
+                int newLength = Math.max(capacity, times.length + (times.length >> 1));
+                times = Arrays.copyOf(times, newLength);
+                prefix = Arrays.copyOf(prefix, newLength);
+            }
+        }
+    }
+}
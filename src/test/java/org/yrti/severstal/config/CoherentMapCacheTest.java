@@ -0,0 +1,42 @@
+package org.yrti.severstal.config;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CoherentMapCacheTest {
+
+    @Test
+    @DisplayName("get: при переполнении вытесняются отдельные записи, а не весь кэш")
+    void get_OverMaxEntries_EvictsEntriesNotWholeCache() {
+        // Given
+        CoherentMapCache cache = new CoherentMapCache("statistics", 100, false);
+
+        // When
+        for (int i = 0; i < 250; i++) {
+            int key = i;
+            cache.get(key, () -> "значение " + key);
+        }
+
+        // Then
+        assertEquals(100, cache.getNativeCache().size());
+    }
+
+    @Test
+    @DisplayName("get: значение, посчитанное до удаления записей, в кэш не попадает")
+    void get_EvictedDuringCalculation_NotCached() {
+        // Given
+        CoherentMapCache cache = new CoherentMapCache("statistics", 100, false);
+
+        // When
+        String value = cache.get("январь", () -> {
+            cache.evictIf(key -> true);
+            return "январь до изменения";
+        });
+
+        // Then
+        assertEquals("январь до изменения", value);
+        assertNull(cache.get("январь"));
+    }
+}
@@ -0,0 +1,74 @@
+package org.yrti.severstal.dao;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Версия данных по журналу событий на локальном PostgreSQL. Каждый тест идет в транзакции, которая откатывается:
+ * журнал очищается в ее начале, id событий задаются явно.
+ */
+@SpringBootTest(properties = "severstal.warmup.enabled=false")
+@Transactional
+class RollEventRepositoryTest {
+
+    @Autowired
+    private RollEventRepository rollEventRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM roll_events");
+    }
+
+    @Test
+    @DisplayName("dataVersion: пустой журнал — нулевая версия")
+    void dataVersion_EmptyJournal() {
+        // When и Then
+        assertEquals("0.0", rollEventRepository.dataVersion());
+    }
+
+    @Test
+    @DisplayName("dataVersion: событие с меньшим id, закоммиченное позже, меняет версию")
+    void dataVersion_LateCommitBelowMaxId_VersionChanges() {
+        // Given
+        event(10);
+        event(12);
+        String before = rollEventRepository.dataVersion();
+
+        // When: транзакция, получившая id 11, коммитится после транзакции с id 12
+        event(11);
+
+        // Then
+        assertEquals("12.2", before);
+        assertEquals("12.3", rollEventRepository.dataVersion());
+    }
+
+    @Test
+    @DisplayName("transactionHorizon: xid текущей транзакции, пока она идет, xmin базы не выше него")
+    void transactionHorizon_CurrentXid() {
+        // Given: вставка выдает транзакции теста xid
+        event(1);
+        long xid = jdbcTemplate.queryForObject("SELECT pg_current_xact_id()::text::bigint", Long.class);
+
+        // When
+        long horizon = rollEventRepository.transactionHorizon();
+        long oldest = rollEventRepository.oldestRunningTransaction();
+
+        // Then
+        assertEquals(xid, horizon);
+        assertTrue(oldest <= xid);
+    }
+
+    private void event(long id) {
+        jdbcTemplate.update("INSERT INTO roll_events (id, roll_id, type, length, weight, occurred_at) VALUES (?, 1, 'CREATED', 1, 1, now())", id);
+    }
+}
@@ -0,0 +1,52 @@
+package org.yrti.severstal.dao;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.yrti.severstal.dto.RollFilterRequest;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RollQueryRepositoryImplTest {
+
+    @Test
+    @DisplayName("template: Без фильтров — запрос без условий")
+    void template_NoFilter_SelectAll() {
+        assertEquals(0, RollQueryRepositoryImpl.mask(new RollFilterRequest()));
+        assertEquals("SELECT r FROM Roll r", RollQueryRepositoryImpl.template(0));
+    }
+
+    @Test
+    @DisplayName("template: Одинаковый набор полей — одна и та же строка запроса")
+    void template_SameFields_SameQuery() {
+        // Given
+        RollFilterRequest first = new RollFilterRequest();
+        first.setIdMin(1L);
+        first.setWeightMax(new BigDecimal("200"));
+        RollFilterRequest second = new RollFilterRequest();
+        second.setIdMin(500L);
+        second.setWeightMax(new BigDecimal("10"));
+
+        // When
+        int mask = RollQueryRepositoryImpl.mask(first);
+
+        // Then
+        assertEquals(mask, RollQueryRepositoryImpl.mask(second));
+        assertEquals("SELECT r FROM Roll r WHERE r.id >= :idMin AND r.weight <= :weightMax", RollQueryRepositoryImpl.template(mask));
+    }
+
+    @Test
+    @DisplayName("template: Склад добавляет условие по складу")
+    void template_Warehouse_Included() {
+        // Given
+        RollFilterRequest filter = new RollFilterRequest();
+        filter.setWarehouse("north");
+
+        // When
+        String template = RollQueryRepositoryImpl.template(RollQueryRepositoryImpl.mask(filter));
+
+        // Then
+        assertEquals("SELECT r FROM Roll r WHERE r.warehouse = :warehouse", template);
+    }
+}
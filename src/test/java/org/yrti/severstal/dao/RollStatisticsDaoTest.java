@@ -0,0 +1,187 @@
+package org.yrti.severstal.dao;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+import org.yrti.severstal.dto.RollFilterRequest;
+import org.yrti.severstal.dto.RollStatisticsAggregate;
+import org.yrti.severstal.dto.RollStatisticsResponse;
+import org.yrti.severstal.model.Roll;
+import org.yrti.severstal.service.RollStatisticsCalculator;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Агрегирующий запрос статистики на локальном PostgreSQL. Каждый тест идет в транзакции, которая откатывается:
+ * таблицы рулонов очищаются в ее начале, поэтому видны только рулоны теста.
+ * Период — с 08:00 10 марта по 18:00 12 марта (московское время), три дня.
+ */
+@SpringBootTest(properties = "severstal.warmup.enabled=false")
+@Transactional
+class RollStatisticsDaoTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2026, 3, 10, 8, 0);
+    private static final LocalDateTime END = LocalDateTime.of(2026, 3, 12, 18, 0);
+
+    @Autowired
+    private RollStatisticsDao rollStatisticsDao;
+
+    @Autowired
+    private RollRepository rollRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Roll beforePeriod;
+    private Roll addedAtStart;
+    private Roll deletedAtStart;
+    private Roll deletedAtEnd;
+    private Roll deletedWithinDay;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM rolls");
+        jdbcTemplate.update("DELETE FROM rolls_archive");
+        beforePeriod = roll("1", "10", "2026-03-01T00:00:00", null);
+        addedAtStart = roll("2", "20", "2026-03-10T08:00:00", null);
+        deletedAtStart = roll("3", "30", "2026-03-10T07:59:59", "2026-03-10T08:00:00");
+        deletedAtEnd = roll("4", "40", "2026-03-11T00:00:00", "2026-03-12T18:00:00");
+        deletedWithinDay = roll("7", "70", "2026-03-11T10:00:00", "2026-03-11T12:00:00");
+        // вне окна: добавлен после конца и удален до начала периода
+        roll("5", "50", "2026-03-12T18:00:01", null);
+        roll("6", "60", "2026-03-05T00:00:00", "2026-03-10T07:59:59");
+    }
+
+    @Test
+    @DisplayName("aggregate: границы периода включаются и для добавления, и для удаления")
+    void aggregate_WindowEdges() {
+        // When
+        RollStatisticsAggregate aggregate = rollStatisticsDao.aggregate(START, END, null);
+
+        // Then
+        assertEquals(3, aggregate.addedCount());
+        assertEquals(3, aggregate.deletedCount());
+        assertEquals(5, aggregate.onStockCount());
+        assertEquals(0, new BigDecimal("17").compareTo(aggregate.sumLength()));
+        assertEquals(0, new BigDecimal("170").compareTo(aggregate.sumWeight()));
+        assertEquals(0, BigDecimal.ONE.compareTo(aggregate.minLength()));
+        assertEquals(0, new BigDecimal("7").compareTo(aggregate.maxLength()));
+        assertEquals(0, BigDecimal.TEN.compareTo(aggregate.minWeight()));
+        assertEquals(0, new BigDecimal("70").compareTo(aggregate.maxWeight()));
+    }
+
+    @Test
+    @DisplayName("aggregate: срок хранения — только у рулонов, удаленных в периоде, в целых секундах")
+    void aggregate_LifeSpans() {
+        // When
+        RollStatisticsAggregate aggregate = rollStatisticsDao.aggregate(START, END, null);
+
+        // Then: 1 секунда у удаленного в начале периода, 1 день 18 часов у удаленного в конце
+        assertEquals(1L, aggregate.minLifeSpanSeconds());
+        assertEquals(42 * 3600L, aggregate.maxLifeSpanSeconds());
+    }
+
+    @Test
+    @DisplayName("aggregate: дневные остатки по московским дням, удаленный рулон остается в дне удаления")
+    void aggregate_DailyStock() {
+        // When
+        RollStatisticsAggregate aggregate = rollStatisticsDao.aggregate(START, END, null);
+
+        // Then
+        assertEquals(LocalDate.of(2026, 3, 10), aggregate.firstDay());
+        assertArrayEquals(new long[]{3, 4, 3}, aggregate.dailyCount());
+        assertWeights(new String[]{"60", "140", "70"}, aggregate.dailyWeight());
+    }
+
+    @Test
+    @DisplayName("aggregate: дни с минимумом и максимумом остатков, при равенстве — более ранний")
+    void aggregate_MinMaxDays() {
+        // When
+        RollStatisticsResponse stats = RollStatisticsCalculator.toResponse(rollStatisticsDao.aggregate(START, END, null));
+
+        // Then
+        assertEquals(LocalDate.of(2026, 3, 10), stats.getDayWithMinCount());
+        assertEquals(LocalDate.of(2026, 3, 11), stats.getDayWithMaxCount());
+        assertEquals(LocalDate.of(2026, 3, 10), stats.getDayWithMinWeight());
+        assertEquals(LocalDate.of(2026, 3, 11), stats.getDayWithMaxWeight());
+    }
+
+    @Test
+    @DisplayName("aggregate: совпадает с расчетом в памяти по тем же рулонам")
+    void aggregate_SameAsInMemoryCalculation() {
+        // Given
+        List<Roll> onStock = List.of(beforePeriod, addedAtStart, deletedAtStart, deletedAtEnd, deletedWithinDay);
+
+        // When
+        RollStatisticsResponse fromDatabase = RollStatisticsCalculator.toResponse(rollStatisticsDao.aggregate(START, END, null));
+        RollStatisticsResponse inMemory = RollStatisticsCalculator.calculate(onStock, START, END);
+
+        // Then
+        assertEquals(inMemory.getAddedCount(), fromDatabase.getAddedCount());
+        assertEquals(inMemory.getDeletedCount(), fromDatabase.getDeletedCount());
+        assertEquals(inMemory.getAverageLength(), fromDatabase.getAverageLength());
+        assertEquals(inMemory.getAverageWeight(), fromDatabase.getAverageWeight());
+        assertEquals(0, inMemory.getTotalWeight().compareTo(fromDatabase.getTotalWeight()));
+        assertEquals(inMemory.getMinLifeSpanSeconds(), fromDatabase.getMinLifeSpanSeconds());
+        assertEquals(inMemory.getMaxLifeSpanSeconds(), fromDatabase.getMaxLifeSpanSeconds());
+        assertEquals(inMemory.getDayWithMinCount(), fromDatabase.getDayWithMinCount());
+        assertEquals(inMemory.getDayWithMaxCount(), fromDatabase.getDayWithMaxCount());
+        assertEquals(inMemory.getDayWithMinWeight(), fromDatabase.getDayWithMinWeight());
+        assertEquals(inMemory.getDayWithMaxWeight(), fromDatabase.getDayWithMaxWeight());
+    }
+
+    @Test
+    @DisplayName("aggregate: фильтр сужает и итоги, и дневные остатки")
+    void aggregate_Filter() {
+        // Given
+        RollFilterRequest filter = new RollFilterRequest();
+        filter.setWeightMin(new BigDecimal("40"));
+
+        // When
+        RollStatisticsAggregate aggregate = rollStatisticsDao.aggregate(START, END, filter);
+
+        // Then
+        assertEquals(2, aggregate.onStockCount());
+        assertEquals(2, aggregate.addedCount());
+        assertArrayEquals(new long[]{0, 2, 1}, aggregate.dailyCount());
+    }
+
+    @Test
+    @DisplayName("aggregate: период без рулонов — нули, экстремумов и сроков нет")
+    void aggregate_EmptyPeriod() {
+        // When
+        RollStatisticsAggregate aggregate = rollStatisticsDao.aggregate(
+                LocalDateTime.of(2025, 1, 1, 0, 0), LocalDateTime.of(2025, 1, 2, 23, 59), null);
+
+        // Then
+        assertEquals(0, aggregate.onStockCount());
+        assertEquals(0, aggregate.addedCount());
+        assertNull(aggregate.minLength());
+        assertNull(aggregate.minLifeSpanSeconds());
+        assertArrayEquals(new long[]{0, 0}, aggregate.dailyCount());
+        assertNull(RollStatisticsCalculator.toResponse(aggregate).getDayWithMaxCount());
+    }
+
+    private Roll roll(String length, String weight, String addDate, String deleteDate) {
+        Roll roll = new Roll(new BigDecimal(length), new BigDecimal(weight), LocalDateTime.parse(addDate));
+        roll.setDeleteDate(deleteDate == null ? null : LocalDateTime.parse(deleteDate));
+        return rollRepository.saveAndFlush(roll);
+    }
+
+    private static void assertWeights(String[] expected, BigDecimal[] actual) {
+        assertEquals(expected.length, actual.length);
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(0, new BigDecimal(expected[i]).compareTo(actual[i]), "вес в день " + i + ": " + Arrays.toString(actual));
+        }
+    }
+}
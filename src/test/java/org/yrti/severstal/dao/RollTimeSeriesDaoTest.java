@@ -0,0 +1,190 @@
+package org.yrti.severstal.dao;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+import org.yrti.severstal.dto.RollTimeSeriesPoint;
+import org.yrti.severstal.dto.TimeSeriesGranularity;
+import org.yrti.severstal.model.Roll;
+import org.yrti.severstal.service.RollTimeSeriesService;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Временной ряд остатков на локальном PostgreSQL. Каждый тест идет в транзакции, которая откатывается:
+ * таблицы рулонов очищаются в ее начале, поэтому видны только рулоны теста.
+ * Моменты рулонов и границы корзин — московское время.
+ */
+@SpringBootTest(properties = "severstal.warmup.enabled=false")
+@Transactional
+class RollTimeSeriesDaoTest {
+
+    @Autowired
+    private RollTimeSeriesDao rollTimeSeriesDao;
+
+    @Autowired
+    private RollTimeSeriesService rollTimeSeriesService;
+
+    @Autowired
+    private RollRepository rollRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM rolls");
+        jdbcTemplate.update("DELETE FROM rolls_archive");
+    }
+
+    @Test
+    @DisplayName("timeSeries по дням: рулон на границе корзины относится к корзине, которая с нее начинается")
+    void timeSeries_Day_BucketBoundaries() {
+        // Given
+        roll("1", "2026-03-09T23:59:59", null);
+        roll("2", "2026-03-11T00:00:00", "2026-03-11T23:59:59");
+        roll("4", "2026-03-10T12:00:00", "2026-03-12T00:00:00");
+        roll("16", "2026-03-13T00:00:00", null);
+
+        // When
+        List<RollTimeSeriesPoint> series = rollTimeSeriesDao.timeSeries(
+                at("2026-03-10T00:00:00"), at("2026-03-12T00:00:00"), TimeSeriesGranularity.DAY);
+
+        // Then
+        assertEquals(3, series.size());
+        assertPoint(series.get(0), "2026-03-10T00:00:00", 2, "5", 1, 0);
+        assertPoint(series.get(1), "2026-03-11T00:00:00", 3, "7", 1, 1);
+        assertPoint(series.get(2), "2026-03-12T00:00:00", 2, "5", 0, 1);
+    }
+
+    @Test
+    @DisplayName("timeSeries: рулоны до диапазона попадают в служебную корзину — в остатках есть, в добавленных нет")
+    void timeSeries_BeforeRange_PrecedingBucketOnly() {
+        // Given
+        roll("1", "2026-01-01T00:00:00", null);
+        roll("2", "2026-02-01T00:00:00", "2026-03-10T10:00:00");
+        roll("8", "2026-03-01T00:00:00", "2026-03-05T00:00:00");
+
+        // When
+        List<RollTimeSeriesPoint> series = rollTimeSeriesDao.timeSeries(
+                at("2026-03-10T00:00:00"), at("2026-03-11T00:00:00"), TimeSeriesGranularity.DAY);
+
+        // Then: удаленный до диапазона рулон не виден совсем, удаленный в диапазоне — до своей корзины включительно
+        assertEquals(2, series.size());
+        assertPoint(series.get(0), "2026-03-10T00:00:00", 2, "3", 0, 1);
+        assertPoint(series.get(1), "2026-03-11T00:00:00", 1, "1", 0, 0);
+    }
+
+    @Test
+    @DisplayName("timeSeries: начало не на границе — первая корзина начинается с усечения начала")
+    void timeSeries_UnalignedStart_TruncatedFirstBucket() {
+        // Given
+        roll("1", "2026-03-10T01:00:00", null);
+
+        // When
+        List<RollTimeSeriesPoint> series = rollTimeSeriesDao.timeSeries(
+                at("2026-03-10T15:30:00"), at("2026-03-11T09:00:00"), TimeSeriesGranularity.DAY);
+
+        // Then
+        assertEquals(2, series.size());
+        assertPoint(series.get(0), "2026-03-10T00:00:00", 1, "1", 1, 0);
+        assertPoint(series.get(1), "2026-03-11T00:00:00", 1, "1", 0, 0);
+    }
+
+    @Test
+    @DisplayName("timeSeries по часам")
+    void timeSeries_Hour() {
+        // Given
+        roll("1", "2026-03-10T09:59:59", "2026-03-10T10:00:00");
+        roll("2", "2026-03-10T10:30:00", null);
+
+        // When
+        List<RollTimeSeriesPoint> series = rollTimeSeriesDao.timeSeries(
+                at("2026-03-10T10:00:00"), at("2026-03-10T11:00:00"), TimeSeriesGranularity.HOUR);
+
+        // Then
+        assertEquals(2, series.size());
+        assertPoint(series.get(0), "2026-03-10T10:00:00", 2, "3", 1, 1);
+        assertPoint(series.get(1), "2026-03-10T11:00:00", 1, "2", 0, 0);
+    }
+
+    @Test
+    @DisplayName("timeSeries по неделям: корзины начинаются с понедельника")
+    void timeSeries_Week() {
+        // Given: 2026-03-09 — понедельник
+        roll("1", "2026-03-08T23:00:00", null);
+        roll("2", "2026-03-09T00:00:00", "2026-03-16T00:00:00");
+
+        // When
+        List<RollTimeSeriesPoint> series = rollTimeSeriesDao.timeSeries(
+                at("2026-03-11T00:00:00"), at("2026-03-17T00:00:00"), TimeSeriesGranularity.WEEK);
+
+        // Then
+        assertEquals(2, series.size());
+        assertPoint(series.get(0), "2026-03-09T00:00:00", 2, "3", 1, 0);
+        assertPoint(series.get(1), "2026-03-16T00:00:00", 2, "3", 0, 1);
+    }
+
+    @Test
+    @DisplayName("timeSeries по месяцам")
+    void timeSeries_Month() {
+        // Given
+        roll("1", "2026-02-28T23:59:59", "2026-03-01T00:00:00");
+        roll("2", "2026-03-31T23:59:59", null);
+
+        // When
+        List<RollTimeSeriesPoint> series = rollTimeSeriesDao.timeSeries(
+                at("2026-02-15T00:00:00"), at("2026-03-01T00:00:00"), TimeSeriesGranularity.MONTH);
+
+        // Then
+        assertEquals(2, series.size());
+        assertPoint(series.get(0), "2026-02-01T00:00:00", 1, "1", 1, 0);
+        assertPoint(series.get(1), "2026-03-01T00:00:00", 2, "3", 1, 1);
+    }
+
+    @Test
+    @DisplayName("getTimeSeries: слишком много корзин — ошибка до запроса к базе")
+    void getTimeSeries_TooManyBuckets_Rejected() {
+        // When и Then
+        IllegalArgumentException error = assertThrows(IllegalArgumentException.class, () -> rollTimeSeriesService.getTimeSeries(
+                at("2025-01-01T00:00:00"), at("2026-03-01T00:00:00"), TimeSeriesGranularity.HOUR));
+        assertTrue(error.getMessage().startsWith("Слишком много интервалов"));
+        assertEquals(425, rollTimeSeriesService.getTimeSeries(
+                at("2025-01-01T00:00:00"), at("2026-03-01T00:00:00"), TimeSeriesGranularity.DAY).size());
+    }
+
+    @Test
+    @DisplayName("getTimeSeries: начало позже окончания — ошибка")
+    void getTimeSeries_StartAfterEnd_Rejected() {
+        // When и Then
+        assertThrows(IllegalArgumentException.class, () -> rollTimeSeriesService.getTimeSeries(
+                at("2026-03-02T00:00:00"), at("2026-03-01T00:00:00"), TimeSeriesGranularity.DAY));
+    }
+
+    private void roll(String weight, String addDate, String deleteDate) {
+        Roll roll = new Roll(BigDecimal.TEN, new BigDecimal(weight), at(addDate));
+        roll.setDeleteDate(deleteDate == null ? null : at(deleteDate));
+        rollRepository.saveAndFlush(roll);
+    }
+
+    private static LocalDateTime at(String value) {
+        return LocalDateTime.parse(value);
+    }
+
+    private static void assertPoint(RollTimeSeriesPoint point, String bucketStart, long stockCount, String stockWeight,
+                                    long addedCount, long deletedCount) {
+        assertEquals(at(bucketStart), point.bucketStart());
+        assertEquals(stockCount, point.stockCount(), "остаток в корзине " + bucketStart);
+        assertEquals(0, new BigDecimal(stockWeight).compareTo(point.stockWeight()), "вес остатка в корзине " + bucketStart);
+        assertEquals(addedCount, point.addedCount(), "добавлено в корзине " + bucketStart);
+        assertEquals(deletedCount, point.deletedCount(), "удалено в корзине " + bucketStart);
+    }
+}
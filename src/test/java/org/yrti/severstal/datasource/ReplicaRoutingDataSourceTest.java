@@ -0,0 +1,197 @@
+package org.yrti.severstal.datasource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.yrti.severstal.event.RollChangedEvent;
+import org.yrti.severstal.model.Roll;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ReplicaRoutingDataSourceTest {
+
+    @Mock
+    private DataSource primary;
+
+    @Mock
+    private DataSource firstReplica;
+
+    @Mock
+    private DataSource secondReplica;
+
+    @Mock
+    private Connection connection;
+
+    private ReadYourWritesTracker readYourWrites;
+    private ReplicaRoutingDataSource dataSource;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        MockitoAnnotations.openMocks(this);
+        when(connection.isValid(anyInt())).thenReturn(true);
+        when(firstReplica.getConnection()).thenReturn(connection);
+        when(secondReplica.getConnection()).thenReturn(connection);
+        readYourWrites = new ReadYourWritesTracker(Duration.ofMillis(200));
+        dataSource = new ReplicaRoutingDataSource(primary, List.of(firstReplica, secondReplica), readYourWrites);
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+    }
+
+    @Test
+    @DisplayName("determineTarget: запись и чтение вне readOnly-транзакции идут на основную базу")
+    void determineTarget_NotReadOnly_Primary() {
+        // When и Then
+        assertSame(primary, dataSource.determineTarget());
+    }
+
+    @Test
+    @DisplayName("determineTarget: readOnly-транзакции распределяются по репликам по кругу")
+    void determineTarget_ReadOnly_ReplicasRoundRobin() {
+        // Given
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        // When
+        List<DataSource> targets = targets(4);
+
+        // Then
+        assertEquals(List.of(firstReplica, secondReplica, firstReplica, secondReplica), targets);
+    }
+
+    @Test
+    @DisplayName("determineTarget: readOnly-чтение, закрепленное за основной базой, на реплику не идет")
+    void determineTarget_PinnedToPrimary_Primary() {
+        // Given
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        // When
+        List<DataSource> pinned = PrimaryContext.call(() -> targets(2));
+
+        // Then: после закрепленного чтения ротация продолжается
+        assertEquals(List.of(primary, primary), pinned);
+        assertFalse(PrimaryContext.isPinned());
+        assertSame(firstReplica, dataSource.determineTarget());
+    }
+
+    @Test
+    @DisplayName("checkHealth: недоступная реплика выходит из ротации и возвращается, когда снова отвечает")
+    void checkHealth_ReplicaDownThenUp_ExcludedThenReturned() throws SQLException {
+        // Given
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        when(firstReplica.getConnection()).thenThrow(new SQLException("connection refused")).thenReturn(connection);
+
+        // When
+        dataSource.checkHealth();
+        List<DataSource> whileDown = targets(3);
+        dataSource.checkHealth();
+        List<DataSource> afterRecovery = targets(2);
+
+        // Then
+        assertEquals(List.of(secondReplica, secondReplica, secondReplica), whileDown);
+        assertTrue(afterRecovery.containsAll(List.of(firstReplica, secondReplica)));
+    }
+
+    @Test
+    @DisplayName("checkHealth: реплика, соединение которой не проходит проверку, тоже исключается")
+    void checkHealth_InvalidConnection_Excluded() throws SQLException {
+        // Given
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        Connection invalid = mock(Connection.class);
+        when(secondReplica.getConnection()).thenReturn(invalid);
+
+        // When
+        dataSource.checkHealth();
+
+        // Then
+        assertEquals(List.of(firstReplica, firstReplica), targets(2));
+        verify(invalid).close();
+    }
+
+    @Test
+    @DisplayName("determineTarget: когда недоступны все реплики, чтение уходит на основную базу")
+    void determineTarget_AllReplicasDown_FailoverToPrimary() throws SQLException {
+        // Given
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        when(firstReplica.getConnection()).thenThrow(new SQLException("connection refused"));
+        when(secondReplica.getConnection()).thenThrow(new SQLException("connection refused"));
+
+        // When
+        dataSource.checkHealth();
+
+        // Then
+        assertEquals(List.of(primary, primary), targets(2));
+    }
+
+    @Test
+    @DisplayName("determineTarget: клиент после своей записи читает с основной базы, пока не истекло окно")
+    void determineTarget_RecentWrite_PrimaryWithinWindow() throws Exception {
+        // Given
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        asClient("writer", () -> {
+            readYourWrites.onRollChanged(new RollChangedEvent(RollChangedEvent.Type.CREATED, new Roll()));
+            return null;
+        });
+
+        // When
+        DataSource writerWithinWindow = asClient("writer", dataSource::determineTarget);
+        DataSource otherClient = asClient("reader", dataSource::determineTarget);
+        Thread.sleep(300);
+        DataSource writerAfterWindow = asClient("writer", dataSource::determineTarget);
+
+        // Then
+        assertSame(primary, writerWithinWindow);
+        assertNotSame(primary, otherClient);
+        assertNotSame(primary, writerAfterWindow);
+    }
+
+    @Test
+    @DisplayName("checkHealth: истекшие окна read-your-writes удаляются")
+    void checkHealth_ExpiredWindows_Removed() throws Exception {
+        // Given
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        asClient("writer", () -> {
+            readYourWrites.onRollChanged(new RollChangedEvent(RollChangedEvent.Type.DELETED, new Roll()));
+            return null;
+        });
+        Thread.sleep(300);
+
+        // When
+        dataSource.checkHealth();
+
+        // Then
+        assertFalse(asClient("writer", readYourWrites::recentlyWrote));
+    }
+
+    private List<DataSource> targets(int count) {
+        List<DataSource> targets = new ArrayList<>();
+        for (int i = 0; i < count; i++) targets.add(dataSource.determineTarget());
+        return targets;
+    }
+
+    // выполняет действие внутри фильтра, как запрос клиента с заголовком X-Client-Id
+    private <T> T asClient(String client, Supplier<T> action) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader(ReadYourWritesTracker.CLIENT_HEADER, client);
+        List<T> result = new ArrayList<>();
+        readYourWrites.doFilter(request, new MockHttpServletResponse(), (req, res) -> result.add(action.get()));
+        return result.getFirst();
+    }
+}
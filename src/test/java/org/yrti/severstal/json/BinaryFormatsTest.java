@@ -0,0 +1,70 @@
+package org.yrti.severstal.json;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.yrti.severstal.dto.RollStatisticsResponse;
+import org.yrti.severstal.model.Roll;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+import tools.jackson.databind.module.SimpleModule;
+import tools.jackson.dataformat.cbor.CBORMapper;
+import tools.jackson.dataformat.smile.SmileMapper;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BinaryFormatsTest {
+
+    private static SimpleModule module() {
+        return new SimpleModule()
+                .addSerializer(Roll.class, new RollJacksonComponent.RollSerializer())
+                .addSerializer(RollStatisticsResponse.class, new RollJacksonComponent.StatisticsSerializer());
+    }
+
+    private final JsonMapper jsonMapper = JsonMapper.builder().addModule(module()).build();
+    private final CBORMapper cborMapper = CBORMapper.builder().addModule(module()).build();
+    private final SmileMapper smileMapper = SmileMapper.builder().addModule(module()).build();
+
+    @Test
+    @DisplayName("CBOR и Smile: числа без потерь, даты в секундах эпохи")
+    void binaryFormats_RoundTrip() {
+        // Given
+        LocalDateTime addDate = LocalDateTime.of(2026, 1, 5, 7, 3, 9);
+        Roll roll = new Roll(new BigDecimal("10.555"), new BigDecimal("100.222"), addDate);
+        roll.setId(42L);
+        long epochSeconds = addDate.atZone(ZoneId.of("Europe/Moscow")).toEpochSecond();
+
+        for (ObjectMapper mapper : List.of(cborMapper, smileMapper)) {
+            // When
+            JsonNode node = mapper.readTree(mapper.writeValueAsBytes(roll));
+
+            // Then
+            assertEquals(42L, node.get("id").asLong());
+            assertEquals(0, new BigDecimal("10.555").compareTo(node.get("length").decimalValue()));
+            assertEquals(0, new BigDecimal("100.222").compareTo(node.get("weight").decimalValue()));
+            assertEquals(epochSeconds, node.get("addDate").asLong());
+            assertTrue(node.get("deleteDate").isNull());
+        }
+    }
+
+    @Test
+    @DisplayName("CBOR: дни статистики в днях эпохи")
+    void cbor_StatisticsDays() {
+        // Given
+        RollStatisticsResponse stats = new RollStatisticsResponse();
+        stats.setDayWithMaxCount(LocalDate.of(2026, 2, 8));
+
+        // When
+        JsonNode node = cborMapper.readTree(cborMapper.writeValueAsBytes(stats));
+
+        // Then
+        assertEquals(LocalDate.of(2026, 2, 8).toEpochDay(), node.get("dayWithMaxCount").asLong());
+        assertTrue(node.get("dayWithMinCount").isNull());
+    }
+}
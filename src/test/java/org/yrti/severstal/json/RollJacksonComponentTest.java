@@ -0,0 +1,89 @@
+package org.yrti.severstal.json;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.yrti.severstal.dto.RollStatisticsResponse;
+import org.yrti.severstal.model.Roll;
+import tools.jackson.databind.json.JsonMapper;
+import tools.jackson.databind.module.SimpleModule;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RollJacksonComponentTest {
+
+    private final JsonMapper defaultMapper = JsonMapper.builder().build();
+
+    private final JsonMapper customMapper = JsonMapper.builder()
+            .addModule(new SimpleModule()
+                    .addSerializer(Roll.class, new RollJacksonComponent.RollSerializer())
+                    .addSerializer(RollStatisticsResponse.class, new RollJacksonComponent.StatisticsSerializer()))
+            .build();
+
+    @Test
+    @DisplayName("Roll: вывод совпадает со стандартной сериализацией")
+    void roll_SameBytesAsDefault() {
+        // Given
+        Roll active = new Roll(new BigDecimal("10.500"), new BigDecimal("100.2"), LocalDateTime.of(2026, 1, 5, 7, 3, 9, 123_456_789));
+        active.setId(1L);
+        Roll deleted = new Roll(new BigDecimal("1E+3"), new BigDecimal("0.001"), LocalDateTime.of(999, 12, 31, 23, 59, 59));
+        deleted.setId(Long.MAX_VALUE);
+        deleted.setDeleteDate(LocalDateTime.of(2026, 2, 8, 0, 0));
+        List<Roll> rolls = List.of(active, deleted, new Roll());
+
+        // When и Then
+        assertArrayEquals(defaultMapper.writeValueAsBytes(rolls), customMapper.writeValueAsBytes(rolls));
+    }
+
+    @Test
+    @DisplayName("Даты на границах быстрого пути (годы 0, 1, 9999, 10000) пишутся так же, как стандартной сериализацией")
+    void dates_YearBounds_SameBytesAsDefault() {
+        // Given
+        List<Roll> rolls = new ArrayList<>();
+        List<RollStatisticsResponse> stats = new ArrayList<>();
+        for (int year : new int[]{-1, 0, 1, 9999, 10000}) {
+            Roll roll = new Roll(BigDecimal.ONE, BigDecimal.ONE, LocalDateTime.of(year, 6, 15, 12, 0));
+            roll.setDeleteDate(LocalDateTime.of(year, 12, 31, 23, 59, 59));
+            rolls.add(roll);
+            RollStatisticsResponse response = new RollStatisticsResponse();
+            response.setDayWithMinCount(LocalDate.of(year, 1, 1));
+            stats.add(response);
+        }
+
+        // When и Then
+        assertArrayEquals(defaultMapper.writeValueAsBytes(rolls), customMapper.writeValueAsBytes(rolls));
+        assertArrayEquals(defaultMapper.writeValueAsBytes(stats), customMapper.writeValueAsBytes(stats));
+    }
+
+    @Test
+    @DisplayName("RollStatisticsResponse: вывод совпадает со стандартной сериализацией")
+    void statistics_SameBytesAsDefault() {
+        // Given
+        RollStatisticsResponse filled = new RollStatisticsResponse();
+        filled.setAddedCount(3);
+        filled.setDeletedCount(1);
+        filled.setAverageLength(15.0);
+        filled.setAverageWeight(1.0 / 3);
+        filled.setMinLength(new BigDecimal("10"));
+        filled.setMaxLength(new BigDecimal("20.125"));
+        filled.setMinWeight(new BigDecimal("0.5"));
+        filled.setMaxWeight(new BigDecimal("300"));
+        filled.setTotalWeight(new BigDecimal("400.50"));
+        filled.setMinLifeSpanSeconds(600L);
+        filled.setMaxLifeSpanSeconds(1200L);
+        filled.setDayWithMinCount(LocalDate.of(2026, 1, 1));
+        filled.setDayWithMaxCount(LocalDate.of(2026, 12, 31));
+        filled.setDayWithMinWeight(LocalDate.of(2026, 2, 8));
+        filled.setDayWithMaxWeight(LocalDate.of(2026, 10, 10));
+
+        // When и Then
+        assertArrayEquals(defaultMapper.writeValueAsBytes(filled), customMapper.writeValueAsBytes(filled));
+        assertArrayEquals(defaultMapper.writeValueAsBytes(new RollStatisticsResponse()),
+                customMapper.writeValueAsBytes(new RollStatisticsResponse()));
+    }
+}
@@ -0,0 +1,193 @@
+package org.yrti.severstal.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.yrti.severstal.dao.RollRepository;
+import org.yrti.severstal.dao.RollStatisticsDao;
+import org.yrti.severstal.datasource.ShardRouter;
+import org.yrti.severstal.datasource.ShardingProperties;
+import org.yrti.severstal.dto.ApproximateStatisticsResponse;
+import org.yrti.severstal.model.Roll;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ApproximateStatisticsServiceTest {
+
+    private static final double Z = 1.959964;
+    private static final LocalDateTime START = LocalDateTime.of(2026, 1, 1, 0, 0);
+    private static final LocalDateTime END = LocalDateTime.of(2026, 1, 31, 23, 59);
+
+    @Mock
+    private RollRepository rollRepository;
+
+    @Mock
+    private RollStatisticsDao rollStatisticsDao;
+
+    // выборка: 4 рулона добавлены в периоде, 1 из них удален; вес 100 + 200 + 300 + 400 = 1000
+    private final List<Roll> sample = List.of(
+            roll("10", "100", LocalDateTime.of(2026, 1, 5, 10, 0), null),
+            roll("20", "200", LocalDateTime.of(2026, 1, 10, 10, 0), LocalDateTime.of(2026, 1, 20, 10, 0)),
+            roll("30", "300", LocalDateTime.of(2026, 1, 15, 10, 0), null),
+            roll("40", "400", LocalDateTime.of(2026, 1, 25, 10, 0), null));
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(rollStatisticsDao.sample(anyDouble(), eq(START), eq(END), isNull())).thenReturn(sample);
+    }
+
+    @Test
+    @DisplayName("getStatistics: доля выборки — sample-size / reltuples")
+    void getStatistics_LargeTable_FractionFromReltuples() {
+        // Given
+        when(rollRepository.estimatedRowCount()).thenReturn(40_000L);
+
+        // When
+        ApproximateStatisticsResponse response = service(ShardRouter.single()).getStatistics(START, END, null);
+
+        // Then
+        assertEquals(0.25, response.samplingFraction());
+        assertEquals(4, response.sampleSize());
+        verify(rollStatisticsDao).sample(eq(25.0), eq(START), eq(END), isNull());
+    }
+
+    @Test
+    @DisplayName("getStatistics: количества и суммарный вес масштабируются на 1 / доля, средние — нет")
+    void getStatistics_HorvitzThompsonScaling() {
+        // Given
+        when(rollRepository.estimatedRowCount()).thenReturn(40_000L);
+
+        // When
+        ApproximateStatisticsResponse response = service(ShardRouter.single()).getStatistics(START, END, null);
+
+        // Then
+        assertEquals(16, response.statistics().getAddedCount());
+        assertEquals(4, response.statistics().getDeletedCount());
+        assertEquals(new BigDecimal("4000.000"), response.statistics().getTotalWeight());
+        assertEquals(25.0, response.statistics().getAverageLength());
+        assertEquals(250.0, response.statistics().getAverageWeight());
+    }
+
+    @Test
+    @DisplayName("getStatistics: интервалы с поправкой на конечную совокупность (1 - доля)")
+    void getStatistics_FinitePopulationCorrection() {
+        // Given
+        when(rollRepository.estimatedRowCount()).thenReturn(40_000L);
+
+        // When
+        ApproximateStatisticsResponse response = service(ShardRouter.single()).getStatistics(START, END, null);
+
+        // Then
+        double addedHalfWidth = Z * Math.sqrt(4 * 0.75) / 0.25;
+        assertInterval(16 - addedHalfWidth, 16 + addedHalfWidth, response.intervals().get("addedCount"));
+        double deletedHalfWidth = Z * Math.sqrt(1 * 0.75) / 0.25;
+        assertInterval(0, 4 + deletedHalfWidth, response.intervals().get("deletedCount"));
+        double weightHalfWidth = Z * Math.sqrt((100 * 100 + 200 * 200 + 300 * 300 + 400 * 400) * 0.75) / 0.25;
+        assertInterval(4000 - weightHalfWidth, 4000 + weightHalfWidth, response.intervals().get("totalWeight"));
+        // выборочное стандартное отклонение веса: sqrt((150² + 50² + 50² + 150²) / 3)
+        double averageWeightHalfWidth = Z * Math.sqrt(50_000.0 / 3) / 2 * Math.sqrt(0.75);
+        assertInterval(250 - averageWeightHalfWidth, 250 + averageWeightHalfWidth, response.intervals().get("averageWeight"));
+    }
+
+    @Test
+    @DisplayName("getStatistics: reltuples 0 (ANALYZE не было) — читается вся таблица, интервалы нулевой ширины")
+    void getStatistics_ZeroReltuples_FullScan() {
+        // Given
+        when(rollRepository.estimatedRowCount()).thenReturn(0L);
+
+        // When
+        ApproximateStatisticsResponse response = service(ShardRouter.single()).getStatistics(START, END, null);
+
+        // Then
+        assertExact(response);
+    }
+
+    @Test
+    @DisplayName("getStatistics: отрицательная оценка (reltuples -1) — тоже вся таблица")
+    void getStatistics_NegativeReltuples_FullScan() {
+        // Given
+        when(rollRepository.estimatedRowCount()).thenReturn(-1L);
+
+        // When
+        ApproximateStatisticsResponse response = service(ShardRouter.single()).getStatistics(START, END, null);
+
+        // Then
+        assertExact(response);
+    }
+
+    @Test
+    @DisplayName("getStatistics: таблица меньше sample-size — читается целиком")
+    void getStatistics_SmallTable_FullScan() {
+        // Given
+        when(rollRepository.estimatedRowCount()).thenReturn(10_000L);
+
+        // When
+        ApproximateStatisticsResponse response = service(ShardRouter.single()).getStatistics(START, END, null);
+
+        // Then
+        assertExact(response);
+    }
+
+    @Test
+    @DisplayName("getStatistics: одна доля на все шарды — по сумме оценок шардов")
+    void getStatistics_Sharded_OneFractionForAllShards() {
+        // Given
+        when(rollRepository.estimatedRowCount()).thenReturn(20_000L);
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        ShardRouter shardRouter = new ShardRouter(new ShardingProperties(List.of(
+                new ShardingProperties.Shard("jdbc:postgresql://shard1/postgres", null, null, List.of()))), transactionManager);
+
+        // When
+        ApproximateStatisticsResponse response = service(shardRouter).getStatistics(START, END, null);
+
+        // Then: выборки шардов объединяются, 8 добавленных в выборке при доле 0.25
+        assertEquals(0.25, response.samplingFraction());
+        assertEquals(8, response.sampleSize());
+        assertEquals(32, response.statistics().getAddedCount());
+        verify(rollStatisticsDao, times(2)).sample(eq(25.0), eq(START), eq(END), isNull());
+    }
+
+    @Test
+    @DisplayName("getStatistics: начало позже окончания — ошибка")
+    void getStatistics_StartAfterEnd_Rejected() {
+        // When и Then
+        assertThrows(IllegalArgumentException.class, () -> service(ShardRouter.single()).getStatistics(END, START, null));
+        verifyNoInteractions(rollStatisticsDao);
+    }
+
+    private ApproximateStatisticsService service(ShardRouter shardRouter) {
+        return new ApproximateStatisticsService(rollRepository, rollStatisticsDao, shardRouter, 10_000);
+    }
+
+    private void assertExact(ApproximateStatisticsResponse response) {
+        assertEquals(1.0, response.samplingFraction());
+        verify(rollStatisticsDao).sample(eq(100.0), eq(START), eq(END), isNull());
+        assertEquals(4, response.statistics().getAddedCount());
+        assertEquals(1, response.statistics().getDeletedCount());
+        assertEquals(0, new BigDecimal("1000").compareTo(response.statistics().getTotalWeight()));
+        response.intervals().values().forEach(interval -> assertEquals(interval.low(), interval.high(), 1e-9));
+    }
+
+    private static void assertInterval(double low, double high, ApproximateStatisticsResponse.Interval interval) {
+        assertEquals(low, interval.low(), 1e-6);
+        assertEquals(high, interval.high(), 1e-6);
+    }
+
+    private static Roll roll(String length, String weight, LocalDateTime addDate, LocalDateTime deleteDate) {
+        Roll roll = new Roll(new BigDecimal(length), new BigDecimal(weight), addDate);
+        roll.setDeleteDate(deleteDate);
+        return roll;
+    }
+}
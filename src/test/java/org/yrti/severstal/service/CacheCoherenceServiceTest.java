@@ -0,0 +1,168 @@
+package org.yrti.severstal.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.yrti.severstal.config.CacheConfig;
+import org.yrti.severstal.datasource.ShardingProperties;
+import org.yrti.severstal.event.RollChangedEvent;
+import org.yrti.severstal.model.Roll;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Два узла с собственными кэшами на локальном PostgreSQL: изменение на одном узле через LISTEN/NOTIFY
+ * удаляет статистику на другом, и расчет, начатый до изменения, в кэш другого узла не попадает.
+ */
+class CacheCoherenceServiceTest {
+
+    private static final String URL = "jdbc:postgresql://localhost:5432/postgres";
+    private static final String USERNAME = "postgres";
+    private static final String PASSWORD = "postgres";
+
+    private static final LocalDateTime JANUARY = LocalDateTime.of(2026, 1, 1, 0, 0);
+    private static final LocalDateTime FEBRUARY = LocalDateTime.of(2026, 2, 1, 0, 0);
+    private static final List<LocalDateTime> WHOLE_JANUARY = List.of(JANUARY, FEBRUARY);
+    private static final List<LocalDateTime> FIRST_WEEK = List.of(JANUARY, JANUARY.plusDays(7));
+
+    private final List<CacheCoherenceService> nodes = new ArrayList<>();
+    private TransactionTemplate transactionTemplate;
+    private Node writer;
+    private Node reader;
+
+    @BeforeEach
+    void setUp() throws InterruptedException {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(URL, USERNAME, PASSWORD);
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        writer = node(jdbcTemplate);
+        reader = node(jdbcTemplate);
+        awaitListening(writer);
+        awaitListening(reader);
+    }
+
+    @AfterEach
+    void tearDown() {
+        nodes.forEach(CacheCoherenceService::stop);
+    }
+
+    @Test
+    @DisplayName("Изменение на одном узле удаляет на другом статистику периодов, которые заканчиваются не раньше добавления рулона")
+    void change_OnWriter_EvictsAffectedStatisticsOnReader() throws InterruptedException {
+        // Given
+        reader.statistics().put(WHOLE_JANUARY, "январь");
+        reader.statistics().put(FIRST_WEEK, "первая неделя");
+
+        // When
+        commitChange(roll(7, JANUARY.plusDays(10)));
+        await(() -> reader.statistics().get(WHOLE_JANUARY) == null);
+
+        // Then
+        assertEquals("первая неделя", reader.statistics().get(FIRST_WEEK).get());
+        verify(reader.secondLevelCache()).evict(Roll.class, 7L);
+    }
+
+    @Test
+    @DisplayName("Статистика, посчитанная на другом узле до изменения, не попадает в его кэш после уведомления")
+    void change_DuringCalculationOnReader_StaleValueNotCached() {
+        // Given
+        reader.statistics().put(FIRST_WEEK, "первая неделя");
+
+        // When: расчет прочитал данные до коммита и закончился после уведомления
+        String stale = reader.statistics().get(WHOLE_JANUARY, () -> {
+            commitChange(roll(8, JANUARY.plusDays(2)));
+            await(() -> reader.statistics().get(FIRST_WEEK) == null);
+            return "январь без рулона 8";
+        });
+        String fresh = reader.statistics().get(WHOLE_JANUARY, () -> "январь с рулоном 8");
+
+        // Then
+        assertEquals("январь без рулона 8", stale);
+        assertEquals("январь с рулоном 8", fresh);
+        assertEquals("январь с рулоном 8", reader.statistics().get(WHOLE_JANUARY).get());
+    }
+
+    @Test
+    @DisplayName("Расчет на пишущем узле, закончившийся после коммита, не попадает в кэш: узел чистит его сам после коммита")
+    void change_DuringCalculationOnWriter_StaleValueNotCached() {
+        // When
+        String stale = writer.statistics().get(WHOLE_JANUARY, () -> {
+            Roll roll = roll(9, JANUARY.plusDays(3));
+            commitChange(roll);
+            writer.service().evictLocally(new RollChangedEvent(RollChangedEvent.Type.CREATED, roll));
+            return "январь без рулона 9";
+        });
+
+        // Then
+        assertEquals("январь без рулона 9", stale);
+        assertNull(writer.statistics().get(WHOLE_JANUARY));
+    }
+
+    private Node node(JdbcTemplate jdbcTemplate) {
+        jakarta.persistence.Cache secondLevelCache = mock(jakarta.persistence.Cache.class);
+        EntityManagerFactory entityManagerFactory = mock(EntityManagerFactory.class);
+        when(entityManagerFactory.getCache()).thenReturn(secondLevelCache);
+        var cacheManager = new CacheConfig().cacheManager(10_000);
+        CacheCoherenceService service = new CacheCoherenceService(jdbcTemplate, cacheManager, entityManagerFactory,
+                new ShardingProperties(List.of()), URL, USERNAME, PASSWORD, Duration.ofMillis(100));
+        service.start();
+        nodes.add(service);
+        return new Node(service, cacheManager.getCache(CacheConfig.STATISTICS), secondLevelCache);
+    }
+
+    // уведомление уходит из транзакции и доходит до слушателей только после коммита
+    private void commitChange(Roll roll) {
+        transactionTemplate.executeWithoutResult(status ->
+                writer.service().publish(new RollChangedEvent(RollChangedEvent.Type.CREATED, roll)));
+    }
+
+    // LISTEN выполняется в фоне: шлем уведомления, пока узел не удалит пробную запись
+    private void awaitListening(Node node) throws InterruptedException {
+        List<LocalDateTime> probe = List.of(JANUARY, LocalDateTime.of(2100, 1, 1, 0, 0));
+        node.statistics().put(probe, "проба");
+        long deadline = System.nanoTime() + 10_000_000_000L;
+        while (node.statistics().get(probe) != null) {
+            if (System.nanoTime() > deadline) fail("Узел не подписался на канал");
+            commitChange(roll(1, JANUARY));
+            Thread.sleep(50);
+        }
+        clearInvocations(node.secondLevelCache());
+    }
+
+    private static Roll roll(long id, LocalDateTime addDate) {
+        Roll roll = new Roll(BigDecimal.ONE, BigDecimal.TEN, addDate);
+        roll.setId(id);
+        return roll;
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + 10_000_000_000L;
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) fail("Не дождались уведомления");
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                fail(e);
+            }
+        }
+    }
+
+    private record Node(CacheCoherenceService service, Cache statistics, jakarta.persistence.Cache secondLevelCache) {
+    }
+}
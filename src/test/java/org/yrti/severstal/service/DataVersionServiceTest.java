@@ -0,0 +1,124 @@
+package org.yrti.severstal.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.web.context.request.WebRequest;
+import org.yrti.severstal.dao.RollEventRepository;
+import org.yrti.severstal.datasource.ShardRouter;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class DataVersionServiceTest {
+
+    @Mock
+    private RollEventRepository rollEventRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private Supplier<String> body;
+
+    private DataVersionService dataVersionService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        dataVersionService = new DataVersionService(rollEventRepository, ShardRouter.single(), transactionManager);
+        when(rollEventRepository.dataVersion()).thenReturn("7.3");
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        when(body.get()).thenReturn("тело");
+    }
+
+    @Test
+    @DisplayName("conditional: версия и тело читаются в одной readOnly-транзакции, версия — первой")
+    void conditional_Modified_VersionThenBodyInOneReadOnlyTransaction() {
+        // Given
+        WebRequest request = request(Map.of(), "application/json");
+
+        // When
+        ResponseEntity<String> response = dataVersionService.conditional(request, body);
+
+        // Then
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("тело", response.getBody());
+        assertTrue(response.getHeaders().getETag().startsWith("\"7.3-"));
+        InOrder inOrder = inOrder(transactionManager, rollEventRepository, body);
+        inOrder.verify(transactionManager).getTransaction(argThat(TransactionDefinition::isReadOnly));
+        inOrder.verify(rollEventRepository).dataVersion();
+        inOrder.verify(body).get();
+        inOrder.verify(transactionManager).commit(any());
+        verify(transactionManager, times(1)).getTransaction(any());
+    }
+
+    @Test
+    @DisplayName("conditional: при совпавшем ETag тело не читается")
+    void conditional_NotModified_BodyNotRead() {
+        // Given
+        WebRequest request = request(Map.of(), "application/json");
+        when(request.checkNotModified(anyString())).thenReturn(true);
+
+        // When
+        ResponseEntity<String> response = dataVersionService.conditional(request, body);
+
+        // Then
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+        assertNull(response.getBody());
+        verify(body, never()).get();
+    }
+
+    @Test
+    @DisplayName("etag: запросы с одинаковым 32-битным хешем параметров получают разные ETag")
+    void etag_HashCollidingParams_DifferentTags() {
+        // Given: "Aa" и "BB" дают одинаковый String.hashCode
+        WebRequest first = request(Map.of("warehouse", new String[]{"Aa"}), "application/json");
+        WebRequest second = request(Map.of("warehouse", new String[]{"BB"}), "application/json");
+
+        // When и Then
+        assertEquals("warehouse=Aa".hashCode(), "warehouse=BB".hashCode());
+        assertNotEquals(dataVersionService.etag(first), dataVersionService.etag(second));
+        assertTrue(dataVersionService.etag(first).startsWith("\"7.3-"));
+    }
+
+    @Test
+    @DisplayName("etag: порядок параметров не важен, разделители в значениях и Accept различаются")
+    void etag_CanonicalParams() {
+        // Given
+        Map<String, String[]> ordered = new LinkedHashMap<>();
+        ordered.put("start", new String[]{"2026-01-01T00:00:00"});
+        ordered.put("end", new String[]{"2026-01-31T00:00:00"});
+        Map<String, String[]> reversed = new LinkedHashMap<>();
+        reversed.put("end", new String[]{"2026-01-31T00:00:00"});
+        reversed.put("start", new String[]{"2026-01-01T00:00:00"});
+
+        // When и Then
+        assertEquals(dataVersionService.etag(request(ordered, "application/json")),
+                dataVersionService.etag(request(reversed, "application/json")));
+        assertNotEquals(dataVersionService.etag(request(Map.of("ids", new String[]{"1,2"}), null)),
+                dataVersionService.etag(request(Map.of("ids", new String[]{"1", "2"}), null)));
+        assertNotEquals(dataVersionService.etag(request(ordered, "application/json")),
+                dataVersionService.etag(request(ordered, "application/cbor")));
+    }
+
+    private static WebRequest request(Map<String, String[]> params, String accept) {
+        WebRequest request = mock(WebRequest.class);
+        when(request.getParameterMap()).thenReturn(params);
+        when(request.getHeader("Accept")).thenReturn(accept);
+        return request;
+    }
+}
@@ -0,0 +1,213 @@
+package org.yrti.severstal.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.yrti.severstal.dao.InventoryDao;
+import org.yrti.severstal.dao.RollEventRepository;
+import org.yrti.severstal.datasource.ShardRouter;
+import org.yrti.severstal.dto.InventoryResponse;
+import org.yrti.severstal.event.RollChangedEvent;
+import org.yrti.severstal.model.RollEvent;
+import org.yrti.severstal.timeline.RollLifetime;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Восстановление шкалы остатков из снимка на диске и журнала событий против полного чтения таблицы.
+ * <p>
+ * Журнал {@code roll_events}: событие 5 — добавление рулона 3 (курсор первого старта), 6 — добавление рулона 4,
+ * 7 — удаление рулона 1, 8 — добавление рулона 5, 9 — удаление рулона 2.
+ */
+class InventoryServiceTest {
+
+    private static final LocalDateTime DAY = LocalDateTime.of(2026, 1, 1, 10, 0);
+
+    private static final List<RollEvent> EVENTS = List.of(
+            event(5, 3, RollChangedEvent.Type.CREATED, "30", DAY.plusDays(2)),
+            event(6, 4, RollChangedEvent.Type.CREATED, "40", DAY.plusDays(3)),
+            event(7, 1, RollChangedEvent.Type.DELETED, "10", DAY.plusDays(4)),
+            event(8, 5, RollChangedEvent.Type.CREATED, "50", DAY.plusDays(5)),
+            event(9, 2, RollChangedEvent.Type.DELETED, "20", DAY.plusDays(6)));
+
+    // таблица rolls на момент первого старта (курсор 5) и после события 9
+    private static final List<RollLifetime> ROLLS_AT_5 = List.of(
+            lifetime(1, "10", DAY, null),
+            lifetime(2, "20", DAY.plusDays(1), null),
+            lifetime(3, "30", DAY.plusDays(2), null));
+    private static final List<RollLifetime> ROLLS_AT_9 = List.of(
+            lifetime(1, "10", DAY, DAY.plusDays(4)),
+            lifetime(2, "20", DAY.plusDays(1), DAY.plusDays(6)),
+            lifetime(3, "30", DAY.plusDays(2), null),
+            lifetime(4, "40", DAY.plusDays(3), null),
+            lifetime(5, "50", DAY.plusDays(5), null));
+
+    @TempDir
+    Path snapshotDir;
+
+    @Mock
+    private InventoryDao inventoryDao;
+
+    @Mock
+    private RollEventService rollEventService;
+
+    @Mock
+    private RollEventRepository rollEventRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final List<InventoryService> services = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        when(inventoryDao.eventIdsAfter(anyLong(), any())).thenReturn(Set.of());
+        when(inventoryDao.rollIdOfEvent(anyLong())).thenAnswer(i -> rollIdOfEvent(i.getArgument(0)));
+        when(rollEventRepository.findByIdGreaterThanAndIdLessThanEqualOrderByIdAsc(anyLong(), anyLong(), any(Limit.class)))
+                .thenAnswer(i -> eventsBetween(i.getArgument(0), i.getArgument(1)));
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        for (InventoryService service : services) service.close();
+    }
+
+    @Test
+    @DisplayName("load: шкала из снимка и журнала совпадает с полной загрузкой, таблица при восстановлении не читается")
+    void load_SnapshotAndJournal_SameAsFullLoad() throws IOException {
+        // Given: первый старт пишет снимок на курсоре 5 и журнал живых событий 6 и 7
+        firstStartWithSnapshot();
+
+        // When: второй старт при курсоре 9 дочитывает события 8 и 9
+        clearInvocations(inventoryDao);
+        InventoryService restored = load(snapshotDir, 9, ROLLS_AT_9);
+
+        // Then
+        verify(inventoryDao, never()).forEachLifetime(any());
+        verify(rollEventRepository).findByIdGreaterThanAndIdLessThanEqualOrderByIdAsc(eq(7L), eq(9L), any(Limit.class));
+        assertSameInventory(load(null, 9, ROLLS_AT_9), restored);
+    }
+
+    @Test
+    @DisplayName("load: событие курсора снимка относится к другому рулону (база пересоздана) — полная загрузка")
+    void load_CursorRollIdMismatch_FullLoad() throws IOException {
+        // Given
+        firstStartWithSnapshot();
+        when(inventoryDao.rollIdOfEvent(7L)).thenReturn(42L);
+
+        // When
+        clearInvocations(inventoryDao);
+        InventoryService reloaded = load(snapshotDir, 9, ROLLS_AT_9);
+
+        // Then
+        verify(inventoryDao).forEachLifetime(any());
+        assertSameInventory(load(null, 9, ROLLS_AT_9), reloaded);
+    }
+
+    @Test
+    @DisplayName("load: курсор снимка новее журнала событий — полная загрузка")
+    void load_SnapshotAheadOfJournal_FullLoad() throws IOException {
+        // Given
+        firstStartWithSnapshot();
+
+        // When: журнал событий заканчивается на 5, а снимок уже учел 7
+        clearInvocations(inventoryDao);
+        InventoryService reloaded = load(snapshotDir, 5, ROLLS_AT_5);
+
+        // Then
+        verify(inventoryDao).forEachLifetime(any());
+        verify(rollEventRepository, never()).findByIdGreaterThanAndIdLessThanEqualOrderByIdAsc(anyLong(), anyLong(), any(Limit.class));
+        assertSameInventory(load(null, 5, ROLLS_AT_5), reloaded);
+    }
+
+    @Test
+    @DisplayName("load: нечитаемый снимок — полная загрузка")
+    void load_CorruptSnapshot_FullLoad() throws IOException {
+        // Given
+        firstStartWithSnapshot();
+        try (var files = Files.list(snapshotDir)) {
+            for (Path file : files.toList()) Files.write(file, new byte[]{1, 2, 3});
+        }
+
+        // When
+        clearInvocations(inventoryDao);
+        InventoryService reloaded = load(snapshotDir, 9, ROLLS_AT_9);
+
+        // Then
+        verify(inventoryDao).forEachLifetime(any());
+        assertSameInventory(load(null, 9, ROLLS_AT_9), reloaded);
+    }
+
+    private void firstStartWithSnapshot() throws IOException {
+        InventoryService first = load(snapshotDir, 5, ROLLS_AT_5);
+        first.onEvent(EVENTS.get(1));
+        first.onEvent(EVENTS.get(2));
+        first.close();
+        services.remove(first);
+    }
+
+    private InventoryService load(Path dir, long cursor, List<RollLifetime> rolls) {
+        when(rollEventService.registerConsumer(any())).thenReturn(new RollEventService.Registration(new long[]{cursor}, Set.of()));
+        doAnswer(i -> {
+            Consumer<RollLifetime> consumer = i.getArgument(0);
+            rolls.forEach(consumer);
+            return null;
+        }).when(inventoryDao).forEachLifetime(any());
+        InventoryService service = new InventoryService(inventoryDao, rollEventService, rollEventRepository, ShardRouter.single(),
+                transactionManager, dir == null ? "" : dir.toString());
+        services.add(service);
+        service.load();
+        return service;
+    }
+
+    private static void assertSameInventory(InventoryService expected, InventoryService actual) {
+        for (int hours = -24; hours <= 24 * 8; hours += 6) {
+            LocalDateTime at = DAY.plusHours(hours);
+            InventoryResponse want = expected.getInventory(at, false);
+            InventoryResponse got = actual.getInventory(at, false);
+            assertEquals(want.count(), got.count(), "количество на " + at);
+            assertEquals(0, want.totalWeight().compareTo(got.totalWeight()), "вес на " + at);
+        }
+        assertEquals(3, actual.getInventory(DAY.plusDays(7), false).count());
+    }
+
+    private static Long rollIdOfEvent(long eventId) {
+        return Map.of(5L, 3L, 6L, 4L, 7L, 1L, 8L, 5L, 9L, 2L).get(eventId);
+    }
+
+    private static List<RollEvent> eventsBetween(long after, long to) {
+        return EVENTS.stream().filter(e -> e.getId() > after && e.getId() <= to).toList();
+    }
+
+    private static RollEvent event(long id, long rollId, RollChangedEvent.Type type, String weight, LocalDateTime at) {
+        RollEvent event = new RollEvent(rollId, type, BigDecimal.ONE, new BigDecimal(weight), at);
+        event.setId(id);
+        return event;
+    }
+
+    private static RollLifetime lifetime(long id, String weight, LocalDateTime added, LocalDateTime deleted) {
+        return RollLifetime.of(id, BigDecimal.ONE, new BigDecimal(weight), added, deleted);
+    }
+}
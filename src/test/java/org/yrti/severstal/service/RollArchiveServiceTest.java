@@ -0,0 +1,53 @@
+package org.yrti.severstal.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.yrti.severstal.dao.RollArchiveDao;
+import org.yrti.severstal.datasource.ShardRouter;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class RollArchiveServiceTest {
+
+    @Mock
+    private RollArchiveDao rollArchiveDao;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private RollArchiveService rollArchiveService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        rollArchiveService = new RollArchiveService(rollArchiveDao, ShardRouter.single(), transactionManager, Duration.ofDays(365), 2);
+    }
+
+    @Test
+    @DisplayName("archiveBefore: отметка сдвигается до переноса, порции переносятся до неполной")
+    void archiveBefore_WatermarkFirst_BatchesUntilShort() {
+        // Given
+        LocalDateTime cutoff = LocalDateTime.of(2024, 1, 1, 0, 0);
+        when(rollArchiveDao.moveBatch(cutoff, 2)).thenReturn(2, 2, 1);
+
+        // When
+        long moved = rollArchiveService.archiveBefore(cutoff);
+
+        // Then
+        assertEquals(5, moved);
+        InOrder inOrder = inOrder(rollArchiveDao);
+        inOrder.verify(rollArchiveDao).advanceWatermark(cutoff);
+        inOrder.verify(rollArchiveDao, times(3)).moveBatch(cutoff, 2);
+        verify(transactionManager, times(4)).commit(any());
+    }
+}
@@ -0,0 +1,256 @@
+package org.yrti.severstal.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.yrti.severstal.dao.RollEventRepository;
+import org.yrti.severstal.datasource.ShardRouter;
+import org.yrti.severstal.event.RollChangedEvent;
+import org.yrti.severstal.model.RollEvent;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class RollEventServiceTest {
+
+    @Mock
+    private RollEventRepository rollEventRepository;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(rollEventRepository.findMaxId()).thenReturn(5L);
+        // транзакции, шедшие при замеченном разрыве, еще не завершились
+        when(rollEventRepository.transactionHorizon()).thenReturn(100L);
+        when(rollEventRepository.oldestRunningTransaction()).thenReturn(50L);
+    }
+
+    @Test
+    @DisplayName("subscribe: с Last-Event-ID подписчик сначала дочитывает журнал, затем получает живые события")
+    void subscribe_LastEventId_ReplaysThenLive() throws InterruptedException {
+        // Given
+        RollEventService service = service(256, Duration.ofSeconds(5));
+        when(rollEventRepository.findByIdGreaterThanAndIdLessThanEqualOrderByIdAsc(eq(2L), eq(5L), any()))
+                .thenReturn(List.of(event(3), event(4), event(5)));
+        when(rollEventRepository.findByIdGreaterThanOrderByIdAsc(eq(5L), any())).thenReturn(List.of(event(6)));
+        CapturingEmitter emitter = new CapturingEmitter(null);
+
+        // When
+        service.subscribe("2", emitter);
+        await(() -> emitter.events.size() == 3);
+        service.poll();
+        await(() -> emitter.events.size() == 4);
+
+        // Then
+        assertEquals(List.of(3L, 4L, 5L, 6L), emitter.events.stream().map(RollEvent::getId).toList());
+        assertEquals(List.of("3", "4", "5", "6"), emitter.ids);
+    }
+
+    @Test
+    @DisplayName("poll: разрыв в id ждет закоммиченного события, пока не истекло ожидание")
+    void poll_GapFilledInTime_DeliveredInOrder() throws InterruptedException {
+        // Given
+        RollEventService service = service(256, Duration.ofSeconds(5));
+        List<Long> received = new CopyOnWriteArrayList<>();
+        service.registerConsumer(e -> received.add(e.getId()));
+        when(rollEventRepository.findByIdGreaterThanOrderByIdAsc(eq(5L), any()))
+                .thenReturn(List.of(event(7)))
+                .thenReturn(List.of(event(6), event(7)));
+
+        // When
+        service.poll();
+        List<Long> afterGap = List.copyOf(received);
+        service.poll();
+        await(() -> received.size() == 2);
+
+        // Then
+        assertEquals(List.of(), afterGap);
+        assertEquals(List.of(6L, 7L), received);
+        verify(rollEventRepository, never()).findAllById(any());
+    }
+
+    @Test
+    @DisplayName("poll: после истечения ожидания разрыва опрос идет дальше, а событие, закоммиченное позже, доставляется с опозданием")
+    void poll_GapExpired_LateEventDelivered() throws InterruptedException {
+        // Given
+        RollEventService service = service(256, Duration.ofMillis(50));
+        List<Long> received = new CopyOnWriteArrayList<>();
+        service.registerConsumer(e -> received.add(e.getId()));
+        when(rollEventRepository.findByIdGreaterThanOrderByIdAsc(eq(5L), any())).thenReturn(List.of(event(7)));
+        when(rollEventRepository.findByIdGreaterThanOrderByIdAsc(eq(7L), any())).thenReturn(List.of());
+        when(rollEventRepository.findAllById(List.of(6L))).thenReturn(List.of()).thenReturn(List.of(event(6)));
+
+        // When
+        service.poll();
+        service.poll();
+        List<Long> whileWaiting = List.copyOf(received);
+        Thread.sleep(100);
+        service.poll();
+        await(() -> received.size() == 1);
+        List<Long> afterExpiry = List.copyOf(received);
+        service.poll();
+        service.poll();
+        await(() -> received.size() == 2);
+
+        // Then
+        assertEquals(List.of(), whileWaiting);
+        assertEquals(List.of(7L), afterExpiry);
+        assertEquals(List.of(7L, 6L), received);
+        verify(rollEventRepository, times(2)).findAllById(any());
+    }
+
+    @Test
+    @DisplayName("poll: откаченный id пропускается, как только завершились транзакции, шедшие при разрыве, без ожидания gap-timeout")
+    void poll_GapSettled_SkippedWithoutTimeout() throws InterruptedException {
+        // Given
+        RollEventService service = service(256, Duration.ofMinutes(5));
+        List<Long> received = new CopyOnWriteArrayList<>();
+        service.registerConsumer(e -> received.add(e.getId()));
+        when(rollEventRepository.findByIdGreaterThanOrderByIdAsc(eq(5L), any())).thenReturn(List.of(event(7)));
+        when(rollEventRepository.oldestRunningTransaction()).thenReturn(100L);
+
+        // When
+        service.poll();
+        List<Long> whileRunning = List.copyOf(received);
+        service.poll();
+        await(() -> received.size() == 1);
+
+        // Then: откаченный id не перечитывается как опоздавший
+        assertEquals(List.of(), whileRunning);
+        assertEquals(List.of(7L), received);
+        verify(rollEventRepository).transactionHorizon();
+        verify(rollEventRepository, never()).findAllById(any());
+    }
+
+    @Test
+    @DisplayName("poll: медленный запрос и медленный потребитель не задерживают новых подписчиков")
+    void poll_SlowQueryAndConsumer_SubscribeNotBlocked() throws Exception {
+        // Given
+        RollEventService service = service(256, Duration.ofSeconds(5));
+        CountDownLatch consumerRelease = new CountDownLatch(1);
+        List<Long> received = new CopyOnWriteArrayList<>();
+        service.registerConsumer(e -> {
+            try {
+                consumerRelease.await();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            received.add(e.getId());
+        });
+        CountDownLatch queryStarted = new CountDownLatch(1);
+        CountDownLatch queryRelease = new CountDownLatch(1);
+        when(rollEventRepository.findByIdGreaterThanOrderByIdAsc(eq(5L), any())).thenAnswer(i -> {
+            queryStarted.countDown();
+            queryRelease.await();
+            return List.of(event(6));
+        });
+        when(rollEventRepository.findByIdGreaterThanOrderByIdAsc(eq(6L), any())).thenReturn(List.of(event(7)));
+
+        // When и Then: подписка проходит, пока опрос ждет базу
+        Thread poller = Thread.ofPlatform().start(service::poll);
+        assertTrue(queryStarted.await(5, TimeUnit.SECONDS));
+        assertTimeoutPreemptively(Duration.ofSeconds(2), () -> service.subscribe(null, new CapturingEmitter(null)));
+        queryRelease.countDown();
+        poller.join(5_000);
+
+        // и пока потребитель занят событием 6
+        service.poll();
+        assertTimeoutPreemptively(Duration.ofSeconds(2), () -> service.subscribe(null, new CapturingEmitter(null)));
+        assertEquals(List.of(), received);
+        consumerRelease.countDown();
+        await(() -> received.size() == 2);
+        assertEquals(List.of(6L, 7L), received);
+    }
+
+    @Test
+    @DisplayName("poll: подписчик с переполненной очередью отключается")
+    void poll_SubscriberBufferFull_Disconnected() {
+        // Given
+        RollEventService service = service(1, Duration.ofSeconds(5));
+        CountDownLatch release = new CountDownLatch(1);
+        CapturingEmitter emitter = new CapturingEmitter(release);
+        service.subscribe(null, emitter);
+        when(rollEventRepository.findByIdGreaterThanOrderByIdAsc(eq(5L), any())).thenReturn(List.of(event(6), event(7), event(8)));
+
+        // When
+        service.poll();
+
+        // Then
+        try {
+            assertEquals(0, service.subscriberCount());
+            assertTrue(emitter.completed);
+        } finally {
+            release.countDown();
+        }
+    }
+
+    private RollEventService service(int bufferSize, Duration gapTimeout) {
+        return new RollEventService(rollEventRepository, ShardRouter.single(), bufferSize, 500,
+                Duration.ofMinutes(30), gapTimeout, Duration.ofMinutes(10));
+    }
+
+    private static RollEvent event(long id) {
+        RollEvent event = new RollEvent(id, RollChangedEvent.Type.CREATED, BigDecimal.ONE, BigDecimal.TEN, LocalDateTime.of(2026, 1, 1, 0, 0));
+        event.setId(id);
+        return event;
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) fail("Не дождались событий");
+            Thread.sleep(10);
+        }
+    }
+
+    // запоминает отправленные события; с release — каждая отправка ждет его, как медленный клиент
+    private static final class CapturingEmitter extends SseEmitter {
+
+        private final List<RollEvent> events = new CopyOnWriteArrayList<>();
+        private final List<String> ids = new CopyOnWriteArrayList<>();
+        private final CountDownLatch release;
+        private volatile boolean completed;
+
+        private CapturingEmitter(CountDownLatch release) {
+            this.release = release;
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            if (release != null) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException(e);
+                }
+            }
+            for (ResponseBodyEmitter.DataWithMediaType part : builder.build()) {
+                if (part.getData() instanceof RollEvent event) events.add(event);
+                if (part.getData() instanceof String text && text.startsWith("id:")) {
+                    ids.add(text.substring(3, text.indexOf('\n')));
+                }
+            }
+        }
+
+        @Override
+        public void complete() {
+            completed = true;
+        }
+    }
+}
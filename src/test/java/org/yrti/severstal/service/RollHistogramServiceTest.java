@@ -0,0 +1,120 @@
+package org.yrti.severstal.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.yrti.severstal.dao.RollHistogramDao;
+import org.yrti.severstal.dao.RollSketchDao;
+import org.yrti.severstal.datasource.ShardRouter;
+import org.yrti.severstal.dto.HistogramMetric;
+import org.yrti.severstal.dto.RollFilterRequest;
+import org.yrti.severstal.dto.RollHistogramResponse;
+import org.yrti.severstal.dto.RollHistogramTotals;
+import org.yrti.severstal.sketch.QuantileSketch;
+import org.yrti.severstal.sketch.SketchMetric;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class RollHistogramServiceTest {
+
+    @Mock
+    private RollHistogramDao rollHistogramDao;
+
+    @Mock
+    private RollSketchDao rollSketchDao;
+
+    private RollHistogramService rollHistogramService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        rollHistogramService = new RollHistogramService(rollHistogramDao, rollSketchDao, ShardRouter.single());
+    }
+
+    @Test
+    @DisplayName("sql: Равные корзины по диапазону из базы")
+    void getHistogram_EqualWidth_BucketsFromDatabaseRange() {
+        // Given
+        RollHistogramTotals totals = new RollHistogramTotals(new BigDecimal("10"), new BigDecimal("30"),
+                new long[]{0, 2, 1, 0},
+                new BigDecimal[]{BigDecimal.ZERO, new BigDecimal("25"), new BigDecimal("30"), BigDecimal.ZERO});
+        when(rollHistogramDao.equalWidth(eq(HistogramMetric.WEIGHT), any(), isNull(), isNull(), eq(2))).thenReturn(totals);
+
+        // When
+        RollHistogramResponse response = rollHistogramService.getHistogram(HistogramMetric.WEIGHT, 2, null, null, null, "sql", new RollFilterRequest());
+
+        // Then
+        assertEquals(3, response.count());
+        assertEquals(new BigDecimal("55"), response.sum());
+        assertEquals(2, response.buckets().size());
+        assertEquals(new RollHistogramResponse.Bucket(new BigDecimal("10.000"), new BigDecimal("20.000"), 2, new BigDecimal("25")), response.buckets().get(0));
+        assertEquals(new BigDecimal("30.000"), response.buckets().get(1).upper());
+    }
+
+    @Test
+    @DisplayName("sketch: Корзины скетча раскладываются по явным границам")
+    void getHistogram_Sketch_BinsAssignedToEdges() {
+        // Given
+        QuantileSketch weight = new QuantileSketch();
+        weight.add(10);
+        weight.add(20);
+        weight.add(30);
+        weight.add(500);
+        when(rollSketchDao.merged(any(), any())).thenReturn(Map.of(SketchMetric.WEIGHT, weight));
+        List<BigDecimal> edges = List.of(new BigDecimal("0"), new BigDecimal("15"), new BigDecimal("40"));
+
+        // When
+        RollHistogramResponse response = rollHistogramService.getHistogram(HistogramMetric.WEIGHT, null, edges, null, null, "sketch", null);
+
+        // Then
+        assertEquals(4, response.count());
+        assertEquals(0, response.underflow());
+        assertEquals(1, response.overflow());
+        assertEquals(1, response.buckets().get(0).count());
+        assertEquals(2, response.buckets().get(1).count());
+        verifyNoInteractions(rollHistogramDao);
+    }
+
+    @Test
+    @DisplayName("sketch: Фильтр не по дате добавления не поддерживается")
+    void getHistogram_SketchWithWeightFilter_ThrowsException() {
+        // Given
+        RollFilterRequest filter = new RollFilterRequest();
+        filter.setWeightMin(new BigDecimal("500"));
+
+        // When & Then
+        assertThrows(IllegalArgumentException.class,
+                () -> rollHistogramService.getHistogram(HistogramMetric.WEIGHT, 10, null, null, null, "sketch", filter));
+    }
+
+    @Test
+    @DisplayName("getHistogram: Границы должны возрастать")
+    void getHistogram_EdgesNotIncreasing_ThrowsException() {
+        // Given
+        List<BigDecimal> edges = List.of(new BigDecimal("10"), new BigDecimal("10"));
+
+        // When & Then
+        assertThrows(IllegalArgumentException.class,
+                () -> rollHistogramService.getHistogram(HistogramMetric.LENGTH, null, edges, null, null, "sql", null));
+    }
+
+    @Test
+    @DisplayName("bucketOf: Последняя граница входит в последнюю корзину")
+    void bucketOf_Boundaries() {
+        List<BigDecimal> edges = List.of(new BigDecimal("0"), new BigDecimal("10"), new BigDecimal("20"));
+
+        assertEquals(0, RollHistogramService.bucketOf(new BigDecimal("-1"), edges));
+        assertEquals(1, RollHistogramService.bucketOf(new BigDecimal("0"), edges));
+        assertEquals(2, RollHistogramService.bucketOf(new BigDecimal("10"), edges));
+        assertEquals(2, RollHistogramService.bucketOf(new BigDecimal("20"), edges));
+        assertEquals(3, RollHistogramService.bucketOf(new BigDecimal("20.001"), edges));
+    }
+}
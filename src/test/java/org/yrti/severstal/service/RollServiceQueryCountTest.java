@@ -0,0 +1,262 @@
+package org.yrti.severstal.service;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceContext;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.MethodExecutionContext;
+import net.ttddyy.dsproxy.listener.MethodExecutionListener;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+import org.yrti.severstal.dao.RollRepository;
+import org.yrti.severstal.dto.RollCreateRequest;
+import org.yrti.severstal.dto.RollFilterRequest;
+import org.yrti.severstal.dto.RollStatisticsResponse;
+import org.yrti.severstal.model.Roll;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Число SQL-запросов и прочитанных строк для операций {@link RollService} на локальном PostgreSQL.
+ * <p>
+ * Ловит N+1, лишние запросы в слушателях изменений и выборки без условий. Каждый тест идет в транзакции,
+ * которая откатывается; слушатели BEFORE_COMMIT вызываются вручную, чтобы их запросы тоже попали в подсчет.
+ * Считаются только запросы потока теста: фоновые задачи приложения в подсчет не попадают.
+ */
+@SpringBootTest(properties = "severstal.warmup.enabled=false")
+@Transactional
+class RollServiceQueryCountTest {
+
+    private static final String WAREHOUSE = "query-count-test";
+
+    @Autowired
+    private RollService rollService;
+
+    @Autowired
+    private RollRepository rollRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private QueryCounter queryCounter;
+
+    private Roll first;
+    private Roll second;
+
+    @BeforeEach
+    void setUp() {
+        // напрямую через репозиторий: без событий, иначе их слушатели попадут в подсчет
+        first = rollRepository.saveAndFlush(roll("10", "100"));
+        second = rollRepository.saveAndFlush(roll("20", "200"));
+        entityManager.clear();
+        entityManagerFactory.getCache().evictAll();
+    }
+
+    @Test
+    @DisplayName("createRoll: вставка рулона и запросы слушателей изменения")
+    void createRoll_Queries() {
+        // When
+        Roll roll = counted(() -> {
+            Roll created = rollService.createRoll(createRequest("30", "300"));
+            TransactionSynchronizationUtils.triggerBeforeCommit(false);
+            return created;
+        });
+
+        // Then
+        // вставка; слушатели: pg_notify, журнал событий, два бина скетчей, счетчик остатков
+        assertNotNull(roll.getId());
+        queryCounter.assertCounts(6, 0);
+    }
+
+    @Test
+    @DisplayName("deleteRoll: чтение по id, обновление и запросы слушателей изменения")
+    void deleteRoll_Queries() {
+        // When
+        counted(() -> {
+            Roll deleted = rollService.deleteRoll(first.getId());
+            TransactionSynchronizationUtils.triggerBeforeCommit(false);
+            return deleted;
+        });
+
+        // Then
+        // чтение и обновление; слушатели: pg_notify, журнал событий, бин скетча, счетчик остатков
+        queryCounter.assertCounts(6, 1);
+    }
+
+    @Test
+    @DisplayName("getRoll: один запрос, повторное чтение из кэша второго уровня")
+    void getRoll_Queries() {
+        // When
+        counted(() -> rollService.getRoll(first.getId()));
+        queryCounter.assertCounts(1, 1);
+        counted(() -> rollService.getRoll(first.getId()));
+
+        // Then
+        queryCounter.assertCounts(0, 0);
+    }
+
+    @Test
+    @DisplayName("getRolls по id: один запрос на все id")
+    void getRollsByIds_Queries() {
+        // When
+        List<Roll> rolls = counted(() -> rollService.getRolls(List.of(second.getId(), first.getId())));
+
+        // Then
+        assertEquals(List.of(second.getId(), first.getId()), rolls.stream().map(Roll::getId).toList());
+        queryCounter.assertCounts(1, 2);
+    }
+
+    @Test
+    @DisplayName("getRolls по фильтру: горячая таблица и архив, только подходящие строки")
+    void getRollsByFilter_Queries() {
+        // Given
+        RollFilterRequest filter = new RollFilterRequest();
+        filter.setWarehouse(WAREHOUSE);
+        filter.setLengthMin(new BigDecimal("15"));
+
+        // When
+        List<Roll> rolls = counted(() -> rollService.getRolls(filter));
+
+        // Then
+        assertEquals(List.of(second.getId()), rolls.stream().map(Roll::getId).toList());
+        queryCounter.assertCounts(2, 1);
+    }
+
+    @Test
+    @DisplayName("getStatistics: один агрегирующий запрос, строка на каждый день периода")
+    void getStatistics_Queries() {
+        // Given
+        RollFilterRequest filter = new RollFilterRequest();
+        filter.setWarehouse(WAREHOUSE);
+        LocalDateTime now = LocalDateTime.now();
+
+        // When
+        RollStatisticsResponse statistics = counted(() -> rollService.getStatistics(now.minusDays(1), now.plusDays(1), filter));
+
+        // Then
+        assertEquals(2, statistics.getAddedCount());
+        queryCounter.assertCounts(1, 3);
+    }
+
+    private <T> T counted(Supplier<T> operation) {
+        queryCounter.start();
+        try {
+            return operation.get();
+        } finally {
+            queryCounter.stop();
+        }
+    }
+
+    private static Roll roll(String length, String weight) {
+        Roll roll = new Roll(new BigDecimal(length), new BigDecimal(weight), LocalDateTime.now());
+        roll.setWarehouse(WAREHOUSE);
+        return roll;
+    }
+
+    private static RollCreateRequest createRequest(String length, String weight) {
+        RollCreateRequest request = new RollCreateRequest();
+        request.setLength(new BigDecimal(length));
+        request.setWeight(new BigDecimal(weight));
+        request.setWarehouse(WAREHOUSE);
+        return request;
+    }
+
+    /**
+     * Считает выполненные запросы и строки, прочитанные через {@link ResultSet#next()}, в потоке между start и stop.
+     */
+    static final class QueryCounter implements QueryExecutionListener, MethodExecutionListener {
+
+        private volatile Thread thread;
+        private final List<String> queries = Collections.synchronizedList(new ArrayList<>());
+        private int rows;
+
+        void start() {
+            queries.clear();
+            rows = 0;
+            thread = Thread.currentThread();
+        }
+
+        void stop() {
+            thread = null;
+        }
+
+        void assertCounts(int expectedStatements, int expectedRows) {
+            assertAll(
+                    () -> assertEquals(expectedStatements, queries.size(), () -> "Запросы: " + String.join("\n", queries)),
+                    () -> assertEquals(expectedRows, rows, "Прочитано строк"));
+        }
+
+        @Override
+        public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        }
+
+        @Override
+        public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+            if (Thread.currentThread() == thread) {
+                queries.add(queryInfoList.stream().map(QueryInfo::getQuery).reduce((a, b) -> a + "; " + b).orElse(""));
+            }
+        }
+
+        @Override
+        public void beforeMethod(MethodExecutionContext context) {
+        }
+
+        @Override
+        public void afterMethod(MethodExecutionContext context) {
+            if (Thread.currentThread() == thread && context.getTarget() instanceof ResultSet
+                    && context.getMethod().getName().equals("next") && Boolean.TRUE.equals(context.getResult())) {
+                rows++;
+            }
+        }
+    }
+
+    @TestConfiguration
+    static class QueryCounterConfig {
+
+        @Bean
+        static QueryCounter queryCounter() {
+            return new QueryCounter();
+        }
+
+        @Bean
+        static BeanPostProcessor queryCountingDataSourcePostProcessor(QueryCounter queryCounter) {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    if (!(bean instanceof DataSource dataSource) || !beanName.equals("dataSource")) {
+                        return bean;
+                    }
+                    return ProxyDataSourceBuilder.create(dataSource)
+                            .listener(queryCounter)
+                            .proxyResultSet()
+                            .methodListener(queryCounter)
+                            .build();
+                }
+            };
+        }
+    }
+}
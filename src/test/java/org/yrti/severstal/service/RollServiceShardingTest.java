@@ -0,0 +1,95 @@
+package org.yrti.severstal.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.yrti.severstal.datasource.ShardRouter;
+import org.yrti.severstal.dto.RollCreateRequest;
+import org.yrti.severstal.model.Roll;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * {@link RollService} с двумя шардами на локальном PostgreSQL: шард 0 — база {@code postgres},
+ * шард 1 — база {@code shard1} (создается, если ее нет). Изменения коммитятся, рулоны теста остаются
+ * удаленными на складе {@value #WAREHOUSE} шарда 1.
+ */
+@SpringBootTest(properties = {
+        "severstal.warmup.enabled=false",
+        "severstal.sharding.shards[0].url=" + RollServiceShardingTest.SHARD_URL,
+        "severstal.sharding.shards[0].warehouses=" + RollServiceShardingTest.WAREHOUSE})
+class RollServiceShardingTest {
+
+    static final String SHARD_URL = "jdbc:postgresql://localhost:5432/shard1";
+    static final String WAREHOUSE = "sharding-test";
+
+    @Autowired
+    private RollService rollService;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private final JdbcTemplate shard = new JdbcTemplate(new DriverManagerDataSource(SHARD_URL, "postgres", "postgres"));
+
+    @BeforeAll
+    static void createShardDatabase() {
+        JdbcTemplate server = new JdbcTemplate(new DriverManagerDataSource("jdbc:postgresql://localhost:5432/postgres", "postgres", "postgres"));
+        if (server.queryForList("SELECT 1 FROM pg_database WHERE datname = 'shard1'").isEmpty()) {
+            server.execute("CREATE DATABASE shard1");
+        }
+    }
+
+    @Test
+    @DisplayName("deleteRoll: рулон из кэша второго уровня удаляется в своем шарде")
+    void deleteRoll_CachedRollOnSecondShard_UpdatedInItsShard() {
+        // Given
+        Roll created = rollService.createRoll(createRequest());
+        rollService.getRoll(created.getId());
+        assertEquals(1, shardRouter.shardForId(created.getId()));
+        assertTrue(entityManagerFactory.getCache().contains(Roll.class, created.getId()));
+
+        // When
+        Roll deleted = rollService.deleteRoll(created.getId());
+
+        // Then
+        assertNotNull(deleted.getDeleteDate());
+        OffsetDateTime deleteDate = shard.queryForObject("SELECT delete_date FROM rolls WHERE id = ?", OffsetDateTime.class, created.getId());
+        assertNotNull(deleteDate);
+        assertEquals(1, shard.queryForObject("SELECT COUNT(*) FROM roll_events WHERE roll_id = ? AND type = 'DELETED'",
+                Long.class, created.getId()));
+        assertNotNull(rollService.getRoll(created.getId()).getDeleteDate());
+    }
+
+    @Test
+    @DisplayName("deleteRoll: рулон, которого нет в кэше, удаляется в своем шарде")
+    void deleteRoll_UncachedRollOnSecondShard_UpdatedInItsShard() {
+        // Given
+        Roll created = rollService.createRoll(createRequest());
+        entityManagerFactory.getCache().evict(Roll.class, created.getId());
+
+        // When
+        rollService.deleteRoll(created.getId());
+
+        // Then
+        assertNotNull(shard.queryForObject("SELECT delete_date FROM rolls WHERE id = ?", OffsetDateTime.class, created.getId()));
+    }
+
+    private static RollCreateRequest createRequest() {
+        RollCreateRequest request = new RollCreateRequest();
+        request.setLength(new BigDecimal("10"));
+        request.setWeight(new BigDecimal("100"));
+        request.setWarehouse(WAREHOUSE);
+        return request;
+    }
+}
@@ -7,19 +7,27 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
-import org.springframework.data.jpa.domain.Specification;
+import org.mockito.Spy;
+import org.springframework.context.ApplicationEventPublisher;
+import org.yrti.severstal.dao.RollArchiveDao;
 import org.yrti.severstal.dao.RollRepository;
+import org.yrti.severstal.dao.RollStatisticsDao;
+import org.yrti.severstal.datasource.ShardRouter;
 import org.yrti.severstal.dto.RollCreateRequest;
 import org.yrti.severstal.dto.RollFilterRequest;
+import org.yrti.severstal.dto.RollStatisticsAggregate;
 import org.yrti.severstal.dto.RollStatisticsResponse;
+import org.yrti.severstal.event.RollChangedEvent;
 import org.yrti.severstal.exception.RollNotFoundException;
 import org.yrti.severstal.model.Roll;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.LongStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -30,6 +38,18 @@ class RollServiceTest {
     @Mock
     private RollRepository rollRepository;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private RollStatisticsDao rollStatisticsDao;
+
+    @Mock
+    private RollArchiveDao rollArchiveDao;
+
+    @Spy
+    private ShardRouter shardRouter = ShardRouter.single();
+
     @InjectMocks
     private RollService rollService;
 
@@ -58,6 +78,7 @@ class RollServiceTest {
         assertEquals(new BigDecimal("10.5"), result.getLength());
         assertEquals(new BigDecimal("100.2"), result.getWeight());
         verify(rollRepository, times(1)).save(any(Roll.class));
+        verify(eventPublisher).publishEvent(new RollChangedEvent(RollChangedEvent.Type.CREATED, roll));
     }
 
     @Test
@@ -90,6 +111,26 @@ class RollServiceTest {
         assertEquals(new BigDecimal("100.222"), savedRoll.getWeight());
     }
 
+    @Test
+    @DisplayName("createRoll: Склад из запроса, по умолчанию — default")
+    void createRoll_Warehouse_Saved() {
+        // Given
+        RollCreateRequest request = new RollCreateRequest();
+        request.setLength(new BigDecimal("10"));
+        request.setWeight(new BigDecimal("100"));
+        ArgumentCaptor<Roll> rollCaptor = ArgumentCaptor.forClass(Roll.class);
+        when(rollRepository.save(rollCaptor.capture())).thenAnswer(i -> i.getArguments()[0]);
+
+        // When
+        rollService.createRoll(request);
+        request.setWarehouse("north");
+        rollService.createRoll(request);
+
+        // Then
+        assertEquals(Roll.DEFAULT_WAREHOUSE, rollCaptor.getAllValues().get(0).getWarehouse());
+        assertEquals("north", rollCaptor.getAllValues().get(1).getWarehouse());
+    }
+
     @Test
     @DisplayName("deleteRoll: Успешное удаление существующего рулона")
     void deleteRoll_Existing_Success() {
@@ -98,14 +139,15 @@ class RollServiceTest {
         Roll roll = new Roll(new BigDecimal("10"), new BigDecimal("100"), LocalDateTime.now());
         roll.setId(id);
         when(rollRepository.findById(id)).thenReturn(Optional.of(roll));
-        when(rollRepository.save(any(Roll.class))).thenAnswer(i -> i.getArguments()[0]);
+        when(rollRepository.saveAndFlush(any(Roll.class))).thenAnswer(i -> i.getArguments()[0]);
 
         // When
         Roll deleted = rollService.deleteRoll(id);
 
         // Then
         assertNotNull(deleted.getDeleteDate());
-        verify(rollRepository).save(roll);
+        verify(rollRepository).saveAndFlush(roll);
+        verify(eventPublisher).publishEvent(new RollChangedEvent(RollChangedEvent.Type.DELETED, roll));
     }
 
     @Test
@@ -124,7 +166,8 @@ class RollServiceTest {
 
         // Then
         assertEquals(firstDeleteDate, deleted.getDeleteDate());
-        verify(rollRepository, never()).save(any());
+        verify(rollRepository, never()).saveAndFlush(any());
+        verify(eventPublisher, never()).publishEvent(any());
     }
 
     @Test
@@ -139,315 +182,276 @@ class RollServiceTest {
     }
 
     @Test
-    @DisplayName("getRolls: Без фильтра")
-    void getRolls_NoFilter_Success() {
+    @DisplayName("deleteRoll: Рулон уже в архиве")
+    void deleteRoll_Archived_ReturnedWithoutSave() {
         // Given
-        RollFilterRequest filter = new RollFilterRequest();
-        when(rollRepository.findAll(any(Specification.class))).thenReturn(List.of(new Roll()));
+        Roll archived = new Roll(new BigDecimal("10"), new BigDecimal("100"), LocalDateTime.now().minusYears(2));
+        archived.setId(7L);
+        archived.setDeleteDate(LocalDateTime.now().minusYears(1));
+        when(rollRepository.findById(7L)).thenReturn(Optional.empty());
+        when(rollArchiveDao.findById(7L)).thenReturn(Optional.of(archived));
 
         // When
-        List<Roll> result = rollService.getRolls(filter);
+        Roll result = rollService.deleteRoll(7L);
 
         // Then
-        assertFalse(result.isEmpty());
-        verify(rollRepository).findAll(any(Specification.class));
+        assertSame(archived, result);
+        verify(rollRepository, never()).saveAndFlush(any());
+        verify(eventPublisher, never()).publishEvent(any());
     }
 
     @Test
-    @DisplayName("getRolls: Фильтр по id")
-    void getRolls_FilterById_CallsRepository() {
+    @DisplayName("getRoll: Рулон найден")
+    void getRoll_Exists_Returned() {
         // Given
-        RollFilterRequest filter = new RollFilterRequest();
-        filter.setIdMin(1L);
-        filter.setIdMax(10L);
+        Roll roll = new Roll(new BigDecimal("10"), new BigDecimal("100"), LocalDateTime.now());
+        roll.setId(5L);
+        when(rollRepository.findById(5L)).thenReturn(Optional.of(roll));
 
         // When
-        rollService.getRolls(filter);
+        Roll result = rollService.getRoll(5L);
 
         // Then
-        verify(rollRepository).findAll(any(Specification.class));
+        assertSame(roll, result);
     }
 
     @Test
-    @DisplayName("getRolls: Фильтр по length")
-    void getRolls_FilterByLength_CallsRepository() {
+    @DisplayName("getRoll: Несуществующий id")
+    void getRoll_NotFound_ThrowsException() {
         // Given
-        RollFilterRequest filter = new RollFilterRequest();
-        filter.setLengthMin(new BigDecimal("5"));
-
-        // When
-        rollService.getRolls(filter);
+        when(rollRepository.findById(999L)).thenReturn(Optional.empty());
 
-        // Then
-        verify(rollRepository).findAll(any(Specification.class));
+        // When и Then
+        assertThrows(RollNotFoundException.class, () -> rollService.getRoll(999L));
     }
 
     @Test
-    @DisplayName("getRolls: Фильтр по weight")
-    void getRolls_FilterByWeight_CallsRepository() {
+    @DisplayName("getRolls по id: Повторы убираются, запрос один")
+    void getRollsByIds_Duplicates_SingleBatch() {
         // Given
-        RollFilterRequest filter = new RollFilterRequest();
-        filter.setWeightMax(new BigDecimal("200"));
+        Roll roll = new Roll(new BigDecimal("10"), new BigDecimal("100"), LocalDateTime.now());
+        roll.setId(1L);
+        when(rollRepository.findMultiple(List.of(1L, 2L))).thenReturn(List.of(roll));
 
         // When
-        rollService.getRolls(filter);
+        List<Roll> result = rollService.getRolls(List.of(1L, 2L, 1L));
 
         // Then
-        verify(rollRepository).findAll(any(Specification.class));
+        assertEquals(List.of(roll), result);
+        verify(rollRepository, times(1)).findMultiple(any());
     }
 
     @Test
-    @DisplayName("getRolls: Фильтр по date")
-    void getRolls_FilterByDate_CallsRepository() {
+    @DisplayName("getRolls по id: Недостающие id дочитываются из архива")
+    void getRollsByIds_Archived_MergedInRequestOrder() {
         // Given
-        RollFilterRequest filter = new RollFilterRequest();
-        filter.setAddDateMin(LocalDateTime.now().minusDays(1));
+        Roll hot = new Roll(new BigDecimal("10"), new BigDecimal("100"), LocalDateTime.now());
+        hot.setId(1L);
+        Roll archived = new Roll(new BigDecimal("20"), new BigDecimal("200"), LocalDateTime.now().minusYears(2));
+        archived.setId(2L);
+        when(rollRepository.findMultiple(List.of(2L, 1L, 3L))).thenReturn(List.of(hot));
+        when(rollArchiveDao.findByIds(List.of(2L, 3L))).thenReturn(List.of(archived));
 
         // When
-        rollService.getRolls(filter);
+        List<Roll> result = rollService.getRolls(List.of(2L, 1L, 3L));
 
         // Then
-        verify(rollRepository).findAll(any(Specification.class));
+        assertEquals(List.of(archived, hot), result);
     }
 
     @Test
-    @DisplayName("getRolls: Комбинация фильтров")
-    void getRolls_CombinedFilters_CallsRepository() {
+    @DisplayName("getRolls по id: Слишком много id")
+    void getRollsByIds_TooMany_ThrowsException() {
         // Given
-        RollFilterRequest filter = new RollFilterRequest();
-        filter.setIdMin(1L);
-        filter.setLengthMax(new BigDecimal("50"));
+        List<Long> ids = LongStream.rangeClosed(1, RollService.MAX_BATCH_IDS + 1).boxed().toList();
 
-        // When
-        rollService.getRolls(filter);
-
-        // Then
-        verify(rollRepository).findAll(any(Specification.class));
+        // When и Then
+        assertThrows(IllegalArgumentException.class, () -> rollService.getRolls(ids));
+        verify(rollRepository, never()).findMultiple(any());
     }
 
     @Test
-    @DisplayName("getRolls: Диапазон без пересечений")
-    void getRolls_NoIntersection_ReturnsEmpty() {
+    @DisplayName("getRolls: Архивные рулоны добавляются, повторы по id убираются")
+    void getRolls_WithArchive_MergedWithoutDuplicates() {
         // Given
         RollFilterRequest filter = new RollFilterRequest();
-        when(rollRepository.findAll(any(Specification.class))).thenReturn(Collections.emptyList());
+        Roll hot = new Roll(new BigDecimal("10"), new BigDecimal("100"), LocalDateTime.now());
+        hot.setId(1L);
+        Roll moved = new Roll(new BigDecimal("10"), new BigDecimal("100"), LocalDateTime.now());
+        moved.setId(1L);
+        Roll archived = new Roll(new BigDecimal("20"), new BigDecimal("200"), LocalDateTime.now().minusYears(2));
+        archived.setId(2L);
+        when(rollRepository.findByFilter(filter)).thenReturn(List.of(hot));
+        when(rollArchiveDao.findByFilter(filter)).thenReturn(List.of(moved, archived));
 
         // When
         List<Roll> result = rollService.getRolls(filter);
 
         // Then
-        assertTrue(result.isEmpty());
+        assertEquals(2, result.size());
+        assertSame(hot, result.get(0));
+        assertSame(archived, result.get(1));
     }
 
     @Test
-    @DisplayName("getRolls: Перепутанные границы (min > max)")
-    void getRolls_MinGreaterThanMax_ReturnsEmpty() {
+    @DisplayName("getRolls: Без фильтра")
+    void getRolls_NoFilter_Success() {
         // Given
         RollFilterRequest filter = new RollFilterRequest();
-        filter.setIdMin(10L);
-        filter.setIdMax(1L);
-        // логика Specification в Spring Data JPA вернет пусто, если границы не пересекаются в БД
-        when(rollRepository.findAll(any(Specification.class))).thenReturn(Collections.emptyList());
+        when(rollRepository.findByFilter(any(RollFilterRequest.class))).thenReturn(List.of(new Roll()));
 
         // When
         List<Roll> result = rollService.getRolls(filter);
 
         // Then
-        assertTrue(result.isEmpty());
+        assertFalse(result.isEmpty());
+        verify(rollRepository).findByFilter(any(RollFilterRequest.class));
     }
 
-
     @Test
-    @DisplayName("getStatistics: Нет рулонов")
-    void getStatistics_NoRolls_Zeros() {
+    @DisplayName("getRolls: Фильтр по id")
+    void getRolls_FilterById_CallsRepository() {
         // Given
-        LocalDateTime start = LocalDateTime.of(2026, 1, 1, 0, 0);
-        LocalDateTime end = LocalDateTime.of(2026, 2, 8, 23, 59);
-        when(rollRepository.findAll(any(Specification.class))).thenReturn(Collections.emptyList());
+        RollFilterRequest filter = new RollFilterRequest();
+        filter.setIdMin(1L);
+        filter.setIdMax(10L);
 
         // When
-        RollStatisticsResponse stats = rollService.getStatistics(start, end);
+        rollService.getRolls(filter);
 
         // Then
-        assertEquals(0, stats.getAddedCount());
-        assertEquals(0, stats.getDeletedCount());
-        assertNull(stats.getAverageLength());
+        verify(rollRepository).findByFilter(any(RollFilterRequest.class));
     }
 
     @Test
-    @DisplayName("getStatistics: Один рулон в периоде")
-    void getStatistics_SingleRoll_Correct() {
+    @DisplayName("getRolls: Фильтр по length")
+    void getRolls_FilterByLength_CallsRepository() {
         // Given
-        LocalDateTime start = LocalDateTime.of(2026, 1, 1, 0, 0);
-        LocalDateTime end = LocalDateTime.of(2026, 2, 8, 23, 59);
-        Roll roll = new Roll(new BigDecimal("10"), new BigDecimal("100"), LocalDateTime.of(2026, 1, 15, 12, 0));
-        roll.setId(1L);
-        when(rollRepository.findAll(any(Specification.class))).thenReturn(List.of(roll));
+        RollFilterRequest filter = new RollFilterRequest();
+        filter.setLengthMin(new BigDecimal("5"));
 
         // When
-        RollStatisticsResponse stats = rollService.getStatistics(start, end);
+        rollService.getRolls(filter);
 
         // Then
-        assertEquals(1, stats.getAddedCount());
-        assertEquals(10.0, stats.getAverageLength());
-        assertEquals(new BigDecimal("100"), stats.getTotalWeight());
+        verify(rollRepository).findByFilter(any(RollFilterRequest.class));
     }
 
     @Test
-    @DisplayName("getStatistics: Несколько рулонов")
-    void getStatistics_MultipleRolls_Correct() {
+    @DisplayName("getRolls: Фильтр по weight")
+    void getRolls_FilterByWeight_CallsRepository() {
         // Given
-        LocalDateTime start = LocalDateTime.of(2026, 1, 1, 0, 0);
-        LocalDateTime end = LocalDateTime.of(2026, 2, 8, 23, 59);
-        Roll r1 = new Roll(new BigDecimal("10"), new BigDecimal("100"), LocalDateTime.of(2026, 1, 10, 10, 0));
-        Roll r2 = new Roll(new BigDecimal("20"), new BigDecimal("200"), LocalDateTime.of(2026, 1, 20, 10, 0));
-        when(rollRepository.findAll(any(Specification.class))).thenReturn(List.of(r1, r2));
+        RollFilterRequest filter = new RollFilterRequest();
+        filter.setWeightMax(new BigDecimal("200"));
 
         // When
-        RollStatisticsResponse stats = rollService.getStatistics(start, end);
+        rollService.getRolls(filter);
 
         // Then
-        assertEquals(2, stats.getAddedCount());
-        assertEquals(15.0, stats.getAverageLength());
-        assertEquals(new BigDecimal("300"), stats.getTotalWeight());
+        verify(rollRepository).findByFilter(any(RollFilterRequest.class));
     }
 
     @Test
-    @DisplayName("getStatistics: Все вне периода")
-    void getStatistics_AllOutside_Zeros() {
+    @DisplayName("getRolls: Фильтр по date")
+    void getRolls_FilterByDate_CallsRepository() {
         // Given
-        LocalDateTime start = LocalDateTime.of(2026, 1, 1, 0, 0);
-        LocalDateTime end = LocalDateTime.of(2026, 2, 8, 23, 59);
-        // Рулон добавлен ПОСЛЕ периода
-        when(rollRepository.findAll(any(Specification.class))).thenReturn(Collections.emptyList());
+        RollFilterRequest filter = new RollFilterRequest();
+        filter.setAddDateMin(LocalDateTime.now().minusDays(1));
 
         // When
-        RollStatisticsResponse stats = rollService.getStatistics(start, end);
+        rollService.getRolls(filter);
 
         // Then
-        assertEquals(0, stats.getAddedCount());
+        verify(rollRepository).findByFilter(any(RollFilterRequest.class));
     }
 
     @Test
-    @DisplayName("getStatistics: Добавлен в периоде")
-    void getStatistics_AddedInPeriod_Counted() {
+    @DisplayName("getRolls: Комбинация фильтров")
+    void getRolls_CombinedFilters_CallsRepository() {
         // Given
-        LocalDateTime start = LocalDateTime.of(2026, 1, 1, 0, 0);
-        LocalDateTime end = LocalDateTime.of(2026, 2, 8, 23, 59);
-        Roll r = new Roll(new BigDecimal("10"), new BigDecimal("100"), LocalDateTime.of(2026, 1, 5, 0, 0));
-        when(rollRepository.findAll(any(Specification.class))).thenReturn(List.of(r));
+        RollFilterRequest filter = new RollFilterRequest();
+        filter.setIdMin(1L);
+        filter.setLengthMax(new BigDecimal("50"));
 
         // When
-        RollStatisticsResponse stats = rollService.getStatistics(start, end);
+        rollService.getRolls(filter);
 
         // Then
-        assertEquals(1, stats.getAddedCount());
+        verify(rollRepository).findByFilter(any(RollFilterRequest.class));
     }
 
     @Test
-    @DisplayName("getStatistics: Удалён в периоде")
-    void getStatistics_DeletedInPeriod_Counted() {
+    @DisplayName("getRolls: Диапазон без пересечений")
+    void getRolls_NoIntersection_ReturnsEmpty() {
         // Given
-        LocalDateTime start = LocalDateTime.of(2026, 1, 1, 0, 0);
-        LocalDateTime end = LocalDateTime.of(2026, 2, 8, 23, 59);
-        Roll r = new Roll(new BigDecimal("10"), new BigDecimal("100"), LocalDateTime.of(2025, 12, 1, 0, 0));
-        r.setDeleteDate(LocalDateTime.of(2026, 1, 5, 0, 0));
-        when(rollRepository.findAll(any(Specification.class))).thenReturn(List.of(r));
+        RollFilterRequest filter = new RollFilterRequest();
+        when(rollRepository.findByFilter(any(RollFilterRequest.class))).thenReturn(Collections.emptyList());
 
         // When
-        RollStatisticsResponse stats = rollService.getStatistics(start, end);
+        List<Roll> result = rollService.getRolls(filter);
 
         // Then
-        assertEquals(1, stats.getDeletedCount());
+        assertTrue(result.isEmpty());
     }
 
     @Test
-    @DisplayName("getStatistics: Активен весь период")
-    void getStatistics_ActiveAllPeriod_Included() {
+    @DisplayName("getRolls: Перепутанные границы (min > max)")
+    void getRolls_MinGreaterThanMax_ReturnsEmpty() {
         // Given
-        LocalDateTime start = LocalDateTime.of(2026, 1, 1, 0, 0);
-        LocalDateTime end = LocalDateTime.of(2026, 2, 8, 23, 59);
-
-        Roll r = new Roll(new BigDecimal("10"), new BigDecimal("100"), LocalDateTime.of(2025, 12, 31, 23, 59));
-        when(rollRepository.findAll(any(Specification.class))).thenReturn(List.of(r));
+        RollFilterRequest filter = new RollFilterRequest();
+        filter.setIdMin(10L);
+        filter.setIdMax(1L);
+        // запрос вернет пусто, если границы не пересекаются в БД
+        when(rollRepository.findByFilter(any(RollFilterRequest.class))).thenReturn(Collections.emptyList());
 
         // When
-        RollStatisticsResponse stats = rollService.getStatistics(start, end);
+        List<Roll> result = rollService.getRolls(filter);
 
         // Then
-        assertEquals(0, stats.getAddedCount());
-        assertEquals(1, stats.getTotalWeight().compareTo(BigDecimal.ZERO) > 0 ? 1 : 0); // На складе был
-        assertNotNull(stats.getAverageLength());
+        assertTrue(result.isEmpty());
     }
 
-    @Test
-    @DisplayName("getStatistics: Удалён внутри периода")
-    void getStatistics_DeletedInsidePeriod_Included() {
-        // Given
-        LocalDateTime start = LocalDateTime.of(2026, 1, 1, 0, 0);
-        LocalDateTime end = LocalDateTime.of(2026, 2, 8, 23, 59);
-        Roll r = new Roll(new BigDecimal("10"), new BigDecimal("100"), LocalDateTime.of(2026, 1, 2, 0, 0));
-        r.setDeleteDate(LocalDateTime.of(2026, 1, 5, 0, 0));
-        when(rollRepository.findAll(any(Specification.class))).thenReturn(List.of(r));
-
-        // When
-        RollStatisticsResponse stats = rollService.getStatistics(start, end);
-
-        // Then
-        assertEquals(1, stats.getAddedCount());
-        assertEquals(1, stats.getDeletedCount());
-    }
 
     @Test
-    @DisplayName("getStatistics: Добавлен внутри периода")
-    void getStatistics_AddedInsidePeriod_Included() {
+    @DisplayName("getStatistics: start > end")
+    void getStatistics_StartAfterEnd_ThrowsException() {
         // Given
-        LocalDateTime start = LocalDateTime.of(2026, 1, 1, 0, 0);
-        LocalDateTime end = LocalDateTime.of(2026, 2, 8, 23, 59);
-        Roll r = new Roll(new BigDecimal("10"), new BigDecimal("100"), LocalDateTime.of(2026, 1, 10, 0, 0));
-        when(rollRepository.findAll(any(Specification.class))).thenReturn(List.of(r));
-
-        // When
-        RollStatisticsResponse stats = rollService.getStatistics(start, end);
+        LocalDateTime start = LocalDateTime.of(2026, 2, 1, 0, 0);
+        LocalDateTime end = LocalDateTime.of(2026, 1, 1, 0, 0);
 
-        // Then
-        assertEquals(1, stats.getAddedCount());
+        // When & Then
+        assertThrows(IllegalArgumentException.class, () -> rollService.getStatistics(start, end, null));
     }
 
     @Test
-    @DisplayName("getStatistics: Агрегации (Средние/min/max/total/LifeSpan)")
-    void getStatistics_Aggregations_Correct() {
+    @DisplayName("getStatistics: Итоги шардов складываются")
+    void getStatistics_MultipleShards_AggregatesMerged() {
         // Given
         LocalDateTime start = LocalDateTime.of(2026, 1, 1, 0, 0);
-        LocalDateTime end = LocalDateTime.of(2026, 2, 8, 23, 59);
-        Roll r1 = new Roll(new BigDecimal("10"), new BigDecimal("100"), LocalDateTime.of(2026, 1, 1, 10, 0));
-        r1.setDeleteDate(LocalDateTime.of(2026, 1, 1, 10, 10)); // 600 сек
-
-        Roll r2 = new Roll(new BigDecimal("20"), new BigDecimal("300"), LocalDateTime.of(2026, 1, 1, 11, 0));
-        r2.setDeleteDate(LocalDateTime.of(2026, 1, 1, 11, 20)); // 1200 сек
-
-        when(rollRepository.findAll(any(Specification.class))).thenReturn(List.of(r1, r2));
+        LocalDateTime end = LocalDateTime.of(2026, 1, 2, 23, 59);
+        RollStatisticsAggregate shard0 = new RollStatisticsAggregate(1, 0, 1,
+                new BigDecimal("10"), new BigDecimal("100"), new BigDecimal("10"), new BigDecimal("10"),
+                new BigDecimal("100"), new BigDecimal("100"), null, null,
+                start.toLocalDate(), new long[]{1, 1}, new BigDecimal[]{new BigDecimal("100"), new BigDecimal("100")});
+        RollStatisticsAggregate shard1 = new RollStatisticsAggregate(2, 1, 2,
+                new BigDecimal("50"), new BigDecimal("110"), new BigDecimal("20"), new BigDecimal("30"),
+                new BigDecimal("50"), new BigDecimal("60"), 3600L, 7200L,
+                start.toLocalDate(), new long[]{0, 2}, new BigDecimal[]{BigDecimal.ZERO, new BigDecimal("110")});
+        doReturn(List.of(shard0, shard1)).when(shardRouter).fanOut(any());
+        RollFilterRequest filter = new RollFilterRequest();
+        filter.setWeightMin(new BigDecimal("50"));
 
         // When
-        RollStatisticsResponse stats = rollService.getStatistics(start, end);
+        RollStatisticsResponse stats = rollService.getStatistics(start, end, filter);
 
         // Then
-        assertEquals(15.0, stats.getAverageLength());
-        assertEquals(new BigDecimal("10"), stats.getMinLength());
-        assertEquals(new BigDecimal("20"), stats.getMaxLength());
-        assertEquals(new BigDecimal("400"), stats.getTotalWeight());
-        assertEquals(600L, stats.getMinLifeSpanSeconds());
-        assertEquals(1200L, stats.getMaxLifeSpanSeconds());
-    }
-
-    @Test
-    @DisplayName("getStatistics: start > end")
-    void getStatistics_StartAfterEnd_ThrowsException() {
-        // Given
-        LocalDateTime start = LocalDateTime.of(2026, 2, 1, 0, 0);
-        LocalDateTime end = LocalDateTime.of(2026, 1, 1, 0, 0);
-
-        // When & Then
-        assertThrows(IllegalArgumentException.class, () -> rollService.getStatistics(start, end));
+        assertEquals(3, stats.getAddedCount());
+        assertEquals(1, stats.getDeletedCount());
+        assertEquals(20.0, stats.getAverageLength());
+        assertEquals(new BigDecimal("210"), stats.getTotalWeight());
+        assertEquals(new BigDecimal("50"), stats.getMinWeight());
+        assertEquals(3600L, stats.getMinLifeSpanSeconds());
+        assertEquals(LocalDate.of(2026, 1, 1), stats.getDayWithMinCount());
+        assertEquals(LocalDate.of(2026, 1, 2), stats.getDayWithMaxWeight());
     }
 }
@@ -0,0 +1,245 @@
+package org.yrti.severstal.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.yrti.severstal.dto.RollStatisticsAggregate;
+import org.yrti.severstal.dto.RollStatisticsResponse;
+import org.yrti.severstal.model.Roll;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RollStatisticsCalculatorTest {
+
+    @Test
+    @DisplayName("calculate: Нет рулонов")
+    void calculate_NoRolls_Zeros() {
+        // Given
+        LocalDateTime start = LocalDateTime.of(2026, 1, 1, 0, 0);
+        LocalDateTime end = LocalDateTime.of(2026, 2, 8, 23, 59);
+
+        // When
+        RollStatisticsResponse stats = RollStatisticsCalculator.calculate(Collections.emptyList(), start, end);
+
+        // Then
+        assertEquals(0, stats.getAddedCount());
+        assertEquals(0, stats.getDeletedCount());
+        assertNull(stats.getAverageLength());
+    }
+
+    @Test
+    @DisplayName("calculate: Один рулон в периоде")
+    void calculate_SingleRoll_Correct() {
+        // Given
+        LocalDateTime start = LocalDateTime.of(2026, 1, 1, 0, 0);
+        LocalDateTime end = LocalDateTime.of(2026, 2, 8, 23, 59);
+        Roll roll = new Roll(new BigDecimal("10"), new BigDecimal("100"), LocalDateTime.of(2026, 1, 15, 12, 0));
+        roll.setId(1L);
+
+        // When
+        RollStatisticsResponse stats = RollStatisticsCalculator.calculate(List.of(roll), start, end);
+
+        // Then
+        assertEquals(1, stats.getAddedCount());
+        assertEquals(10.0, stats.getAverageLength());
+        assertEquals(new BigDecimal("100"), stats.getTotalWeight());
+    }
+
+    @Test
+    @DisplayName("calculate: Несколько рулонов")
+    void calculate_MultipleRolls_Correct() {
+        // Given
+        LocalDateTime start = LocalDateTime.of(2026, 1, 1, 0, 0);
+        LocalDateTime end = LocalDateTime.of(2026, 2, 8, 23, 59);
+        Roll r1 = new Roll(new BigDecimal("10"), new BigDecimal("100"), LocalDateTime.of(2026, 1, 10, 10, 0));
+        Roll r2 = new Roll(new BigDecimal("20"), new BigDecimal("200"), LocalDateTime.of(2026, 1, 20, 10, 0));
+
+        // When
+        RollStatisticsResponse stats = RollStatisticsCalculator.calculate(List.of(r1, r2), start, end);
+
+        // Then
+        assertEquals(2, stats.getAddedCount());
+        assertEquals(15.0, stats.getAverageLength());
+        assertEquals(new BigDecimal("300"), stats.getTotalWeight());
+    }
+
+    @Test
+    @DisplayName("calculate: Все вне периода")
+    void calculate_AllOutside_Zeros() {
+        // Given
+        LocalDateTime start = LocalDateTime.of(2026, 1, 1, 0, 0);
+        LocalDateTime end = LocalDateTime.of(2026, 2, 8, 23, 59);
+        // Рулон добавлен ПОСЛЕ периода
+
+        // When
+        RollStatisticsResponse stats = RollStatisticsCalculator.calculate(Collections.emptyList(), start, end);
+
+        // Then
+        assertEquals(0, stats.getAddedCount());
+    }
+
+    @Test
+    @DisplayName("calculate: Добавлен в периоде")
+    void calculate_AddedInPeriod_Counted() {
+        // Given
+        LocalDateTime start = LocalDateTime.of(2026, 1, 1, 0, 0);
+        LocalDateTime end = LocalDateTime.of(2026, 2, 8, 23, 59);
+        Roll r = new Roll(new BigDecimal("10"), new BigDecimal("100"), LocalDateTime.of(2026, 1, 5, 0, 0));
+
+        // When
+        RollStatisticsResponse stats = RollStatisticsCalculator.calculate(List.of(r), start, end);
+
+        // Then
+        assertEquals(1, stats.getAddedCount());
+    }
+
+    @Test
+    @DisplayName("calculate: Удалён в периоде")
+    void calculate_DeletedInPeriod_Counted() {
+        // Given
+        LocalDateTime start = LocalDateTime.of(2026, 1, 1, 0, 0);
+        LocalDateTime end = LocalDateTime.of(2026, 2, 8, 23, 59);
+        Roll r = new Roll(new BigDecimal("10"), new BigDecimal("100"), LocalDateTime.of(2025, 12, 1, 0, 0));
+        r.setDeleteDate(LocalDateTime.of(2026, 1, 5, 0, 0));
+
+        // When
+        RollStatisticsResponse stats = RollStatisticsCalculator.calculate(List.of(r), start, end);
+
+        // Then
+        assertEquals(1, stats.getDeletedCount());
+    }
+
+    @Test
+    @DisplayName("calculate: Активен весь период")
+    void calculate_ActiveAllPeriod_Included() {
+        // Given
+        LocalDateTime start = LocalDateTime.of(2026, 1, 1, 0, 0);
+        LocalDateTime end = LocalDateTime.of(2026, 2, 8, 23, 59);
+
+        Roll r = new Roll(new BigDecimal("10"), new BigDecimal("100"), LocalDateTime.of(2025, 12, 31, 23, 59));
+
+        // When
+        RollStatisticsResponse stats = RollStatisticsCalculator.calculate(List.of(r), start, end);
+
+        // Then
+        assertEquals(0, stats.getAddedCount());
+        assertEquals(1, stats.getTotalWeight().compareTo(BigDecimal.ZERO) > 0 ? 1 : 0); // На складе был
+        assertNotNull(stats.getAverageLength());
+    }
+
+    @Test
+    @DisplayName("calculate: Удалён внутри периода")
+    void calculate_DeletedInsidePeriod_Included() {
+        // Given
+        LocalDateTime start = LocalDateTime.of(2026, 1, 1, 0, 0);
+        LocalDateTime end = LocalDateTime.of(2026, 2, 8, 23, 59);
+        Roll r = new Roll(new BigDecimal("10"), new BigDecimal("100"), LocalDateTime.of(2026, 1, 2, 0, 0));
+        r.setDeleteDate(LocalDateTime.of(2026, 1, 5, 0, 0));
+
+        // When
+        RollStatisticsResponse stats = RollStatisticsCalculator.calculate(List.of(r), start, end);
+
+        // Then
+        assertEquals(1, stats.getAddedCount());
+        assertEquals(1, stats.getDeletedCount());
+    }
+
+    @Test
+    @DisplayName("calculate: Добавлен внутри периода")
+    void calculate_AddedInsidePeriod_Included() {
+        // Given
+        LocalDateTime start = LocalDateTime.of(2026, 1, 1, 0, 0);
+        LocalDateTime end = LocalDateTime.of(2026, 2, 8, 23, 59);
+        Roll r = new Roll(new BigDecimal("10"), new BigDecimal("100"), LocalDateTime.of(2026, 1, 10, 0, 0));
+
+        // When
+        RollStatisticsResponse stats = RollStatisticsCalculator.calculate(List.of(r), start, end);
+
+        // Then
+        assertEquals(1, stats.getAddedCount());
+    }
+
+    @Test
+    @DisplayName("calculate: Агрегации (Средние/min/max/total/LifeSpan)")
+    void calculate_Aggregations_Correct() {
+        // Given
+        LocalDateTime start = LocalDateTime.of(2026, 1, 1, 0, 0);
+        LocalDateTime end = LocalDateTime.of(2026, 2, 8, 23, 59);
+        Roll r1 = new Roll(new BigDecimal("10"), new BigDecimal("100"), LocalDateTime.of(2026, 1, 1, 10, 0));
+        r1.setDeleteDate(LocalDateTime.of(2026, 1, 1, 10, 10)); // 600 сек
+
+        Roll r2 = new Roll(new BigDecimal("20"), new BigDecimal("300"), LocalDateTime.of(2026, 1, 1, 11, 0));
+        r2.setDeleteDate(LocalDateTime.of(2026, 1, 1, 11, 20)); // 1200 сек
+
+
+        // When
+        RollStatisticsResponse stats = RollStatisticsCalculator.calculate(List.of(r1, r2), start, end);
+
+        // Then
+        assertEquals(15.0, stats.getAverageLength());
+        assertEquals(new BigDecimal("10"), stats.getMinLength());
+        assertEquals(new BigDecimal("20"), stats.getMaxLength());
+        assertEquals(new BigDecimal("400"), stats.getTotalWeight());
+        assertEquals(600L, stats.getMinLifeSpanSeconds());
+        assertEquals(1200L, stats.getMaxLifeSpanSeconds());
+    }
+
+
+    @Test
+    @DisplayName("merge: Дни с мин/макс считаются по объединению шардов")
+    void merge_MultipleShards_DailyStatsOfUnion() {
+        // Given
+        LocalDateTime start = LocalDateTime.of(2026, 1, 1, 0, 0);
+        LocalDateTime end = LocalDateTime.of(2026, 1, 3, 23, 59);
+        // шард 0: один рулон все три дня; шард 1: два рулона только 2 января
+        Roll r1 = new Roll(new BigDecimal("10"), new BigDecimal("100"), LocalDateTime.of(2026, 1, 1, 10, 0));
+        Roll r2 = new Roll(new BigDecimal("20"), new BigDecimal("50"), LocalDateTime.of(2026, 1, 2, 10, 0));
+        r2.setDeleteDate(LocalDateTime.of(2026, 1, 2, 12, 0));
+        Roll r3 = new Roll(new BigDecimal("30"), new BigDecimal("60"), LocalDateTime.of(2026, 1, 2, 11, 0));
+        r3.setDeleteDate(LocalDateTime.of(2026, 1, 2, 13, 0));
+        RollStatisticsAggregate shard0 = RollStatisticsCalculator.aggregate(List.of(r1), start, end);
+        RollStatisticsAggregate shard1 = RollStatisticsCalculator.aggregate(List.of(r2, r3), start, end);
+
+        // When
+        RollStatisticsResponse stats = RollStatisticsCalculator.toResponse(shard0.merge(shard1));
+
+        // Then
+        assertEquals(3, stats.getAddedCount());
+        assertEquals(2, stats.getDeletedCount());
+        assertEquals(20.0, stats.getAverageLength());
+        assertEquals(new BigDecimal("10"), stats.getMinLength());
+        assertEquals(new BigDecimal("30"), stats.getMaxLength());
+        assertEquals(new BigDecimal("210"), stats.getTotalWeight());
+        assertEquals(LocalDate.of(2026, 1, 2), stats.getDayWithMaxCount());
+        assertEquals(LocalDate.of(2026, 1, 2), stats.getDayWithMaxWeight());
+        assertEquals(LocalDate.of(2026, 1, 1), stats.getDayWithMinCount());
+    }
+
+    @Test
+    @DisplayName("aggregate: День рулона определяется по московским границам суток, полночь относится к новому дню")
+    void aggregate_RollsAroundMidnight_BucketedByMoscowDays() {
+        // Given
+        LocalDateTime start = LocalDateTime.of(2026, 1, 1, 0, 0);
+        LocalDateTime end = LocalDateTime.of(2026, 1, 3, 23, 59);
+        Roll r1 = new Roll(new BigDecimal("10"), new BigDecimal("100"), LocalDateTime.of(2026, 1, 1, 23, 30));
+        r1.setDeleteDate(LocalDateTime.of(2026, 1, 2, 0, 30));
+        Roll r2 = new Roll(new BigDecimal("20"), new BigDecimal("200"), LocalDateTime.of(2026, 1, 1, 10, 0));
+        r2.setDeleteDate(LocalDateTime.of(2026, 1, 2, 0, 0));
+        Roll r3 = new Roll(new BigDecimal("30"), new BigDecimal("300"), LocalDateTime.of(2026, 1, 3, 0, 0));
+
+        // When
+        RollStatisticsAggregate aggregate = RollStatisticsCalculator.aggregate(List.of(r1, r2, r3), start, end);
+
+        // Then
+        assertArrayEquals(new long[]{2, 2, 1}, aggregate.dailyCount());
+        assertEquals(3, aggregate.addedCount());
+        assertEquals(2, aggregate.deletedCount());
+        assertEquals(3_600L, aggregate.minLifeSpanSeconds());
+        assertEquals(50_400L, aggregate.maxLifeSpanSeconds());
+    }
+}
@@ -0,0 +1,69 @@
+package org.yrti.severstal.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.yrti.severstal.dao.RollTopDao;
+import org.yrti.severstal.datasource.ShardRouter;
+import org.yrti.severstal.dto.TopOrder;
+import org.yrti.severstal.model.Roll;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class RollTopServiceTest {
+
+    @Mock
+    private RollTopDao rollTopDao;
+
+    private RollTopService rollTopService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        rollTopService = new RollTopService(rollTopDao, ShardRouter.single());
+    }
+
+    @Test
+    @DisplayName("getTop: запрос идет в базу с тем же лимитом, лимит вне 1..1000 отклоняется")
+    void getTop_DelegatesWithLimit_ValidatesLimit() {
+        // Given
+        List<Roll> top = List.of(roll(1, "5", 0), roll(2, "3", 0));
+        when(rollTopDao.findTop(TopOrder.WEIGHT, 2)).thenReturn(top);
+
+        // When и Then
+        assertEquals(top, rollTopService.getTop(TopOrder.WEIGHT, 2));
+        assertThrows(IllegalArgumentException.class, () -> rollTopService.getTop(TopOrder.WEIGHT, 0));
+        assertThrows(IllegalArgumentException.class, () -> rollTopService.getTop(TopOrder.WEIGHT, RollTopService.MAX_LIMIT + 1));
+        verify(rollTopDao, times(1)).findTop(any(), anyInt());
+    }
+
+    @Test
+    @DisplayName("merge: первые K из списков шардов в порядке индекса, при равенстве — по id")
+    void merge_TakesFirstKAcrossShards() {
+        // Given
+        List<Roll> shard0 = List.of(roll(1, "9", 3), roll(2, "4", 1), roll(3, "4", 2));
+        List<Roll> shard1 = List.of(roll(ShardRouter.idBase(1) + 1, "7", 0), roll(ShardRouter.idBase(1) + 2, "4", 5));
+
+        // When
+        List<Roll> heaviest = RollTopService.merge(List.of(shard0, shard1), TopOrder.WEIGHT, 4);
+        List<Roll> oldest = RollTopService.merge(List.of(shard0, shard1), TopOrder.AGE, 2);
+
+        // Then
+        assertEquals(List.of(1L, ShardRouter.idBase(1) + 1, 2L, 3L), heaviest.stream().map(Roll::getId).toList());
+        assertEquals(List.of(ShardRouter.idBase(1) + 2, 1L), oldest.stream().map(Roll::getId).toList());
+    }
+
+    private static Roll roll(long id, String weight, int ageDays) {
+        Roll roll = new Roll(BigDecimal.ONE, new BigDecimal(weight), LocalDateTime.of(2026, 1, 10, 0, 0).minusDays(ageDays));
+        roll.setId(id);
+        return roll;
+    }
+}
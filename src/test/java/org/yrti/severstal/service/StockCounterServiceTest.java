@@ -0,0 +1,70 @@
+package org.yrti.severstal.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.yrti.severstal.dao.StockCounterDao;
+import org.yrti.severstal.datasource.ShardRouter;
+import org.yrti.severstal.dto.StockResponse;
+import org.yrti.severstal.event.RollChangedEvent;
+import org.yrti.severstal.model.Roll;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class StockCounterServiceTest {
+
+    @Mock
+    private StockCounterDao stockCounterDao;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private StockCounterService stockCounterService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        stockCounterService = new StockCounterService(stockCounterDao, ShardRouter.single(), transactionManager);
+    }
+
+    @Test
+    @DisplayName("onRollChanged: создание увеличивает, удаление уменьшает счетчики")
+    void onRollChanged_CreateAndDelete() {
+        // Given
+        Roll roll = new Roll(new BigDecimal("10.5"), new BigDecimal("100.25"), LocalDateTime.now());
+
+        // When
+        stockCounterService.onRollChanged(new RollChangedEvent(RollChangedEvent.Type.CREATED, roll));
+        stockCounterService.onRollChanged(new RollChangedEvent(RollChangedEvent.Type.DELETED, roll));
+
+        // Then
+        verify(stockCounterDao).add(intThat(s -> s >= 0 && s < StockCounterDao.STRIPES), eq(1L), eq(new BigDecimal("100.25")), eq(new BigDecimal("10.5")));
+        verify(stockCounterDao).add(anyInt(), eq(-1L), eq(new BigDecimal("-100.25")), eq(new BigDecimal("-10.5")));
+    }
+
+    @Test
+    @DisplayName("repair: счетчики переписываются только при расхождении")
+    void repair_ResetsOnlyOnMismatch() {
+        // Given
+        StockResponse counted = new StockResponse(3, new BigDecimal("30"), new BigDecimal("3"));
+        StockResponse actual = new StockResponse(2, new BigDecimal("20.000"), new BigDecimal("2"));
+        when(stockCounterDao.totals()).thenReturn(counted, actual);
+        when(stockCounterDao.actualTotals()).thenReturn(actual, new StockResponse(2, new BigDecimal("20"), new BigDecimal("2")));
+
+        // When
+        stockCounterService.repair();
+        stockCounterService.repair();
+
+        // Then
+        verify(stockCounterDao, times(2)).lockForRepair();
+        verify(stockCounterDao, times(1)).reset(actual);
+    }
+}
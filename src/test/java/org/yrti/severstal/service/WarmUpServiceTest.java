@@ -0,0 +1,72 @@
+package org.yrti.severstal.service;
+
+import jakarta.validation.Validator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.boot.health.contributor.Status;
+import org.yrti.severstal.dto.RollCreateRequest;
+import org.yrti.severstal.dto.RollFilterRequest;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class WarmUpServiceTest {
+
+    @Mock
+    private RollService rollService;
+
+    @Mock
+    private Validator validator;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    private WarmUpService warmUpService(Duration threshold, Duration timeout) {
+        return new WarmUpService(rollService, JsonMapper.builder().build(), validator,
+                true, 2, 30, threshold, timeout);
+    }
+
+    @Test
+    @DisplayName("run: readiness OUT_OF_SERVICE до прогрева и UP после раунда ниже порога")
+    void run_BelowThreshold_ReadinessUp() {
+        // Given
+        WarmUpService warmUpService = warmUpService(Duration.ofMinutes(1), Duration.ofMinutes(1));
+        WarmUpHealthIndicator healthIndicator = new WarmUpHealthIndicator(warmUpService);
+        assertEquals(Status.OUT_OF_SERVICE, healthIndicator.health().getStatus());
+
+        // When
+        warmUpService.run();
+
+        // Then
+        assertEquals(Status.UP, healthIndicator.health().getStatus());
+        assertEquals(1, warmUpService.rounds());
+        verify(rollService, times(10)).getRolls(any(RollFilterRequest.class));
+        verify(rollService, times(10)).getStatistics(any(), any(), any());
+        // запрос на создание только валидируется, в базу ничего не пишется
+        verify(validator, times(10)).validate(any(RollCreateRequest.class));
+        verify(rollService, never()).createRoll(any());
+    }
+
+    @Test
+    @DisplayName("run: порог не достигнут — узел готов по истечении таймаута")
+    void run_ThresholdNotReached_ReadyAfterTimeout() {
+        // Given
+        WarmUpService warmUpService = warmUpService(Duration.ZERO, Duration.ZERO);
+
+        // When
+        warmUpService.run();
+
+        // Then
+        assertTrue(warmUpService.isComplete());
+        assertEquals(1, warmUpService.rounds());
+    }
+}
@@ -0,0 +1,74 @@
+package org.yrti.severstal.sketch;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QuantileSketchTest {
+
+    @Test
+    @DisplayName("quantile: относительная ошибка не больше заявленной")
+    void quantile_WithinRelativeAccuracy() {
+        // Given
+        Random random = new Random(42);
+        double[] values = new double[100_000];
+        QuantileSketch sketch = new QuantileSketch();
+        for (int i = 0; i < values.length; i++) {
+            // логнормальное распределение: значения от тысячных до тысяч
+            values[i] = Math.exp(random.nextGaussian() * 2 + 3);
+            sketch.add(values[i]);
+        }
+        Arrays.sort(values);
+
+        // When & Then
+        for (double q : new double[]{0, 0.01, 0.5, 0.9, 0.99, 0.999, 1}) {
+            double exact = values[Math.max((int) Math.ceil(q * values.length) - 1, 0)];
+            double estimate = sketch.quantile(q);
+            assertTrue(Math.abs(estimate - exact) <= QuantileSketch.RELATIVE_ACCURACY * exact + 1e-12,
+                    "q=" + q + " exact=" + exact + " estimate=" + estimate);
+        }
+        assertEquals(values.length, sketch.count());
+    }
+
+    @Test
+    @DisplayName("merge: объединение скетчей равно скетчу объединения")
+    void merge_EqualsSketchOfUnion() {
+        // Given
+        Random random = new Random(7);
+        QuantileSketch first = new QuantileSketch();
+        QuantileSketch second = new QuantileSketch();
+        QuantileSketch all = new QuantileSketch();
+        for (int i = 0; i < 10_000; i++) {
+            double value = random.nextDouble() * 1000;
+            (i % 3 == 0 ? first : second).add(value);
+            all.add(value);
+        }
+
+        // When
+        first.merge(second);
+
+        // Then
+        assertEquals(all.bins(), first.bins());
+        assertEquals(all.quantile(0.9), first.quantile(0.9));
+    }
+
+    @Test
+    @DisplayName("quantile: пустой скетч и нулевые значения")
+    void quantile_EmptyAndZero() {
+        // Given
+        QuantileSketch sketch = new QuantileSketch();
+
+        // When & Then
+        assertNull(sketch.quantile(0.5));
+        sketch.add(0);
+        sketch.add(0);
+        sketch.add(10);
+        assertEquals(0.0, sketch.quantile(0.5));
+        assertEquals(10.0, sketch.quantile(1), 10 * QuantileSketch.RELATIVE_ACCURACY);
+        assertThrows(IllegalArgumentException.class, () -> sketch.quantile(1.5));
+    }
+}
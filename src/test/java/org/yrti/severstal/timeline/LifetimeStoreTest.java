@@ -0,0 +1,159 @@
+package org.yrti.severstal.timeline;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LifetimeStoreTest {
+
+    @TempDir
+    private Path dir;
+
+    @Test
+    @DisplayName("снимок, журнал и контрольная точка дают ту же шкалу, что и события по одному; повтор события ничего не меняет")
+    void restore_MatchesIncrementalTimeline() throws IOException {
+        // Given
+        Random random = new Random(7);
+        LocalDateTime base = LocalDateTime.of(2026, 1, 1, 0, 0);
+        StockTimeline expected = new StockTimeline();
+        BigDecimal firstWeight = null;
+        LifetimeStore store = new LifetimeStore(dir, 1);
+        try (LifetimeStore.SnapshotWriter writer = store.newSnapshot()) {
+            for (long id = 1; id <= 1_000; id++) {
+                LocalDateTime added = base.plusMinutes(random.nextInt(100_000));
+                LocalDateTime deleted = id % 3 == 0 ? added.plusMinutes(random.nextInt(10_000)) : null;
+                BigDecimal weight = BigDecimal.valueOf(random.nextInt(1_000_000), 3);
+                if (id == 1) firstWeight = weight;
+                writer.add(RollLifetime.of(id, BigDecimal.ONE, weight, added, deleted));
+                expected.added(added, weight);
+                if (deleted != null) expected.deleted(deleted, weight);
+            }
+            writer.commit(new long[]{10}, new long[]{1_000});
+        }
+        store.openJournal();
+        // удаление рулона из снимка, новый рулон и его удаление; последнее событие приходит дважды
+        LocalDateTime deleteAt = base.plusDays(100);
+        store.append(0, 11, 1, RollLifetime.of(1, BigDecimal.ONE, firstWeight, null, deleteAt));
+        store.checkpoint();
+        store.append(0, 12, 1_001, RollLifetime.of(1_001, BigDecimal.ONE, new BigDecimal("2"), deleteAt, null));
+        store.append(0, 13, 1_001, RollLifetime.of(1_001, BigDecimal.ONE, new BigDecimal("2"), null, deleteAt.plusHours(1)));
+        store.append(0, 13, 1_001, RollLifetime.of(1_001, BigDecimal.ONE, new BigDecimal("2"), null, deleteAt.plusHours(1)));
+        store.close();
+
+        // When
+        LifetimeStore reopened = new LifetimeStore(dir, 1);
+        LifetimeStore.State state = reopened.open();
+        StockTimeline.Builder builder = new StockTimeline.Builder();
+        List<Long> ids = new ArrayList<>();
+        reopened.forEachMerged(lifetime -> {
+            ids.add(lifetime.id());
+            builder.added(lifetime.added(), lifetime.weight());
+            if (lifetime.deleted() != 0) builder.deleted(lifetime.deleted(), lifetime.weight());
+        });
+        StockTimeline restored = builder.build();
+
+        // Then
+        assertArrayEquals(new long[]{13}, state.cursors());
+        assertArrayEquals(new long[]{1_001}, state.cursorRollIds());
+        assertEquals(1_001, ids.size());
+        assertEquals(1_001L, ids.getLast());
+        for (int i = 0; i < 200; i++) {
+            LocalDateTime at = base.plusMinutes(random.nextInt(100_000));
+            StockTimeline.Stock stock = expected.at(at);
+            // рулон 1 удален и рулон 1001 добавлен в deleteAt, позже всех проверяемых моментов
+            assertEquals(stock, restored.at(at), "at=" + at);
+        }
+        StockTimeline.Stock before = expected.at(deleteAt);
+        assertEquals(new StockTimeline.Stock(before.count(), before.totalWeight().subtract(firstWeight).add(new BigDecimal("2"))),
+                restored.at(deleteAt));
+        assertEquals(new StockTimeline.Stock(before.count() - 1, before.totalWeight().subtract(firstWeight)),
+                restored.at(deleteAt.plusHours(1)));
+    }
+
+    @Test
+    @DisplayName("open: испорченный снимок отвергается, недописанная запись журнала не учитывается")
+    void open_DetectsCorruption_IgnoresTornJournalRecord() throws IOException {
+        // Given
+        LifetimeStore store = new LifetimeStore(dir, 1);
+        try (LifetimeStore.SnapshotWriter writer = store.newSnapshot()) {
+            writer.add(RollLifetime.of(1, BigDecimal.ONE, BigDecimal.TEN, LocalDateTime.of(2026, 1, 1, 0, 0), null));
+            writer.commit(new long[]{5}, new long[]{1});
+        }
+        store.openJournal();
+        store.close();
+        // запись попала в файл, а заголовок журнала обновиться не успел
+        Files.write(dir.resolve("rolls.journal"), new byte[RollLifetime.BYTES], StandardOpenOption.APPEND);
+
+        // When и Then
+        List<RollLifetime> merged = new ArrayList<>();
+        new LifetimeStore(dir, 1).forEachMerged(merged::add);
+        assertEquals(1, merged.size());
+        assertThrows(IOException.class, () -> new LifetimeStore(dir, 2).open());
+        try (RandomAccessFile file = new RandomAccessFile(dir.resolve("rolls.snapshot").toFile(), "rw")) {
+            file.seek(file.length() - 1);
+            file.write(0x7f);
+        }
+        assertThrows(IOException.class, () -> new LifetimeStore(dir, 1).open());
+    }
+
+    @Test
+    @DisplayName("open: снимок прежней версии формата (моменты в другой шкале времени) отвергается")
+    void open_OldFormatVersion_Rejected() throws IOException {
+        // Given
+        LifetimeStore store = new LifetimeStore(dir, 1);
+        try (LifetimeStore.SnapshotWriter writer = store.newSnapshot()) {
+            writer.add(RollLifetime.of(1, BigDecimal.ONE, BigDecimal.TEN, LocalDateTime.of(2026, 1, 1, 0, 0), null));
+            writer.commit(new long[]{5}, new long[]{1});
+        }
+        store.close();
+        // версия — второе поле заголовка после магического числа
+        try (RandomAccessFile file = new RandomAccessFile(dir.resolve("rolls.snapshot").toFile(), "rw")) {
+            file.seek(Integer.BYTES);
+            file.writeInt(1);
+        }
+
+        // When и Then
+        IOException error = assertThrows(IOException.class, () -> new LifetimeStore(dir, 1).open());
+        assertTrue(error.getMessage().endsWith("неизвестный формат"));
+    }
+
+    @Test
+    @DisplayName("append: опоздавшее событие с id меньше курсора попадает в журнал, но курсор не сдвигает назад")
+    void append_LateEvent_KeepsCursor() throws IOException {
+        // Given
+        LifetimeStore store = new LifetimeStore(dir, 1);
+        try (LifetimeStore.SnapshotWriter writer = store.newSnapshot()) {
+            writer.commit(new long[]{5}, new long[]{5});
+        }
+        store.openJournal();
+        LocalDateTime at = LocalDateTime.of(2026, 1, 1, 0, 0);
+
+        // When
+        store.append(0, 7, 7, RollLifetime.of(7, BigDecimal.ONE, BigDecimal.ONE, at, null));
+        store.append(0, 6, 6, RollLifetime.of(6, BigDecimal.ONE, BigDecimal.ONE, at, null));
+        store.checkpoint();
+        store.close();
+
+        // Then
+        LifetimeStore reopened = new LifetimeStore(dir, 1);
+        LifetimeStore.State state = reopened.open();
+        List<Long> ids = new ArrayList<>();
+        reopened.forEachMerged(lifetime -> ids.add(lifetime.id()));
+        assertEquals(List.of(6L, 7L), ids);
+        assertArrayEquals(new long[]{7}, state.cursors());
+        assertArrayEquals(new long[]{7}, state.cursorRollIds());
+    }
+}
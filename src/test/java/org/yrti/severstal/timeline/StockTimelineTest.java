@@ -0,0 +1,93 @@
+package org.yrti.severstal.timeline;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StockTimelineTest {
+
+    private record Interval(LocalDateTime added, LocalDateTime deleted, BigDecimal weight) {
+    }
+
+    @Test
+    @DisplayName("at: совпадает с прямым подсчетом при событиях не по порядку и слиянии")
+    void at_MatchesBruteForce() {
+        // Given
+        Random random = new Random(1);
+        LocalDateTime base = LocalDateTime.of(2026, 1, 1, 0, 0);
+        List<Interval> rolls = new ArrayList<>();
+        StockTimeline timeline = new StockTimeline();
+        StockTimeline otherShard = new StockTimeline();
+        for (int i = 0; i < 5_000; i++) {
+            LocalDateTime added = base.plusMinutes(random.nextInt(100_000));
+            LocalDateTime deleted = random.nextBoolean() ? added.plusMinutes(random.nextInt(10_000)) : null;
+            BigDecimal weight = BigDecimal.valueOf(random.nextInt(1_000_000), 3);
+            rolls.add(new Interval(added, deleted, weight));
+            StockTimeline target = i % 4 == 0 ? otherShard : timeline;
+            target.added(added, weight);
+            if (deleted != null) target.deleted(deleted, weight);
+        }
+
+        // When
+        timeline.merge(otherShard);
+
+        // Then
+        for (int i = 0; i < 200; i++) {
+            LocalDateTime at = base.plusMinutes(random.nextInt(120_000));
+            long count = 0;
+            BigDecimal weight = BigDecimal.ZERO;
+            for (Interval roll : rolls) {
+                if (!roll.added().isAfter(at) && (roll.deleted() == null || roll.deleted().isAfter(at))) {
+                    count++;
+                    weight = weight.add(roll.weight());
+                }
+            }
+            StockTimeline.Stock stock = timeline.at(at);
+            assertEquals(count, stock.count(), "at=" + at);
+            assertEquals(0, weight.compareTo(stock.totalWeight()), "at=" + at);
+        }
+        assertEquals(rolls.size(), timeline.size());
+    }
+
+    @Test
+    @DisplayName("at: граница — рулон добавлен в этот момент, удален в этот момент")
+    void at_Boundaries() {
+        // Given
+        StockTimeline timeline = new StockTimeline();
+        LocalDateTime t = LocalDateTime.of(2026, 1, 1, 6, 0);
+        timeline.added(t, new BigDecimal("10"));
+        timeline.added(t.minusHours(1), new BigDecimal("5"));
+        timeline.deleted(t, new BigDecimal("5"));
+
+        // When & Then
+        assertEquals(new StockTimeline.Stock(1, new BigDecimal("5.000")), timeline.at(t.minusSeconds(1)));
+        assertEquals(new StockTimeline.Stock(1, new BigDecimal("10.000")), timeline.at(t));
+        assertEquals(0, timeline.at(t.minusHours(2)).count());
+    }
+
+    @Test
+    @DisplayName("моменты — микросекунды эпохи: шкала из записей снимка и запросы по московскому времени сходятся")
+    void builder_LifetimeMicros_RealEpoch() {
+        // Given: 03:00 по Москве — полночь UTC
+        LocalDateTime moscow = LocalDateTime.of(2026, 1, 1, 3, 0);
+        RollLifetime lifetime = RollLifetime.of(1, BigDecimal.ONE, BigDecimal.TEN, moscow, null);
+        StockTimeline.Builder builder = new StockTimeline.Builder();
+        builder.added(lifetime.added(), lifetime.weight());
+
+        // When
+        StockTimeline timeline = builder.build();
+
+        // Then
+        assertEquals(Instant.parse("2026-01-01T00:00:00Z").toEpochMilli() * 1_000, lifetime.added());
+        assertEquals(0, timeline.at(moscow.minusNanos(1_000)).count());
+        assertEquals(1, timeline.at(moscow).count());
+    }
+}